@@ -0,0 +1,63 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator;
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
+import com.stephenwranger.graphics.math.Tuple2d;
+import com.stephenwranger.graphics.math.intersection.LineSegment;
+
+/**
+ * Seeded input generators shared by the benchmarks so every run of a given size and distribution sees the same data.
+ */
+public class BenchmarkData {
+   public static final long SEED = DatasetGenerator.DEFAULT_SEED;
+
+   private BenchmarkData() {
+      // statics only
+   }
+
+   /**
+    * Returns the given number of distinct points drawn from the given distribution over a square of the given size.
+    *
+    * @param distribution
+    * @param count
+    * @param range
+    * @return
+    */
+   public static List<Tuple2d> getPoints(final Distribution distribution, final int count, final double range) {
+      final List<Tuple2d> output = new ArrayList<Tuple2d>(count);
+      DatasetGenerator.getPoints(distribution, count, range, BenchmarkData.SEED).toTuples(output);
+      return output;
+   }
+
+   /**
+    * Returns the given number of segments whose endpoints are drawn from the given distribution; the segments may
+    * cross.
+    *
+    * @param distribution
+    * @param count
+    * @param range
+    * @return
+    */
+   public static List<LineSegment> getSegments(final Distribution distribution, final int count, final double range) {
+      final List<LineSegment> output = new ArrayList<LineSegment>(count);
+      DatasetGenerator.getSegments(distribution, count, range, BenchmarkData.SEED).toSegments(output);
+      return output;
+   }
+
+   /**
+    * Returns the given number of non-crossing segments, one per horizontal strip of the given square, in random order;
+    * suitable as trapezoidal map input.
+    *
+    * @param count
+    * @param range
+    * @return
+    */
+   public static List<LineSegment> getStripSegments(final int count, final double range) {
+      final List<LineSegment> output = new ArrayList<LineSegment>(count);
+      DatasetGenerator.getStripSegments(count, range, BenchmarkData.SEED).toSegments(output);
+      return output;
+   }
+}
@@ -0,0 +1,174 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.convexhull.AklToussaintFilter;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullAklToussaint;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullApproximate;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullBruteForce;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullChans;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullGrahamsScan;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullJarvisMarch;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullMonotoneChain;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullQuickHull;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * Convex hull throughput over both the object and primitive buffer inputs. The brute force hull is O(n^3); pass
+ * <code>-p size=...</code> to keep it to small inputs when benchmarking larger ones. The approximate hull keeps
+ * {@link #APPROXIMATE_DIRECTIONS} directions. These sizes are too small for PARALLEL_JARVIS_MARCH to split its scans;
+ * {@link JarvisMarchBenchmark} measures it on larger inputs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConvexHullBenchmark {
+   public static final int APPROXIMATE_DIRECTIONS = 64;
+
+   public enum Engine {
+      GRAHAMS_SCAN,
+      MONOTONE_CHAIN,
+      CHANS,
+      QUICK_HULL,
+      JARVIS_MARCH,
+      PARALLEL_JARVIS_MARCH,
+      APPROXIMATE,
+      BRUTE_FORCE;
+   }
+
+   @Param({ "100", "1000" })
+   public int                          size;
+
+   @Param({ "UNIFORM", "DISK", "CIRCLE", "CLUSTERED" })
+   public Distribution                 distribution;
+
+   @Param
+   public Engine                       engine;
+
+   /** Whether the Akl-Toussaint filter runs in front of the engine. */
+   @Param({ "false", "true" })
+   public boolean                      prefilter;
+
+   private List<Tuple2d>               input;
+   private PointBuffer                 inputBuffer;
+   private final PointBuffer           filteredBuffer = new PointBuffer();
+   private final PointBuffer           outputBuffer   = new PointBuffer();
+   private Algorithm<Tuple2d, Tuple2d> listEngine;
+   private ConvexHullGrahamsScan       grahams;
+   private ConvexHullMonotoneChain     monotoneChain;
+   private ConvexHullChans             chans;
+   private ConvexHullQuickHull         quickHull;
+   private ConvexHullJarvisMarch       jarvis;
+   private ConvexHullApproximate       approximate;
+   private ConvexHullBruteForce        bruteForce;
+   private final CancellationToken     token          = new CancellationToken();
+
+   @Setup
+   public void setup() {
+      this.input = BenchmarkData.getPoints(this.distribution, this.size, 1000.0);
+      this.inputBuffer = PointBuffer.fromTuples(this.input);
+      this.grahams = new ConvexHullGrahamsScan();
+      this.monotoneChain = new ConvexHullMonotoneChain();
+      this.chans = new ConvexHullChans();
+      this.quickHull = new ConvexHullQuickHull();
+      this.jarvis = new ConvexHullJarvisMarch(this.engine == Engine.PARALLEL_JARVIS_MARCH);
+      this.approximate = new ConvexHullApproximate(ConvexHullBenchmark.APPROXIMATE_DIRECTIONS);
+      this.bruteForce = new ConvexHullBruteForce();
+
+      switch (this.engine) {
+         case GRAHAMS_SCAN:
+            this.listEngine = this.grahams;
+            break;
+         case MONOTONE_CHAIN:
+            this.listEngine = this.monotoneChain;
+            break;
+         case CHANS:
+            this.listEngine = this.chans;
+            break;
+         case QUICK_HULL:
+            this.listEngine = this.quickHull;
+            break;
+         case JARVIS_MARCH:
+         case PARALLEL_JARVIS_MARCH:
+            this.listEngine = this.jarvis;
+            break;
+         case APPROXIMATE:
+            this.listEngine = this.approximate;
+            break;
+         default:
+            this.listEngine = this.bruteForce;
+            break;
+      }
+
+      if (this.prefilter) {
+         this.listEngine = new ConvexHullAklToussaint(this.listEngine);
+      }
+   }
+
+   @Benchmark
+   public List<Tuple2d> computeList() {
+      final List<Tuple2d> output = new ArrayList<Tuple2d>();
+      this.listEngine.compute(this.input, output, this.token);
+      return output;
+   }
+
+   @Benchmark
+   public PointBuffer computeBuffer() {
+      PointBuffer input = this.inputBuffer;
+      this.outputBuffer.clear();
+
+      if (this.prefilter) {
+         this.filteredBuffer.clear();
+         AklToussaintFilter.filter(this.inputBuffer, this.filteredBuffer, this.token);
+         input = this.filteredBuffer;
+      }
+
+      switch (this.engine) {
+         case GRAHAMS_SCAN:
+            this.grahams.compute(input, this.outputBuffer, this.token);
+            break;
+         case MONOTONE_CHAIN:
+            this.monotoneChain.compute(input, this.outputBuffer, this.token);
+            break;
+         case CHANS:
+            this.chans.compute(input, this.outputBuffer, this.token);
+            break;
+         case QUICK_HULL:
+            this.quickHull.compute(input, this.outputBuffer, this.token);
+            break;
+         case JARVIS_MARCH:
+         case PARALLEL_JARVIS_MARCH:
+            this.jarvis.compute(input, this.outputBuffer, this.token);
+            break;
+         case APPROXIMATE:
+            this.approximate.compute(input, this.outputBuffer, this.token);
+            break;
+         default:
+            this.bruteForce.compute(input, this.outputBuffer, this.token);
+            break;
+      }
+
+      return this.outputBuffer;
+   }
+}
@@ -0,0 +1,64 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.activity.InvalidActivityException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
+import com.stephenwranger.compgeo.algorithms.delaunay.DelaunayTriangulation;
+import com.stephenwranger.graphics.math.Tuple2d;
+import com.stephenwranger.graphics.math.intersection.Triangle2d;
+
+/**
+ * Delaunay triangulation throughput; each operation inserts every input point into a fresh triangulation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DelaunayBenchmark {
+   private static final double RANGE = 1000.0;
+
+   @Param({ "100", "1000" })
+   public int                  size;
+
+   @Param({ "UNIFORM", "CLUSTERED" })
+   public Distribution         distribution;
+
+   private List<Tuple2d>       input;
+   private Triangle2d          boundingTriangle;
+
+   @Setup
+   public void setup() {
+      final double range = DelaunayBenchmark.RANGE;
+
+      this.input = BenchmarkData.getPoints(this.distribution, this.size, range);
+      this.boundingTriangle = new Triangle2d(new Tuple2d(-range, -range), new Tuple2d(range * 10, -range), new Tuple2d(-range, range * 10), false);
+   }
+
+   @Benchmark
+   public DelaunayTriangulation insert() throws InvalidActivityException {
+      final DelaunayTriangulation triangulation = new DelaunayTriangulation(this.boundingTriangle);
+
+      for (final Tuple2d vertex : this.input) {
+         triangulation.addVertex(vertex, false);
+      }
+
+      return triangulation;
+   }
+}
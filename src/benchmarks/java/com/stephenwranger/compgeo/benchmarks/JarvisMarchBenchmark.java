@@ -0,0 +1,72 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullJarvisMarch;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * Sequential against parallel Jarvis march on inputs large enough for the parallel wrap to split each scan into chunks
+ * of 8192 points; below that it runs the sequential scan, so {@link ConvexHullBenchmark}'s sizes do not exercise it.
+ * CIRCLE puts every point on the hull, the march's O(n^2) worst case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JarvisMarchBenchmark {
+   @Param({ "10000", "100000" })
+   public int                      size;
+
+   @Param({ "UNIFORM", "CIRCLE" })
+   public Distribution             distribution;
+
+   @Param({ "false", "true" })
+   public boolean                  parallel;
+
+   private List<Tuple2d>           input;
+   private PointBuffer             inputBuffer;
+   private final PointBuffer       outputBuffer = new PointBuffer();
+   private ConvexHullJarvisMarch   jarvis;
+   private final CancellationToken token        = new CancellationToken();
+
+   @Setup
+   public void setup() {
+      this.input = BenchmarkData.getPoints(this.distribution, this.size, 1000.0);
+      this.inputBuffer = PointBuffer.fromTuples(this.input);
+      this.jarvis = new ConvexHullJarvisMarch(this.parallel);
+   }
+
+   @Benchmark
+   public List<Tuple2d> computeList() {
+      final List<Tuple2d> output = new ArrayList<Tuple2d>();
+      this.jarvis.compute(this.input, output, this.token);
+      return output;
+   }
+
+   @Benchmark
+   public PointBuffer computeBuffer() {
+      this.outputBuffer.clear();
+      this.jarvis.compute(this.inputBuffer, this.outputBuffer, this.token);
+      return this.outputBuffer;
+   }
+}
@@ -0,0 +1,93 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
+import com.stephenwranger.compgeo.algorithms.segments.BruteForceSegmentIntersectionAlgorithm;
+import com.stephenwranger.compgeo.algorithms.segments.LineSweepSegmentIntersectionAlgorithm;
+import com.stephenwranger.graphics.math.Tuple2d;
+import com.stephenwranger.graphics.math.intersection.LineSegment;
+
+/**
+ * Segment intersection throughput over both the object and primitive buffer inputs. Segment endpoints are drawn from
+ * the point distribution, so uniform inputs have O(n^2) intersections while clustered inputs have far fewer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SegmentIntersectionBenchmark {
+   public enum Engine {
+      BRUTE_FORCE,
+      LINE_SWEEP;
+   }
+
+   @Param({ "100", "1000" })
+   public int                                     size;
+
+   @Param({ "UNIFORM", "CLUSTERED" })
+   public Distribution                            distribution;
+
+   @Param
+   public Engine                                  engine;
+
+   private List<LineSegment>                      input;
+   private SegmentBuffer                          inputBuffer;
+   private final PointBuffer                      outputBuffer = new PointBuffer();
+   private BruteForceSegmentIntersectionAlgorithm bruteForce;
+   private LineSweepSegmentIntersectionAlgorithm  lineSweep;
+   private final CancellationToken                token        = new CancellationToken();
+
+   @Setup
+   public void setup() {
+      this.input = BenchmarkData.getSegments(this.distribution, this.size, 1000.0);
+      this.inputBuffer = SegmentBuffer.fromSegments(this.input);
+      this.bruteForce = new BruteForceSegmentIntersectionAlgorithm();
+      this.lineSweep = new LineSweepSegmentIntersectionAlgorithm();
+   }
+
+   @Benchmark
+   public List<Tuple2d> computeList() {
+      final List<Tuple2d> output = new ArrayList<Tuple2d>();
+
+      if (this.engine == Engine.BRUTE_FORCE) {
+         this.bruteForce.compute(this.input, output, this.token);
+      } else {
+         this.lineSweep.compute(this.input, output, this.token);
+      }
+
+      return output;
+   }
+
+   @Benchmark
+   public PointBuffer computeBuffer() {
+      this.outputBuffer.clear();
+
+      if (this.engine == Engine.BRUTE_FORCE) {
+         this.bruteForce.compute(this.inputBuffer, this.outputBuffer, this.token);
+      } else {
+         this.lineSweep.compute(this.inputBuffer, this.outputBuffer, this.token);
+      }
+
+      return this.outputBuffer;
+   }
+}
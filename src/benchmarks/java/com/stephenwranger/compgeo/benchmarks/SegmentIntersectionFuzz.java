@@ -0,0 +1,95 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.segments.BruteForceSegmentIntersectionAlgorithm;
+import com.stephenwranger.compgeo.algorithms.segments.LineSweepSegmentIntersectionAlgorithm;
+import com.stephenwranger.graphics.math.Tuple2d;
+import com.stephenwranger.graphics.math.intersection.LineSegment;
+
+/**
+ * Compares the line sweep's intersection count with the brute force algorithm's on seeded random segments between
+ * integer vertices, half of the trials with many segments crossing at a few shared vertices. Prints each trial that
+ * disagrees and the total number of failures.
+ */
+public class SegmentIntersectionFuzz {
+   private static final int TRIALS   = 200;
+   private static final int SEGMENTS = 100;
+
+   private SegmentIntersectionFuzz() {
+      // statics only
+   }
+
+   public static void main(final String[] args) {
+      final LineSweepSegmentIntersectionAlgorithm lineSweep = new LineSweepSegmentIntersectionAlgorithm();
+      final BruteForceSegmentIntersectionAlgorithm bruteForce = new BruteForceSegmentIntersectionAlgorithm();
+      final List<Tuple2d> expected = new ArrayList<Tuple2d>();
+      final List<Tuple2d> output = new ArrayList<Tuple2d>();
+      final Random random = new Random(BenchmarkData.SEED);
+      int failures = 0;
+
+      for (int trial = 0; trial < SegmentIntersectionFuzz.TRIALS; trial++) {
+         final List<LineSegment> segments = SegmentIntersectionFuzz.getSegments(random, SegmentIntersectionFuzz.SEGMENTS, (trial % 4 < 2) ? 40 : 1000, trial % 2 == 0);
+
+         expected.clear();
+         output.clear();
+         bruteForce.compute(segments, expected, Long.MAX_VALUE);
+         lineSweep.compute(segments, output, Long.MAX_VALUE);
+
+         if (output.size() != expected.size()) {
+            failures++;
+            System.out.println("trial " + trial + ": " + output.size() + " of " + expected.size() + " intersections");
+         }
+      }
+
+      System.out.println("failures: " + failures + " of " + SegmentIntersectionFuzz.TRIALS);
+   }
+
+   /**
+    * Returns random segments between integer vertices in [0, size), optionally through a few shared vertices. No
+    * segment touches another at an end vertex, as the sweep does not report those.
+    */
+   private static List<LineSegment> getSegments(final Random random, final int count, final int size, final boolean isConcurrent) {
+      final List<LineSegment> segments = new ArrayList<LineSegment>();
+
+      while (segments.size() < count) {
+         final Tuple2d v1, v2;
+
+         if (isConcurrent) {
+            final int x = (1 + random.nextInt(3)) * size / 4;
+            final int y = (1 + random.nextInt(3)) * size / 4;
+            final int dx = random.nextInt(17) - 8;
+            final int dy = random.nextInt(17) - 8;
+            final int k1 = 1 + random.nextInt(size / 25);
+            final int k2 = 1 + random.nextInt(size / 25);
+
+            v1 = new Tuple2d(x - dx * k1, y - dy * k1);
+            v2 = new Tuple2d(x + dx * k2, y + dy * k2);
+         } else {
+            v1 = new Tuple2d(random.nextInt(size), random.nextInt(size));
+            v2 = new Tuple2d(random.nextInt(size), random.nextInt(size));
+         }
+
+         final LineSegment segment = new LineSegment(v1, v2);
+         boolean isTouching = v1.x == v2.x && v1.y == v2.y;
+
+         for (int i = 0; i < segments.size() && !isTouching; i++) {
+            final LineSegment other = segments.get(i);
+            isTouching = SegmentIntersectionFuzz.isOn(segment.min, other) || SegmentIntersectionFuzz.isOn(segment.max, other) || SegmentIntersectionFuzz.isOn(other.min, segment) || SegmentIntersectionFuzz.isOn(other.max, segment);
+         }
+
+         if (!isTouching) {
+            segments.add(segment);
+         }
+      }
+
+      return segments;
+   }
+
+   private static boolean isOn(final Tuple2d vertex, final LineSegment segment) {
+      return GeometricPredicates.orientation(segment.min, segment.max, vertex) == 0 && vertex.x >= segment.min.x && vertex.x <= segment.max.x && vertex.y >= Math.min(segment.min.y, segment.max.y) && vertex.y <= Math.max(segment.min.y, segment.max.y);
+   }
+}
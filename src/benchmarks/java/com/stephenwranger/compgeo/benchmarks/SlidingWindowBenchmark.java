@@ -0,0 +1,107 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullMonotoneChain;
+import com.stephenwranger.compgeo.algorithms.convexhull.SlidingWindowConvexHull;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * Throughput of one tick of a sliding window hull, pushing the next point of a stream and reading the hull of the last
+ * <code>window</code> points, against recomputing that hull from scratch with the monotone chain. CIRCLE keeps every
+ * point of the window on the hull, the sliding window's worst case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SlidingWindowBenchmark {
+   private static final double     RANGE         = 1000.0;
+   private static final int        STREAM_SIZE   = 1 << 16;
+
+   @Param({ "100", "1000", "10000" })
+   public int                      window;
+
+   @Param({ "UNIFORM", "DISK", "CIRCLE", "CLUSTERED" })
+   public Distribution             distribution;
+
+   private Tuple2d[]               stream;
+   private int                     streamIndex;
+   private long                    time;
+   private SlidingWindowConvexHull slidingWindow;
+   private ConvexHullMonotoneChain monotoneChain;
+   private double[]                windowXs;
+   private double[]                windowYs;
+   private PointBuffer             windowBuffer;
+   private final PointBuffer       outputBuffer  = new PointBuffer();
+   private final CancellationToken token         = new CancellationToken();
+
+   @Setup
+   public void setup() {
+      final List<Tuple2d> points = BenchmarkData.getPoints(this.distribution, SlidingWindowBenchmark.STREAM_SIZE, SlidingWindowBenchmark.RANGE);
+
+      this.stream = points.toArray(new Tuple2d[0]);
+      this.slidingWindow = new SlidingWindowConvexHull(this.window);
+      this.monotoneChain = new ConvexHullMonotoneChain();
+      this.windowXs = new double[this.window];
+      this.windowYs = new double[this.window];
+      this.windowBuffer = new PointBuffer(this.windowXs, this.windowYs, this.window);
+
+      // start with a full window
+      for (this.streamIndex = 0; this.streamIndex < this.window; this.streamIndex++) {
+         this.slidingWindow.push(this.stream[this.streamIndex], this.time++);
+      }
+   }
+
+   @Benchmark
+   public PointBuffer slide() {
+      this.slidingWindow.push(this.next(), this.time++);
+
+      this.outputBuffer.clear();
+      this.slidingWindow.getHull(this.outputBuffer);
+
+      return this.outputBuffer;
+   }
+
+   @Benchmark
+   public PointBuffer recompute() {
+      this.next();
+
+      // the stream wraps around, so the window may too
+      for (int i = 0; i < this.window; i++) {
+         final Tuple2d point = this.stream[(this.streamIndex - this.window + i + SlidingWindowBenchmark.STREAM_SIZE) % SlidingWindowBenchmark.STREAM_SIZE];
+         this.windowXs[i] = point.x;
+         this.windowYs[i] = point.y;
+      }
+
+      this.outputBuffer.clear();
+      this.monotoneChain.compute(this.windowBuffer, this.outputBuffer, this.token);
+
+      return this.outputBuffer;
+   }
+
+   private Tuple2d next() {
+      final Tuple2d point = this.stream[this.streamIndex];
+      this.streamIndex = (this.streamIndex + 1) % SlidingWindowBenchmark.STREAM_SIZE;
+
+      return point;
+   }
+}
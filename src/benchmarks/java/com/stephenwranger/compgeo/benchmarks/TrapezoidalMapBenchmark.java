@@ -0,0 +1,77 @@
+package com.stephenwranger.compgeo.benchmarks;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
+import com.stephenwranger.compgeo.algorithms.trapezoids.LeafNode;
+import com.stephenwranger.compgeo.algorithms.trapezoids.TrapezoidalMapAlgorithm;
+import com.stephenwranger.graphics.math.Tuple2d;
+import com.stephenwranger.graphics.math.intersection.LineSegment;
+
+/**
+ * Trapezoidal map construction and point location throughput. Building also produces the node adjacency matrix, which
+ * is quadratic in the number of nodes, so keep the segment count modest. Query points are drawn from the point
+ * distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TrapezoidalMapBenchmark {
+   private static final double     RANGE       = 1000.0;
+   private static final int        QUERY_COUNT = 1024;
+
+   @Param({ "10", "100", "250" })
+   public int                      size;
+
+   @Param({ "UNIFORM", "CLUSTERED" })
+   public Distribution             distribution;
+
+   private final Rectangle2D       bounds      = new Rectangle2D.Double(0, 0, TrapezoidalMapBenchmark.RANGE, TrapezoidalMapBenchmark.RANGE);
+   private List<LineSegment>       input;
+   private TrapezoidalMapAlgorithm map;
+   private Tuple2d[]               queries;
+   private int                     queryIndex  = 0;
+   private final CancellationToken token       = new CancellationToken();
+
+   @Setup
+   public void setup() {
+      this.input = BenchmarkData.getStripSegments(this.size, TrapezoidalMapBenchmark.RANGE);
+      this.map = new TrapezoidalMapAlgorithm(this.bounds);
+      this.map.compute(this.input, new ArrayList<String[]>(), this.token);
+      this.queries = BenchmarkData.getPoints(this.distribution, TrapezoidalMapBenchmark.QUERY_COUNT, TrapezoidalMapBenchmark.RANGE).toArray(new Tuple2d[0]);
+   }
+
+   @Benchmark
+   public List<String[]> build() {
+      final List<String[]> output = new ArrayList<String[]>();
+      new TrapezoidalMapAlgorithm(this.bounds).compute(this.input, output, this.token);
+
+      return output;
+   }
+
+   @Benchmark
+   public LeafNode query() {
+      this.queryIndex = (this.queryIndex + 1) % TrapezoidalMapBenchmark.QUERY_COUNT;
+
+      return this.map.query(this.queries[this.queryIndex]);
+   }
+}
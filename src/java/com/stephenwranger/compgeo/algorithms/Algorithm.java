@@ -1,7 +1,64 @@
 package com.stephenwranger.compgeo.algorithms;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface Algorithm<T, U> {
-   public boolean compute(final List<T> input, final List<U> output, final long timeout);
+   /**
+    * Runs the algorithm over the given input, adding results to the output list. Implementations poll the given token
+    * and stop early, returning false, once it has been cancelled.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return true if the algorithm ran to completion
+    */
+   public boolean compute(final List<T> input, final List<U> output, final CancellationToken token);
+
+   /**
+    * Runs the algorithm over the given input, adding results to the output list, and gives up after the given number of
+    * milliseconds.
+    *
+    * @param input
+    * @param output
+    * @param timeout
+    * @return true if the algorithm completed before timing out
+    */
+   public default boolean compute(final List<T> input, final List<U> output, final long timeout) {
+      final CancellationToken token = CancellationToken.withTimeout(timeout);
+
+      try {
+         return this.compute(input, output, token);
+      } finally {
+         token.release();
+      }
+   }
+
+   /**
+    * Runs the algorithm over the given input, handing each result to the given sink as it becomes available. The
+    * algorithm stops early, and still returns true, once the sink asks for no more results.
+    * <p>
+    * This default collects the results before streaming them; engines that can produce results incrementally override
+    * it.
+    *
+    * @param input
+    * @param sink
+    * @param token
+    * @return true if the algorithm ran to completion or was stopped by the sink, false if it was cancelled
+    */
+   public default boolean compute(final List<T> input, final ResultSink<U> sink, final CancellationToken token) {
+      final List<U> output = new ArrayList<U>();
+
+      if (!this.compute(input, output, token)) {
+         return false;
+      }
+
+      for (final U result : output) {
+         if (!sink.accept(result)) {
+            break;
+         }
+      }
+
+      return true;
+   }
 }
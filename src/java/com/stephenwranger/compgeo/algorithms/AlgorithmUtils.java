@@ -2,46 +2,169 @@ package com.stephenwranger.compgeo.algorithms;
 
 import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
+import com.stephenwranger.compgeo.algorithms.DatasetGenerator.Distribution;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.Vector2d;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
 
 public class AlgorithmUtils {
+   private static final int INSERTION_SORT_THRESHOLD = 32;
+   private static final int PARALLEL_SORT_THRESHOLD  = 1 << 13;
+
    private AlgorithmUtils() {
       // statics only
    }
 
+   /**
+    * Appends the given number of distinct, uniformly distributed points to the given list; the same count always
+    * yields the same points.
+    *
+    * @param pointCount
+    * @param output
+    */
    public static void getRandomPoints(final int pointCount, final List<Tuple2d> output) {
-      final int range = (int) Math.pow(10.0, Math.floor(Math.log10(pointCount)));
-      final Random random = new Random();
-      Tuple2d point;
+      AlgorithmUtils.getRandomPoints(pointCount, DatasetGenerator.DEFAULT_SEED, output);
+   }
+
+   /**
+    * Appends the given number of distinct points, uniformly distributed over a square sized to the count, to the given
+    * list.
+    *
+    * @param pointCount
+    * @param seed
+    * @param output
+    */
+   public static void getRandomPoints(final int pointCount, final long seed, final List<Tuple2d> output) {
+      DatasetGenerator.getPoints(Distribution.UNIFORM, pointCount, AlgorithmUtils.getRange(pointCount), seed).toTuples(output);
+   }
+
+   /**
+    * Appends the given number of non-vertical, uniformly distributed segments to the given list; the same count always
+    * yields the same segments.
+    *
+    * @param segmentCount
+    * @param output
+    */
+   public static void getRandomSegments(final int segmentCount, final List<LineSegment> output) {
+      AlgorithmUtils.getRandomSegments(segmentCount, DatasetGenerator.DEFAULT_SEED, output);
+   }
 
-      for (int i = 0; i < pointCount; i++) {
-         do {
-            point = new Tuple2d(random.nextDouble() * range, random.nextDouble() * range);
-         } while (output.contains(point));
+   /**
+    * Appends the given number of non-vertical segments, with endpoints uniformly distributed over a square sized to the
+    * count, to the given list.
+    *
+    * @param segmentCount
+    * @param seed
+    * @param output
+    */
+   public static void getRandomSegments(final int segmentCount, final long seed, final List<LineSegment> output) {
+      DatasetGenerator.getSegments(Distribution.UNIFORM, segmentCount, AlgorithmUtils.getRange(segmentCount), seed).toSegments(output);
+   }
+
+   private static double getRange(final int count) {
+      return Math.pow(10.0, Math.floor(Math.log10(Math.max(1, count))));
+   }
 
-         output.add(point);
+   /**
+    * Stably sorts the first <code>size</code> entries of the three parallel arrays by key and then by tie-break, moving
+    * the entries of all three together. A primitive merge sort, so large point sets can be ordered without boxing or a
+    * Comparator call per comparison.
+    *
+    * @param keys
+    * @param tieBreaks
+    * @param values
+    * @param size
+    */
+   public static void sort(final double[] keys, final double[] tieBreaks, final int[] values, final int size) {
+      AlgorithmUtils.sort(keys, tieBreaks, values, new double[size], new double[size], new int[size], 0, size);
+   }
+
+   /**
+    * Sorts the same way as {@link #sort(double[], double[], int[], int)}, splitting the arrays into halves that are
+    * sorted on the common fork/join pool and then merged.
+    *
+    * @param keys
+    * @param tieBreaks
+    * @param values
+    * @param size
+    */
+   public static void parallelSort(final double[] keys, final double[] tieBreaks, final int[] values, final int size) {
+      new ParallelSort(keys, tieBreaks, values, new double[size], new double[size], new int[size], 0, size).invoke();
+   }
+
+   private static void sort(final double[] keys, final double[] tieBreaks, final int[] values, final double[] tempKeys, final double[] tempTieBreaks, final int[] tempValues, final int from, final int to) {
+      if (to - from <= AlgorithmUtils.INSERTION_SORT_THRESHOLD) {
+         AlgorithmUtils.insertionSort(keys, tieBreaks, values, from, to);
+         return;
       }
+
+      final int mid = (from + to) >>> 1;
+      AlgorithmUtils.sort(keys, tieBreaks, values, tempKeys, tempTieBreaks, tempValues, from, mid);
+      AlgorithmUtils.sort(keys, tieBreaks, values, tempKeys, tempTieBreaks, tempValues, mid, to);
+      AlgorithmUtils.merge(keys, tieBreaks, values, tempKeys, tempTieBreaks, tempValues, from, mid, to);
    }
 
-   public static void getRandomSegments(final int segmentCount, final List<LineSegment> output) {
-      final int range = (int) Math.pow(10.0, Math.floor(Math.log10(segmentCount)));
-      final Random random = new Random();
-      Tuple2d p1, p2;
+   /**
+    * Merges the sorted runs [from, mid) and [mid, to) in place, using the temporary arrays as scratch space.
+    */
+   private static void merge(final double[] keys, final double[] tieBreaks, final int[] values, final double[] tempKeys, final double[] tempTieBreaks, final int[] tempValues, final int from, final int mid, final int to) {
+      if (!AlgorithmUtils.isLess(keys, tieBreaks, mid, mid - 1)) {
+         // already in order
+         return;
+      }
+
+      System.arraycopy(keys, from, tempKeys, from, to - from);
+      System.arraycopy(tieBreaks, from, tempTieBreaks, from, to - from);
+      System.arraycopy(values, from, tempValues, from, to - from);
+
+      int left = from;
+      int right = mid;
 
-      for (int i = 0; i < segmentCount; i++) {
-         do {
-            p1 = new Tuple2d(random.nextDouble() * range, random.nextDouble() * range);
-            p2 = new Tuple2d(random.nextDouble() * range, random.nextDouble() * range);
-         } while (p1.x == p2.x);
+      for (int i = from; i < to; i++) {
+         if (right >= to || (left < mid && !AlgorithmUtils.isLess(tempKeys, tempTieBreaks, right, left))) {
+            keys[i] = tempKeys[left];
+            tieBreaks[i] = tempTieBreaks[left];
+            values[i] = tempValues[left];
+            left++;
+         } else {
+            keys[i] = tempKeys[right];
+            tieBreaks[i] = tempTieBreaks[right];
+            values[i] = tempValues[right];
+            right++;
+         }
+      }
+   }
+
+   private static void insertionSort(final double[] keys, final double[] tieBreaks, final int[] values, final int from, final int to) {
+      double key, tieBreak;
+      int value, j;
+
+      for (int i = from + 1; i < to; i++) {
+         key = keys[i];
+         tieBreak = tieBreaks[i];
+         value = values[i];
+         j = i - 1;
 
-         output.add(new LineSegment(p1, p2));
+         while (j >= from && (keys[j] > key || (keys[j] == key && tieBreaks[j] > tieBreak))) {
+            keys[j + 1] = keys[j];
+            tieBreaks[j + 1] = tieBreaks[j];
+            values[j + 1] = values[j];
+            j--;
+         }
+
+         keys[j + 1] = key;
+         tieBreaks[j + 1] = tieBreak;
+         values[j + 1] = value;
       }
    }
 
+   private static boolean isLess(final double[] keys, final double[] tieBreaks, final int i, final int j) {
+      return keys[i] < keys[j] || (keys[i] == keys[j] && tieBreaks[i] < tieBreaks[j]);
+   }
+
    public static Comparator<Tuple2d> getXAxisComparator() {
       return new Comparator<Tuple2d>() {
          @Override
@@ -74,4 +197,45 @@ public class AlgorithmUtils {
          }
       };
    }
+
+   /**
+    * Sorts one range of the arrays, forking its two halves until they are small enough to sort on one thread.
+    */
+   private static class ParallelSort extends RecursiveAction {
+      private static final long serialVersionUID = -4465304181954120741L;
+
+      private final double[]    keys;
+      private final double[]    tieBreaks;
+      private final int[]       values;
+      private final double[]    tempKeys;
+      private final double[]    tempTieBreaks;
+      private final int[]       tempValues;
+      private final int         from;
+      private final int         to;
+
+      public ParallelSort(final double[] keys, final double[] tieBreaks, final int[] values, final double[] tempKeys, final double[] tempTieBreaks, final int[] tempValues, final int from, final int to) {
+         this.keys = keys;
+         this.tieBreaks = tieBreaks;
+         this.values = values;
+         this.tempKeys = tempKeys;
+         this.tempTieBreaks = tempTieBreaks;
+         this.tempValues = tempValues;
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      protected void compute() {
+         if (this.to - this.from <= AlgorithmUtils.PARALLEL_SORT_THRESHOLD) {
+            AlgorithmUtils.sort(this.keys, this.tieBreaks, this.values, this.tempKeys, this.tempTieBreaks, this.tempValues, this.from, this.to);
+            return;
+         }
+
+         final int mid = (this.from + this.to) >>> 1;
+
+         ForkJoinTask.invokeAll(new ParallelSort(this.keys, this.tieBreaks, this.values, this.tempKeys, this.tempTieBreaks, this.tempValues, this.from, mid),
+               new ParallelSort(this.keys, this.tieBreaks, this.values, this.tempKeys, this.tempTieBreaks, this.tempValues, mid, this.to));
+         AlgorithmUtils.merge(this.keys, this.tieBreaks, this.values, this.tempKeys, this.tempTieBreaks, this.tempValues, this.from, mid, this.to);
+      }
+   }
 }
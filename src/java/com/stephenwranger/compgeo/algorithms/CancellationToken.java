@@ -0,0 +1,118 @@
+package com.stephenwranger.compgeo.algorithms;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cooperative cancellation flag for running algorithms. Checking {@link #isCancelled()} is a volatile read, so engines
+ * can poll it from their inner loops; timeouts are enforced by a shared daemon timer thread that sets the flag once the
+ * deadline passes, and any other thread may cancel a running job through {@link #cancel()}.
+ */
+public class CancellationToken {
+   private static ScheduledThreadPoolExecutor timer = null;
+
+   private final CancellationToken            parent;
+   private volatile boolean                   cancelled   = false;
+   private ScheduledFuture<?>                 timeoutTask = null;
+
+   /**
+    * Creates a new token that is only cancelled through {@link #cancel()}.
+    */
+   public CancellationToken() {
+      this(null);
+   }
+
+   /**
+    * Creates a new token that is cancelled through {@link #cancel()} or whenever the given parent is cancelled.
+    *
+    * @param parent
+    */
+   public CancellationToken(final CancellationToken parent) {
+      this.parent = parent;
+   }
+
+   /**
+    * Cancels this token; any algorithm polling it will stop at its next check.
+    */
+   public void cancel() {
+      this.cancelled = true;
+   }
+
+   /**
+    * Returns true if this token, or its parent, has been cancelled or has timed out.
+    *
+    * @return
+    */
+   public boolean isCancelled() {
+      return this.cancelled || (this.parent != null && this.parent.isCancelled());
+   }
+
+   /**
+    * Releases the timer task associated with this token, if any. Should be called once the algorithm using a timed token
+    * has completed so short jobs do not leave pending tasks on the shared timer.
+    */
+   public synchronized void release() {
+      if (this.timeoutTask != null) {
+         this.timeoutTask.cancel(false);
+         this.timeoutTask = null;
+      }
+   }
+
+   private synchronized void schedule(final long timeoutMillis) {
+      this.timeoutTask = CancellationToken.getTimer().schedule(new Runnable() {
+         @Override
+         public void run() {
+            CancellationToken.this.cancel();
+         }
+      }, timeoutMillis, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Returns a new token that cancels itself after the given number of milliseconds. A timeout of Long.MAX_VALUE never
+    * expires.
+    *
+    * @param timeoutMillis
+    * @return
+    */
+   public static CancellationToken withTimeout(final long timeoutMillis) {
+      return CancellationToken.withTimeout(null, timeoutMillis);
+   }
+
+   /**
+    * Returns a new token that cancels itself after the given number of milliseconds or whenever the given parent is
+    * cancelled. A timeout of Long.MAX_VALUE never expires.
+    *
+    * @param parent
+    * @param timeoutMillis
+    * @return
+    */
+   public static CancellationToken withTimeout(final CancellationToken parent, final long timeoutMillis) {
+      final CancellationToken token = new CancellationToken(parent);
+
+      if (timeoutMillis <= 0) {
+         token.cancel();
+      } else if (timeoutMillis < Long.MAX_VALUE) {
+         token.schedule(timeoutMillis);
+      }
+
+      return token;
+   }
+
+   private static synchronized ScheduledThreadPoolExecutor getTimer() {
+      if (CancellationToken.timer == null) {
+         CancellationToken.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+               final Thread thread = new Thread(runnable, "CancellationToken Timer");
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+         CancellationToken.timer.setRemoveOnCancelPolicy(true);
+      }
+
+      return CancellationToken.timer;
+   }
+}
@@ -0,0 +1,348 @@
+package com.stephenwranger.compgeo.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Seeded synthetic point and segment sets. Every generator is a pure function of its seed: the i-th point of a
+ * distribution is always the same no matter how many points are requested or how many threads generate them, so large
+ * inputs can be regenerated, or generated in ranges, instead of being stored.
+ * <p>
+ * Points are generated in fixed size blocks on the common fork/join pool; each block draws from its own
+ * {@link SplittableRandom} seeded from the generator seed and the block index.
+ */
+public class DatasetGenerator {
+   public static final long  DEFAULT_SEED  = 0x5eed;
+
+   /** The number of points drawn from each block's random source. */
+   private static final int  BLOCK_SIZE    = 1 << 16;
+   private static final int  CLUSTER_COUNT = 8;
+   private static final long GOLDEN_GAMMA  = 0x9E3779B97F4A7C15L;
+
+   public enum Distribution {
+      /** Uniform over a square; most points are interior and the hull is small. */
+      UNIFORM,
+      /** Uniform over a disk; the hull grows with the input. */
+      DISK,
+      /** Every point lies on a circle; every point is a hull vertex, the worst case for output sensitive hulls. */
+      CIRCLE,
+      /** A handful of tight gaussian clusters. */
+      CLUSTERED,
+      /** Integer lattice points; once the count nears the lattice size points repeat, and many are collinear. */
+      GRID;
+   }
+
+   private DatasetGenerator() {
+      // statics only
+   }
+
+   /**
+    * Returns the given number of distinct points drawn from the given distribution over a square of the given size.
+    * Duplicates are dropped and replaced by the points following them in the sequence. {@link Distribution#GRID}
+    * points are returned as drawn, duplicates included.
+    *
+    * @param distribution
+    * @param count
+    * @param range
+    * @param seed
+    * @return
+    */
+   public static PointBuffer getPoints(final Distribution distribution, final int count, final double range, final long seed) {
+      final PointBuffer output = DatasetGenerator.getPoints(distribution, 0, count, range, seed);
+
+      if (distribution == Distribution.GRID) {
+         return output;
+      }
+
+      final PointHashSet distinct = new PointHashSet(output, count);
+      long next = count;
+      int size = 0;
+
+      for (int i = 0; i < count; i++) {
+         if (distinct.add(output.getX(i), output.getY(i), size)) {
+            output.getXs()[size] = output.getX(i);
+            output.getYs()[size] = output.getY(i);
+            size++;
+         }
+      }
+
+      output.truncate(size);
+
+      while (output.size() < count) {
+         final PointBuffer extra = DatasetGenerator.getPoints(distribution, next, count - output.size(), range, seed);
+         next += extra.size();
+
+         for (int i = 0; i < extra.size(); i++) {
+            if (distinct.add(extra.getX(i), extra.getY(i), output.size())) {
+               output.add(extra, i);
+            }
+         }
+      }
+
+      return output;
+   }
+
+   /**
+    * Returns points <code>[start, start + count)</code> of the given distribution's sequence, duplicates included.
+    * Lets callers generate inputs too large to hold at once in pieces.
+    *
+    * @param distribution
+    * @param start
+    * @param count
+    * @param range
+    * @param seed
+    * @return
+    */
+   public static PointBuffer getPoints(final Distribution distribution, final long start, final int count, final double range, final long seed) {
+      if (start < 0 || count < 0) {
+         throw new IllegalArgumentException("Invalid point range: start " + start + ", count " + count);
+      } else if (!(range > 0)) {
+         throw new IllegalArgumentException("Range must be positive: " + range);
+      }
+
+      final double[] xs = new double[Math.max(1, count)];
+      final double[] ys = new double[Math.max(1, count)];
+      final double[] clusters = DatasetGenerator.getClusters(range, seed);
+      final List<PointBlock> blocks = new ArrayList<PointBlock>();
+      long first = start;
+      int length;
+
+      while (first < start + count) {
+         length = (int) Math.min(start + count - first, DatasetGenerator.BLOCK_SIZE - first % DatasetGenerator.BLOCK_SIZE);
+         blocks.add(new PointBlock(distribution, range, seed, clusters, first, (int) (first - start), length, xs, ys));
+         first += length;
+      }
+
+      ForkJoinTask.invokeAll(blocks);
+
+      return new PointBuffer(xs, ys, count);
+   }
+
+   /**
+    * Returns the given number of segments whose endpoints are consecutive points of the given distribution; the
+    * segments may cross. Vertical segments are sheared slightly so every segment has distinct endpoint x values.
+    *
+    * @param distribution
+    * @param count
+    * @param range
+    * @param seed
+    * @return
+    */
+   public static SegmentBuffer getSegments(final Distribution distribution, final int count, final double range, final long seed) {
+      final PointBuffer endpoints = DatasetGenerator.getPoints(distribution, 0, DatasetGenerator.toEndpointCount(count), range, seed);
+      final SegmentBuffer output = new SegmentBuffer(count);
+      double x1, x2;
+
+      for (int i = 0; i < count; i++) {
+         x1 = endpoints.getX(i * 2);
+         x2 = endpoints.getX(i * 2 + 1);
+
+         if (x1 == x2) {
+            x2 += Math.max(range * 1e-6, Math.ulp(x2));
+         }
+
+         output.add(x1, endpoints.getY(i * 2), x2, endpoints.getY(i * 2 + 1));
+      }
+
+      return output;
+   }
+
+   /**
+    * Returns the given number of non-crossing segments, one per horizontal strip of the given square, in a seeded random
+    * order; suitable as trapezoidal map input.
+    *
+    * @param count
+    * @param range
+    * @param seed
+    * @return
+    */
+   public static SegmentBuffer getStripSegments(final int count, final double range, final long seed) {
+      final PointBuffer unit = DatasetGenerator.getPoints(Distribution.UNIFORM, 0, DatasetGenerator.toEndpointCount(count), 1.0, seed);
+      final SegmentBuffer output = new SegmentBuffer(count);
+      final double stripHeight = range / count;
+      final int[] order = new int[count];
+      final SplittableRandom random = new SplittableRandom(DatasetGenerator.mix(seed));
+      int j, temp, index;
+
+      for (int i = 0; i < count; i++) {
+         order[i] = i;
+      }
+
+      for (int i = count - 1; i > 0; i--) {
+         j = random.nextInt(i + 1);
+         temp = order[i];
+         order[i] = order[j];
+         order[j] = temp;
+      }
+
+      for (int i = 0; i < count; i++) {
+         index = order[i];
+         output.add(range * (0.01 + 0.98 * unit.getX(index * 2)), stripHeight * (index + 0.1 + 0.8 * unit.getY(index * 2)),
+               range * (0.01 + 0.98 * unit.getX(index * 2 + 1)), stripHeight * (index + 0.1 + 0.8 * unit.getY(index * 2 + 1)));
+      }
+
+      return output;
+   }
+
+   private static int toEndpointCount(final int segmentCount) {
+      if (segmentCount < 0 || segmentCount > Integer.MAX_VALUE / 2) {
+         throw new IllegalArgumentException("Invalid segment count: " + segmentCount);
+      }
+
+      return segmentCount * 2;
+   }
+
+   /**
+    * Returns the cluster centers as x, y pairs; they depend only on the range and seed.
+    */
+   private static double[] getClusters(final double range, final long seed) {
+      final SplittableRandom random = new SplittableRandom(DatasetGenerator.mix(seed));
+      final double[] clusters = new double[DatasetGenerator.CLUSTER_COUNT * 2];
+
+      for (int i = 0; i < clusters.length; i++) {
+         clusters[i] = range * (0.1 + 0.8 * random.nextDouble());
+      }
+
+      return clusters;
+   }
+
+   /**
+    * SplitMix64's finalizer; turns sequential seeds into statistically independent ones.
+    */
+   private static long mix(final long value) {
+      long z = value;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }
+
+   /**
+    * Generates one contiguous run of points, all from the same block of the sequence.
+    */
+   private static class PointBlock extends RecursiveAction {
+      private static final long  serialVersionUID = 6130394357651287840L;
+
+      private final Distribution distribution;
+      private final double       range;
+      private final long         seed;
+      private final double[]     clusters;
+      private final long         first;
+      private final int          offset;
+      private final int          length;
+      private final double[]     xs;
+      private final double[]     ys;
+
+      public PointBlock(final Distribution distribution, final double range, final long seed, final double[] clusters, final long first, final int offset, final int length, final double[] xs, final double[] ys) {
+         this.distribution = distribution;
+         this.range = range;
+         this.seed = seed;
+         this.clusters = clusters;
+         this.first = first;
+         this.offset = offset;
+         this.length = length;
+         this.xs = xs;
+         this.ys = ys;
+      }
+
+      @Override
+      protected void compute() {
+         final long block = this.first / DatasetGenerator.BLOCK_SIZE;
+         final SplittableRandom random = new SplittableRandom(DatasetGenerator.mix(this.seed + (block + 1) * DatasetGenerator.GOLDEN_GAMMA));
+         final double[] point = new double[2];
+
+         // every point draws the same number of values, so earlier points of the block only need to be drawn
+         for (long i = block * DatasetGenerator.BLOCK_SIZE; i < this.first; i++) {
+            this.next(random, point);
+         }
+
+         for (int i = 0; i < this.length; i++) {
+            this.next(random, point);
+            this.xs[this.offset + i] = point[0];
+            this.ys[this.offset + i] = point[1];
+         }
+      }
+
+      private void next(final SplittableRandom random, final double[] point) {
+         final double half = this.range / 2.0;
+         final double angle, radius;
+         final int cluster;
+
+         switch (this.distribution) {
+            case DISK:
+               angle = random.nextDouble() * 2.0 * Math.PI;
+               radius = half * Math.sqrt(random.nextDouble());
+               point[0] = half + radius * Math.cos(angle);
+               point[1] = half + radius * Math.sin(angle);
+               break;
+            case CIRCLE:
+               angle = random.nextDouble() * 2.0 * Math.PI;
+               point[0] = half + half * Math.cos(angle);
+               point[1] = half + half * Math.sin(angle);
+               break;
+            case CLUSTERED:
+               // Box-Muller; both gaussians of the pair are used
+               cluster = random.nextInt(DatasetGenerator.CLUSTER_COUNT);
+               radius = this.range * 0.02 * Math.sqrt(-2.0 * Math.log(1.0 - random.nextDouble()));
+               angle = random.nextDouble() * 2.0 * Math.PI;
+               point[0] = this.clusters[cluster * 2] + radius * Math.cos(angle);
+               point[1] = this.clusters[cluster * 2 + 1] + radius * Math.sin(angle);
+               break;
+            case GRID:
+               point[0] = Math.floor(random.nextDouble() * (Math.floor(this.range) + 1));
+               point[1] = Math.floor(random.nextDouble() * (Math.floor(this.range) + 1));
+               break;
+            default:
+               point[0] = random.nextDouble() * this.range;
+               point[1] = random.nextDouble() * this.range;
+               break;
+         }
+      }
+   }
+
+   /**
+    * An open addressing set of points, stored as indices into a point buffer.
+    */
+   private static class PointHashSet {
+      private final PointBuffer points;
+      private final int[]       table;
+      private final int         mask;
+
+      public PointHashSet(final PointBuffer points, final int capacity) {
+         final int tableSize = Integer.highestOneBit(Math.max(2, capacity - 1)) << 2;
+
+         if (tableSize <= 0) {
+            throw new IllegalArgumentException("Too many points to deduplicate: " + capacity + "; generate them in ranges instead.");
+         }
+
+         this.points = points;
+         this.table = new int[tableSize];
+         this.mask = tableSize - 1;
+      }
+
+      /**
+       * Records the given point, which the caller stores at the given index of the buffer, and returns true unless an
+       * equal point was already present.
+       */
+      public boolean add(final double x, final double y, final int index) {
+         // adding zero turns -0.0 into 0.0 so equal values share a hash
+         long hash = Double.doubleToLongBits(x + 0.0) * DatasetGenerator.GOLDEN_GAMMA + Double.doubleToLongBits(y + 0.0);
+         hash = DatasetGenerator.mix(hash);
+         int slot = (int) hash & this.mask;
+         int existing;
+
+         while ((existing = this.table[slot]) != 0) {
+            if (this.points.getX(existing - 1) == x && this.points.getY(existing - 1) == y) {
+               return false;
+            }
+
+            slot = (slot + 1) & this.mask;
+         }
+
+         this.table[slot] = index + 1;
+         return true;
+      }
+   }
+}
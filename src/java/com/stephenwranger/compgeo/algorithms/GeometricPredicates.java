@@ -0,0 +1,307 @@
+package com.stephenwranger.compgeo.algorithms;
+
+import java.math.BigDecimal;
+
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * Robust orientation and in-circle predicates. Each predicate first evaluates the determinant in plain floating point
+ * and accepts the result when its magnitude exceeds a forward error bound (Shewchuk's stage A filter); only the rare
+ * near-degenerate inputs that fail the filter are re-evaluated exactly. The sign of every result is therefore always
+ * correct, so engines can compare against zero directly instead of using epsilon comparisons.
+ */
+public class GeometricPredicates {
+   private static final Counter EXACT_FALLBACKS      = Instrumentation.counter(GeometricPredicates.class, "exactFallbacks");
+
+   /** Half an ulp of 1.0, i.e. 2^-53, the relative rounding error of a single double operation. */
+   private static final double  EPSILON              = Math.ulp(1.0) / 2.0;
+   private static final double  CCW_ERROR_BOUND      = (3.0 + 16.0 * GeometricPredicates.EPSILON) * GeometricPredicates.EPSILON;
+   private static final double  INCIRCLE_ERROR_BOUND = (10.0 + 96.0 * GeometricPredicates.EPSILON) * GeometricPredicates.EPSILON;
+   /** A generous bound for {@link #compareLineIntersection}, whose terms are products of an orientation and a difference. */
+   private static final double  LINE_ERROR_BOUND     = 16.0 * GeometricPredicates.EPSILON;
+
+   private GeometricPredicates() {
+      // statics only
+   }
+
+   /**
+    * Returns a positive value if a, b and c are in counter-clockwise order, a negative value if they are in clockwise
+    * order and zero if they are collinear. The magnitude approximates twice the signed area of the triangle abc.
+    *
+    * @param ax
+    * @param ay
+    * @param bx
+    * @param by
+    * @param cx
+    * @param cy
+    * @return
+    */
+   public static double orient2d(final double ax, final double ay, final double bx, final double by, final double cx, final double cy) {
+      final double detLeft = (ax - cx) * (by - cy);
+      final double detRight = (ay - cy) * (bx - cx);
+      final double det = detLeft - detRight;
+      final double detSum;
+
+      if (detLeft > 0) {
+         if (detRight <= 0) {
+            return det;
+         }
+
+         detSum = detLeft + detRight;
+      } else if (detLeft < 0) {
+         if (detRight >= 0) {
+            return det;
+         }
+
+         detSum = -detLeft - detRight;
+      } else {
+         return det;
+      }
+
+      final double errorBound = GeometricPredicates.CCW_ERROR_BOUND * detSum;
+
+      if (det >= errorBound || -det >= errorBound) {
+         return det;
+      }
+
+      return GeometricPredicates.orient2dExact(ax, ay, bx, by, cx, cy);
+   }
+
+   /**
+    * Returns {@link #orient2d(double, double, double, double, double, double)} for the given points.
+    *
+    * @param a
+    * @param b
+    * @param c
+    * @return
+    */
+   public static double orient2d(final Tuple2d a, final Tuple2d b, final Tuple2d c) {
+      return GeometricPredicates.orient2d(a.x, a.y, b.x, b.y, c.x, c.y);
+   }
+
+   /**
+    * Returns 1, 0 or -1 if a, b and c are in counter-clockwise order, collinear or in clockwise order, respectively.
+    *
+    * @param ax
+    * @param ay
+    * @param bx
+    * @param by
+    * @param cx
+    * @param cy
+    * @return
+    */
+   public static int orientation(final double ax, final double ay, final double bx, final double by, final double cx, final double cy) {
+      final double det = GeometricPredicates.orient2d(ax, ay, bx, by, cx, cy);
+      return (det > 0) ? 1 : (det < 0) ? -1 : 0;
+   }
+
+   /**
+    * Returns {@link #orientation(double, double, double, double, double, double)} for the given points.
+    *
+    * @param a
+    * @param b
+    * @param c
+    * @return
+    */
+   public static int orientation(final Tuple2d a, final Tuple2d b, final Tuple2d c) {
+      return GeometricPredicates.orientation(a.x, a.y, b.x, b.y, c.x, c.y);
+   }
+
+   /**
+    * Compares the point where the line through a1 and a2 crosses the line through b1 and b2 with c, by x and then by y:
+    * returns 1, 0 or -1 if the crossing comes after, at or before c, respectively. The sign is exact, as for
+    * {@link #orientation(double, double, double, double, double, double)}; 0 is also returned for parallel lines.
+    *
+    * @param a1x
+    * @param a1y
+    * @param a2x
+    * @param a2y
+    * @param b1x
+    * @param b1y
+    * @param b2x
+    * @param b2y
+    * @param cx
+    * @param cy
+    * @return
+    */
+   public static int compareLineIntersection(final double a1x, final double a1y, final double a2x, final double a2y, final double b1x, final double b1y, final double b2x, final double b2y, final double cx, final double cy) {
+      // the crossing is (o1 a2 - o2 a1) / (o1 - o2), where o1 and o2 are the orientations of a1 and a2 against b1 b2
+      final double left1 = (b1x - a1x) * (b2y - a1y);
+      final double right1 = (b1y - a1y) * (b2x - a1x);
+      final double left2 = (b1x - a2x) * (b2y - a2y);
+      final double right2 = (b1y - a2y) * (b2x - a2x);
+      final double o1 = left1 - right1;
+      final double o2 = left2 - right2;
+      final double sum1 = Math.abs(left1) + Math.abs(right1);
+      final double sum2 = Math.abs(left2) + Math.abs(right2);
+
+      final double denominator = o1 - o2;
+      final double dx1 = a1x - cx;
+      final double dx2 = a2x - cx;
+      final double numerator = o1 * dx2 - o2 * dx1;
+
+      final double denominatorBound = GeometricPredicates.LINE_ERROR_BOUND * (sum1 + sum2);
+      final double numeratorBound = GeometricPredicates.LINE_ERROR_BOUND * (sum1 * Math.abs(dx2) + sum2 * Math.abs(dx1));
+
+      if (Math.abs(denominator) > denominatorBound && Math.abs(numerator) > numeratorBound) {
+         return ((numerator > 0) == (denominator > 0)) ? 1 : -1;
+      }
+
+      return GeometricPredicates.compareLineIntersectionExact(a1x, a1y, a2x, a2y, b1x, b1y, b2x, b2y, cx, cy);
+   }
+
+   /**
+    * Returns a positive value if d lies inside the circle through a, b and c, a negative value if it lies outside and
+    * zero if the four points are cocircular. a, b and c must be in counter-clockwise order; the sign is reversed if
+    * they are clockwise.
+    *
+    * @param ax
+    * @param ay
+    * @param bx
+    * @param by
+    * @param cx
+    * @param cy
+    * @param dx
+    * @param dy
+    * @return
+    */
+   public static double incircle(final double ax, final double ay, final double bx, final double by, final double cx, final double cy, final double dx, final double dy) {
+      final double adx = ax - dx;
+      final double bdx = bx - dx;
+      final double cdx = cx - dx;
+      final double ady = ay - dy;
+      final double bdy = by - dy;
+      final double cdy = cy - dy;
+
+      final double bdxcdy = bdx * cdy;
+      final double cdxbdy = cdx * bdy;
+      final double aLift = adx * adx + ady * ady;
+
+      final double cdxady = cdx * ady;
+      final double adxcdy = adx * cdy;
+      final double bLift = bdx * bdx + bdy * bdy;
+
+      final double adxbdy = adx * bdy;
+      final double bdxady = bdx * ady;
+      final double cLift = cdx * cdx + cdy * cdy;
+
+      final double det = aLift * (bdxcdy - cdxbdy) + bLift * (cdxady - adxcdy) + cLift * (adxbdy - bdxady);
+      final double permanent = (Math.abs(bdxcdy) + Math.abs(cdxbdy)) * aLift + (Math.abs(cdxady) + Math.abs(adxcdy)) * bLift + (Math.abs(adxbdy) + Math.abs(bdxady)) * cLift;
+      final double errorBound = GeometricPredicates.INCIRCLE_ERROR_BOUND * permanent;
+
+      if (det > errorBound || -det > errorBound) {
+         return det;
+      }
+
+      return GeometricPredicates.incircleExact(ax, ay, bx, by, cx, cy, dx, dy);
+   }
+
+   /**
+    * Returns {@link #incircle(double, double, double, double, double, double, double, double)} for the given points.
+    *
+    * @param a
+    * @param b
+    * @param c
+    * @param d
+    * @return
+    */
+   public static double incircle(final Tuple2d a, final Tuple2d b, final Tuple2d c, final Tuple2d d) {
+      return GeometricPredicates.incircle(a.x, a.y, b.x, b.y, c.x, c.y, d.x, d.y);
+   }
+
+   /**
+    * Returns true if d lies strictly inside the circle through a, b and c, regardless of their winding order.
+    *
+    * @param a
+    * @param b
+    * @param c
+    * @param d
+    * @return
+    */
+   public static boolean isInCircle(final Tuple2d a, final Tuple2d b, final Tuple2d c, final Tuple2d d) {
+      final int orientation = GeometricPredicates.orientation(a, b, c);
+      final double det = GeometricPredicates.incircle(a, b, c, d);
+
+      return (orientation > 0) ? det > 0 : (orientation < 0) ? det < 0 : false;
+   }
+
+   private static double orient2dExact(final double ax, final double ay, final double bx, final double by, final double cx, final double cy) {
+      if (Instrumentation.ENABLED) {
+         GeometricPredicates.EXACT_FALLBACKS.increment();
+      }
+
+      return GeometricPredicates.toDouble(GeometricPredicates.orientExact(ax, ay, bx, by, cx, cy));
+   }
+
+   private static double incircleExact(final double ax, final double ay, final double bx, final double by, final double cx, final double cy, final double dx, final double dy) {
+      if (Instrumentation.ENABLED) {
+         GeometricPredicates.EXACT_FALLBACKS.increment();
+      }
+
+      final BigDecimal adx = GeometricPredicates.exact(ax).subtract(GeometricPredicates.exact(dx));
+      final BigDecimal bdx = GeometricPredicates.exact(bx).subtract(GeometricPredicates.exact(dx));
+      final BigDecimal cdx = GeometricPredicates.exact(cx).subtract(GeometricPredicates.exact(dx));
+      final BigDecimal ady = GeometricPredicates.exact(ay).subtract(GeometricPredicates.exact(dy));
+      final BigDecimal bdy = GeometricPredicates.exact(by).subtract(GeometricPredicates.exact(dy));
+      final BigDecimal cdy = GeometricPredicates.exact(cy).subtract(GeometricPredicates.exact(dy));
+
+      final BigDecimal aLift = adx.multiply(adx).add(ady.multiply(ady));
+      final BigDecimal bLift = bdx.multiply(bdx).add(bdy.multiply(bdy));
+      final BigDecimal cLift = cdx.multiply(cdx).add(cdy.multiply(cdy));
+
+      final BigDecimal a = aLift.multiply(bdx.multiply(cdy).subtract(cdx.multiply(bdy)));
+      final BigDecimal b = bLift.multiply(cdx.multiply(ady).subtract(adx.multiply(cdy)));
+      final BigDecimal c = cLift.multiply(adx.multiply(bdy).subtract(bdx.multiply(ady)));
+
+      return GeometricPredicates.toDouble(a.add(b).add(c));
+   }
+
+   private static int compareLineIntersectionExact(final double a1x, final double a1y, final double a2x, final double a2y, final double b1x, final double b1y, final double b2x, final double b2y, final double cx, final double cy) {
+      if (Instrumentation.ENABLED) {
+         GeometricPredicates.EXACT_FALLBACKS.increment();
+      }
+
+      final BigDecimal o1 = GeometricPredicates.orientExact(b1x, b1y, b2x, b2y, a1x, a1y);
+      final BigDecimal o2 = GeometricPredicates.orientExact(b1x, b1y, b2x, b2y, a2x, a2y);
+      final int denominator = o1.subtract(o2).signum();
+
+      if (denominator == 0) {
+         return 0;
+      }
+
+      final BigDecimal x1 = GeometricPredicates.exact(a1x).subtract(GeometricPredicates.exact(cx));
+      final BigDecimal x2 = GeometricPredicates.exact(a2x).subtract(GeometricPredicates.exact(cx));
+      int numerator = o1.multiply(x2).subtract(o2.multiply(x1)).signum();
+
+      if (numerator == 0) {
+         final BigDecimal y1 = GeometricPredicates.exact(a1y).subtract(GeometricPredicates.exact(cy));
+         final BigDecimal y2 = GeometricPredicates.exact(a2y).subtract(GeometricPredicates.exact(cy));
+         numerator = o1.multiply(y2).subtract(o2.multiply(y1)).signum();
+      }
+
+      return numerator * denominator;
+   }
+
+   private static BigDecimal orientExact(final double ax, final double ay, final double bx, final double by, final double cx, final double cy) {
+      final BigDecimal acx = GeometricPredicates.exact(ax).subtract(GeometricPredicates.exact(cx));
+      final BigDecimal bcx = GeometricPredicates.exact(bx).subtract(GeometricPredicates.exact(cx));
+      final BigDecimal acy = GeometricPredicates.exact(ay).subtract(GeometricPredicates.exact(cy));
+      final BigDecimal bcy = GeometricPredicates.exact(by).subtract(GeometricPredicates.exact(cy));
+
+      return acx.multiply(bcy).subtract(acy.multiply(bcx));
+   }
+
+   private static BigDecimal exact(final double value) {
+      // the double constructor, unlike valueOf, keeps every bit of the binary value
+      return new BigDecimal(value);
+   }
+
+   private static double toDouble(final BigDecimal value) {
+      final double result = value.doubleValue();
+
+      // keep the sign of results too small to represent
+      return (result == 0 && value.signum() != 0) ? value.signum() * Double.MIN_VALUE : result;
+   }
+}
@@ -0,0 +1,176 @@
+package com.stephenwranger.compgeo.algorithms;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * A growable struct-of-arrays container for 2D points. Coordinates are stored in two parallel primitive arrays so large
+ * point sets cost two array allocations instead of one Tuple2d per point.
+ */
+public class PointBuffer {
+   private static final int DEFAULT_CAPACITY = 16;
+
+   private double[]         xs;
+   private double[]         ys;
+   private int              size             = 0;
+
+   /**
+    * Creates a new, empty PointBuffer.
+    */
+   public PointBuffer() {
+      this(PointBuffer.DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Creates a new, empty PointBuffer able to hold the given number of points before growing.
+    *
+    * @param capacity
+    */
+   public PointBuffer(final int capacity) {
+      this.xs = new double[Math.max(1, capacity)];
+      this.ys = new double[Math.max(1, capacity)];
+   }
+
+   /**
+    * Wraps the given coordinate arrays without copying them; the first <code>size</code> entries of each are used.
+    *
+    * @param xs
+    * @param ys
+    * @param size
+    */
+   public PointBuffer(final double[] xs, final double[] ys, final int size) {
+      if (xs.length != ys.length || size < 0 || size > xs.length) {
+         throw new IllegalArgumentException("Coordinate arrays must be the same length and hold at least " + size + " values.");
+      }
+
+      this.xs = xs;
+      this.ys = ys;
+      this.size = size;
+   }
+
+   /**
+    * Appends the given point to this buffer.
+    *
+    * @param x
+    * @param y
+    */
+   public void add(final double x, final double y) {
+      if (this.size == this.xs.length) {
+         this.ensureCapacity(Math.max(PointBuffer.DEFAULT_CAPACITY, this.size * 2));
+      }
+
+      this.xs[this.size] = x;
+      this.ys[this.size] = y;
+      this.size++;
+   }
+
+   /**
+    * Appends the point at the given index of the given buffer to this buffer.
+    *
+    * @param other
+    * @param index
+    */
+   public void add(final PointBuffer other, final int index) {
+      this.add(other.xs[index], other.ys[index]);
+   }
+
+   public double getX(final int index) {
+      return this.xs[index];
+   }
+
+   public double getY(final int index) {
+      return this.ys[index];
+   }
+
+   /**
+    * Returns the backing x-coordinate array; only the first {@link #size()} values are valid. Not a copy.
+    *
+    * @return
+    */
+   public double[] getXs() {
+      return this.xs;
+   }
+
+   /**
+    * Returns the backing y-coordinate array; only the first {@link #size()} values are valid. Not a copy.
+    *
+    * @return
+    */
+   public double[] getYs() {
+      return this.ys;
+   }
+
+   public int size() {
+      return this.size;
+   }
+
+   public boolean isEmpty() {
+      return this.size == 0;
+   }
+
+   /**
+    * Removes all points from this buffer; the backing arrays are retained for reuse.
+    */
+   public void clear() {
+      this.size = 0;
+   }
+
+   /**
+    * Discards all points at or after the given index.
+    *
+    * @param size
+    */
+   public void truncate(final int size) {
+      if (size < 0 || size > this.size) {
+         throw new IndexOutOfBoundsException("Cannot truncate buffer of size " + this.size + " to " + size);
+      }
+
+      this.size = size;
+   }
+
+   /**
+    * Grows the backing arrays, if needed, so they can hold at least the given number of points.
+    *
+    * @param capacity
+    */
+   public void ensureCapacity(final int capacity) {
+      if (capacity > this.xs.length) {
+         this.xs = Arrays.copyOf(this.xs, capacity);
+         this.ys = Arrays.copyOf(this.ys, capacity);
+      }
+   }
+
+   /**
+    * Appends a Tuple2d for each point in this buffer to the given output list.
+    *
+    * @param output
+    */
+   public void toTuples(final List<Tuple2d> output) {
+      for (int i = 0; i < this.size; i++) {
+         output.add(new Tuple2d(this.xs[i], this.ys[i]));
+      }
+   }
+
+   /**
+    * Creates a new PointBuffer containing the coordinates of the given points.
+    *
+    * @param points
+    * @return
+    */
+   public static PointBuffer fromTuples(final List<Tuple2d> points) {
+      final PointBuffer buffer = new PointBuffer(points.size());
+
+      for (final Tuple2d point : points) {
+         buffer.add(point.x, point.y);
+      }
+
+      return buffer;
+   }
+
+   @Override
+   public String toString() {
+      return "PointBuffer[" + this.size + "]";
+   }
+}
@@ -0,0 +1,17 @@
+package com.stephenwranger.compgeo.algorithms;
+
+/**
+ * An algorithm over primitive point buffers, so callers can chain engines without creating a Tuple2d per point.
+ */
+public interface PointBufferAlgorithm {
+   /**
+    * Runs the algorithm over the given input, appending results to the output buffer. Implementations poll the given
+    * token and stop early, returning false, once it has been cancelled.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return true if the algorithm ran to completion
+    */
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token);
+}
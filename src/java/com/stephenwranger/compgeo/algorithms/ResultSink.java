@@ -0,0 +1,62 @@
+package com.stephenwranger.compgeo.algorithms;
+
+import java.util.List;
+
+/**
+ * Receives algorithm results as they are produced so callers can stream them elsewhere instead of holding them all in
+ * memory. Returning false from {@link #accept(Object)} asks the algorithm to stop producing results.
+ *
+ * @param <U>
+ */
+public interface ResultSink<U> {
+   /**
+    * Accepts the next result.
+    *
+    * @param result
+    * @return true to keep receiving results, false to stop the algorithm early
+    */
+   public boolean accept(final U result);
+
+   /**
+    * Returns a sink that adds every result to the given list; a null list discards results.
+    *
+    * @param output
+    * @return
+    */
+   public static <U> ResultSink<U> toList(final List<U> output) {
+      return new ResultSink<U>() {
+         @Override
+         public boolean accept(final U result) {
+            if (output != null) {
+               output.add(result);
+            }
+
+            return true;
+         }
+      };
+   }
+
+   /**
+    * Returns a sink that forwards at most the given number of results to the given sink and then stops the algorithm.
+    *
+    * @param sink
+    * @param maxResults
+    * @return
+    */
+   public static <U> ResultSink<U> limit(final ResultSink<U> sink, final long maxResults) {
+      return new ResultSink<U>() {
+         private long count = 0;
+
+         @Override
+         public boolean accept(final U result) {
+            if (this.count >= maxResults) {
+               return false;
+            }
+
+            this.count++;
+
+            return sink.accept(result) && this.count < maxResults;
+         }
+      };
+   }
+}
@@ -0,0 +1,239 @@
+package com.stephenwranger.compgeo.algorithms;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.stephenwranger.graphics.math.Tuple2d;
+import com.stephenwranger.graphics.math.intersection.LineSegment;
+
+/**
+ * A growable container of 2D line segments packed into a single primitive array as <code>[minX, minY, maxX, maxY]</code>
+ * per segment. Endpoints are ordered so the min endpoint is the left-most (lowest y on ties), matching
+ * {@link LineSegment#min} and {@link LineSegment#max}.
+ */
+public class SegmentBuffer {
+   private static final int DEFAULT_CAPACITY = 16;
+   private static final int STRIDE           = 4;
+
+   private double[]         coordinates;
+   private int              size             = 0;
+
+   /**
+    * Creates a new, empty SegmentBuffer.
+    */
+   public SegmentBuffer() {
+      this(SegmentBuffer.DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Creates a new, empty SegmentBuffer able to hold the given number of segments before growing.
+    *
+    * @param capacity
+    */
+   public SegmentBuffer(final int capacity) {
+      this.coordinates = new double[Math.max(1, capacity) * SegmentBuffer.STRIDE];
+   }
+
+   /**
+    * Wraps the given packed coordinate array without copying it; the first <code>4 * size</code> values are used and
+    * each segment's min endpoint must already come first.
+    *
+    * @param coordinates
+    * @param size
+    */
+   public SegmentBuffer(final double[] coordinates, final int size) {
+      if (size < 0 || size * SegmentBuffer.STRIDE > coordinates.length) {
+         throw new IllegalArgumentException("Coordinate array must hold at least " + size + " segments.");
+      }
+
+      this.coordinates = coordinates;
+      this.size = size;
+   }
+
+   /**
+    * Appends the segment between the two given endpoints to this buffer.
+    *
+    * @param x1
+    * @param y1
+    * @param x2
+    * @param y2
+    */
+   public void add(final double x1, final double y1, final double x2, final double y2) {
+      if ((this.size + 1) * SegmentBuffer.STRIDE > this.coordinates.length) {
+         this.ensureCapacity(Math.max(SegmentBuffer.DEFAULT_CAPACITY, this.size * 2));
+      }
+
+      final int offset = this.size * SegmentBuffer.STRIDE;
+
+      if (x1 < x2 || (x1 == x2 && y1 <= y2)) {
+         this.coordinates[offset] = x1;
+         this.coordinates[offset + 1] = y1;
+         this.coordinates[offset + 2] = x2;
+         this.coordinates[offset + 3] = y2;
+      } else {
+         this.coordinates[offset] = x2;
+         this.coordinates[offset + 1] = y2;
+         this.coordinates[offset + 2] = x1;
+         this.coordinates[offset + 3] = y1;
+      }
+
+      this.size++;
+   }
+
+   public double getMinX(final int index) {
+      return this.coordinates[index * SegmentBuffer.STRIDE];
+   }
+
+   public double getMinY(final int index) {
+      return this.coordinates[index * SegmentBuffer.STRIDE + 1];
+   }
+
+   public double getMaxX(final int index) {
+      return this.coordinates[index * SegmentBuffer.STRIDE + 2];
+   }
+
+   public double getMaxY(final int index) {
+      return this.coordinates[index * SegmentBuffer.STRIDE + 3];
+   }
+
+   /**
+    * Returns the backing coordinate array; only the first <code>4 * size()</code> values are valid. Not a copy.
+    *
+    * @return
+    */
+   public double[] getCoordinates() {
+      return this.coordinates;
+   }
+
+   public int size() {
+      return this.size;
+   }
+
+   public boolean isEmpty() {
+      return this.size == 0;
+   }
+
+   /**
+    * Removes all segments from this buffer; the backing array is retained for reuse.
+    */
+   public void clear() {
+      this.size = 0;
+   }
+
+   /**
+    * Grows the backing array, if needed, so it can hold at least the given number of segments.
+    *
+    * @param capacity
+    */
+   public void ensureCapacity(final int capacity) {
+      if (capacity * SegmentBuffer.STRIDE > this.coordinates.length) {
+         this.coordinates = Arrays.copyOf(this.coordinates, capacity * SegmentBuffer.STRIDE);
+      }
+   }
+
+   /**
+    * Computes the intersection of the two segments at the given indices. Parallel (including collinear) segments are
+    * not considered intersecting; segments touching at an endpoint are. Whether the segments intersect is decided
+    * exactly by {@link GeometricPredicates}.
+    *
+    * @param i
+    * @param j
+    * @param result
+    *           array of at least length 2 to receive the x and y of the intersection
+    * @return true if the segments intersect at a single point
+    */
+   public boolean intersect(final int i, final int j, final double[] result) {
+      final int a = i * SegmentBuffer.STRIDE;
+      final int b = j * SegmentBuffer.STRIDE;
+      final double x1 = this.coordinates[a];
+      final double y1 = this.coordinates[a + 1];
+      final double x2 = this.coordinates[a + 2];
+      final double y2 = this.coordinates[a + 3];
+      final double x3 = this.coordinates[b];
+      final double y3 = this.coordinates[b + 1];
+      final double x4 = this.coordinates[b + 2];
+      final double y4 = this.coordinates[b + 3];
+
+      // the orientation signs are exact, so only the location of the intersection is subject to rounding
+      final int o1 = GeometricPredicates.orientation(x1, y1, x2, y2, x3, y3);
+      final int o2 = GeometricPredicates.orientation(x1, y1, x2, y2, x4, y4);
+
+      if (o1 == o2) {
+         // both endpoints on the same side, or all four points collinear
+         return false;
+      }
+
+      final int o3 = GeometricPredicates.orientation(x3, y3, x4, y4, x1, y1);
+      final int o4 = GeometricPredicates.orientation(x3, y3, x4, y4, x2, y2);
+
+      if (o3 == o4) {
+         return false;
+      }
+
+      final double dx1 = x2 - x1;
+      final double dy1 = y2 - y1;
+      final double dx2 = x4 - x3;
+      final double dy2 = y4 - y3;
+      final double denominator = dx1 * dy2 - dy1 * dx2;
+      double t;
+
+      if (o3 == 0) {
+         t = 0;
+      } else if (o4 == 0) {
+         t = 1;
+      } else if (denominator == 0) {
+         // nearly parallel segments whose cross product underflowed
+         t = 0.5;
+      } else {
+         t = Math.max(0, Math.min(1, ((x3 - x1) * dy2 - (y3 - y1) * dx2) / denominator));
+      }
+
+      result[0] = x1 + t * dx1;
+      result[1] = y1 + t * dy1;
+
+      return true;
+   }
+
+   /**
+    * Appends a LineSegment for each segment in this buffer to the given output list.
+    *
+    * @param output
+    */
+   public void toSegments(final List<LineSegment> output) {
+      for (int i = 0; i < this.size; i++) {
+         output.add(this.getSegment(i));
+      }
+   }
+
+   /**
+    * Creates a new LineSegment for the segment at the given index.
+    *
+    * @param index
+    * @return
+    */
+   public LineSegment getSegment(final int index) {
+      final int offset = index * SegmentBuffer.STRIDE;
+      return new LineSegment(new Tuple2d(this.coordinates[offset], this.coordinates[offset + 1]), new Tuple2d(this.coordinates[offset + 2], this.coordinates[offset + 3]));
+   }
+
+   /**
+    * Creates a new SegmentBuffer containing the endpoints of the given segments.
+    *
+    * @param segments
+    * @return
+    */
+   public static SegmentBuffer fromSegments(final List<LineSegment> segments) {
+      final SegmentBuffer buffer = new SegmentBuffer(segments.size());
+
+      for (final LineSegment segment : segments) {
+         buffer.add(segment.min.x, segment.min.y, segment.max.x, segment.max.y);
+      }
+
+      return buffer;
+   }
+
+   @Override
+   public String toString() {
+      return "SegmentBuffer[" + this.size + "]";
+   }
+}
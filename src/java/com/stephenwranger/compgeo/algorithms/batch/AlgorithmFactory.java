@@ -0,0 +1,14 @@
+package com.stephenwranger.compgeo.algorithms.batch;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+
+/**
+ * Creates new Algorithm instances. Engines keep per-run state in their fields, so the {@link BatchRunner} asks for one
+ * instance per worker thread rather than sharing a single instance.
+ *
+ * @param <T>
+ * @param <U>
+ */
+public interface AlgorithmFactory<T, U> {
+   public Algorithm<T, U> create();
+}
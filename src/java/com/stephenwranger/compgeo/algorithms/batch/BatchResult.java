@@ -0,0 +1,166 @@
+package com.stephenwranger.compgeo.algorithms.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.stephenwranger.graphics.utils.TimeUtils;
+
+/**
+ * The outputs, per-job status and aggregate throughput statistics of a {@link BatchRunner} run.
+ *
+ * @param <U>
+ */
+public class BatchResult<U> {
+   public enum JobStatus {
+      /** The algorithm ran to completion. */
+      COMPLETED,
+      /** The job timed out or the batch was cancelled, either before or while it ran. */
+      CANCELLED,
+      /** The algorithm threw, or stopped without being cancelled; see {@link BatchResult#getFailure(int)}. */
+      FAILED;
+   }
+
+   private final List<List<U>> outputs;
+   private final JobStatus[]   statuses;
+   private final Throwable[]   failures;
+   private final long[]        durations;
+   private final long          inputCount;
+   private final long          wallNanos;
+
+   BatchResult(final List<List<U>> outputs, final JobStatus[] statuses, final Throwable[] failures, final long[] durations, final long inputCount, final long wallNanos) {
+      this.outputs = outputs;
+      this.statuses = statuses;
+      this.failures = failures;
+      this.durations = durations;
+      this.inputCount = inputCount;
+      this.wallNanos = wallNanos;
+   }
+
+   /**
+    * Returns the number of jobs in the batch.
+    *
+    * @return
+    */
+   public int getJobCount() {
+      return this.statuses.length;
+   }
+
+   /**
+    * Returns the output of the job at the given index; partial if the job did not complete.
+    *
+    * @param index
+    * @return
+    */
+   public List<U> getOutput(final int index) {
+      return Collections.unmodifiableList(this.outputs.get(index));
+   }
+
+   public JobStatus getStatus(final int index) {
+      return this.statuses[index];
+   }
+
+   /**
+    * Returns the exception thrown by the job at the given index or null if it did not fail.
+    *
+    * @param index
+    * @return
+    */
+   public Throwable getFailure(final int index) {
+      return this.failures[index];
+   }
+
+   /**
+    * Returns the time, in nanoseconds, the job at the given index spent running; 0 if it never started.
+    *
+    * @param index
+    * @return
+    */
+   public long getDuration(final int index) {
+      return this.durations[index];
+   }
+
+   public int getCount(final JobStatus status) {
+      int count = 0;
+
+      for (final JobStatus s : this.statuses) {
+         if (s == status) {
+            count++;
+         }
+      }
+
+      return count;
+   }
+
+   /**
+    * Returns the total number of input items across all jobs.
+    *
+    * @return
+    */
+   public long getInputCount() {
+      return this.inputCount;
+   }
+
+   /**
+    * Returns the total number of output items across all jobs.
+    *
+    * @return
+    */
+   public long getOutputCount() {
+      long count = 0;
+
+      for (final List<U> output : this.outputs) {
+         count += output.size();
+      }
+
+      return count;
+   }
+
+   /**
+    * Returns the elapsed time, in nanoseconds, from submitting the first job to the last job finishing.
+    *
+    * @return
+    */
+   public long getWallNanos() {
+      return this.wallNanos;
+   }
+
+   /**
+    * Returns the sum of all job durations in nanoseconds.
+    *
+    * @return
+    */
+   public long getBusyNanos() {
+      long total = 0;
+
+      for (final long duration : this.durations) {
+         total += duration;
+      }
+
+      return total;
+   }
+
+   public double getJobsPerSecond() {
+      return (this.wallNanos == 0) ? 0 : this.statuses.length / (this.wallNanos / 1e9);
+   }
+
+   public double getInputsPerSecond() {
+      return (this.wallNanos == 0) ? 0 : this.inputCount / (this.wallNanos / 1e9);
+   }
+
+   /**
+    * Returns the average number of jobs running at once, i.e. the busy time divided by the wall time.
+    *
+    * @return
+    */
+   public double getConcurrency() {
+      return (this.wallNanos == 0) ? 0 : this.getBusyNanos() / (double) this.wallNanos;
+   }
+
+   @Override
+   public String toString() {
+      return "Jobs: " + this.statuses.length + " (completed " + this.getCount(JobStatus.COMPLETED) + ", cancelled " + this.getCount(JobStatus.CANCELLED) + ", failed "
+            + this.getCount(JobStatus.FAILED) + "), inputs: " + this.inputCount + ", outputs: " + this.getOutputCount() + ", wall: "
+            + TimeUtils.formatNanoseconds(this.wallNanos) + ", jobs/s: " + String.format("%.1f", this.getJobsPerSecond()) + ", inputs/s: "
+            + String.format("%.1f", this.getInputsPerSecond()) + ", concurrency: " + String.format("%.2f", this.getConcurrency());
+   }
+}
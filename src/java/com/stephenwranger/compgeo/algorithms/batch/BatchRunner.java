@@ -0,0 +1,134 @@
+package com.stephenwranger.compgeo.algorithms.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.batch.BatchResult.JobStatus;
+
+/**
+ * Runs many independent Algorithm jobs across a work-stealing pool. Each worker thread gets its own Algorithm instance
+ * from the factory and reuses it for every job it picks up, since engines keep per-run state in their fields.
+ *
+ * @param <T>
+ * @param <U>
+ */
+public class BatchRunner<T, U> {
+   private final ForkJoinPool                 pool;
+   private final ThreadLocal<Algorithm<T, U>> algorithms;
+
+   /**
+    * Creates a new BatchRunner using one worker per available processor.
+    *
+    * @param factory
+    */
+   public BatchRunner(final AlgorithmFactory<T, U> factory) {
+      this(factory, Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * Creates a new BatchRunner with the given number of worker threads.
+    *
+    * @param factory
+    * @param parallelism
+    */
+   public BatchRunner(final AlgorithmFactory<T, U> factory, final int parallelism) {
+      this.pool = new ForkJoinPool(parallelism);
+      this.algorithms = new ThreadLocal<Algorithm<T, U>>() {
+         @Override
+         protected Algorithm<T, U> initialValue() {
+            return factory.create();
+         }
+      };
+   }
+
+   /**
+    * Runs one job per input, giving each job at most the given number of milliseconds, and blocks until every job has
+    * finished or been cancelled.
+    *
+    * @param inputs
+    * @param jobTimeout
+    * @return
+    */
+   public BatchResult<U> run(final List<List<T>> inputs, final long jobTimeout) {
+      return this.run(inputs, jobTimeout, new CancellationToken());
+   }
+
+   /**
+    * Runs one job per input, giving each job at most the given number of milliseconds, and blocks until every job has
+    * finished or been cancelled. Cancelling the given batch token stops running jobs and skips those not yet started.
+    *
+    * @param inputs
+    * @param jobTimeout
+    * @param batchToken
+    * @return
+    */
+   public BatchResult<U> run(final List<List<T>> inputs, final long jobTimeout, final CancellationToken batchToken) {
+      final int count = inputs.size();
+      final List<List<U>> outputs = new ArrayList<List<U>>(count);
+      final JobStatus[] statuses = new JobStatus[count];
+      final Throwable[] failures = new Throwable[count];
+      final long[] durations = new long[count];
+      final List<Callable<Void>> jobs = new ArrayList<Callable<Void>>(count);
+      long inputCount = 0;
+
+      for (int i = 0; i < count; i++) {
+         final int index = i;
+         final List<U> output = new ArrayList<U>();
+         outputs.add(output);
+         inputCount += inputs.get(i).size();
+
+         jobs.add(new Callable<Void>() {
+            @Override
+            public Void call() {
+               if (batchToken.isCancelled()) {
+                  statuses[index] = JobStatus.CANCELLED;
+                  return null;
+               }
+
+               final CancellationToken token = CancellationToken.withTimeout(batchToken, jobTimeout);
+               final long startTime = System.nanoTime();
+
+               try {
+                  final boolean completed = BatchRunner.this.algorithms.get().compute(inputs.get(index), output, token);
+
+                  if (completed) {
+                     statuses[index] = JobStatus.COMPLETED;
+                  } else if (token.isCancelled()) {
+                     statuses[index] = JobStatus.CANCELLED;
+                  } else {
+                     statuses[index] = JobStatus.FAILED;
+                     failures[index] = new IllegalStateException("The algorithm stopped without being cancelled.");
+                  }
+               } catch (final Throwable e) {
+                  statuses[index] = JobStatus.FAILED;
+                  failures[index] = e;
+                  // the instance may have been left in a bad state
+                  BatchRunner.this.algorithms.remove();
+               } finally {
+                  durations[index] = System.nanoTime() - startTime;
+                  token.release();
+               }
+
+               return null;
+            }
+         });
+      }
+
+      final long startTime = System.nanoTime();
+      this.pool.invokeAll(jobs);
+      final long wallNanos = System.nanoTime() - startTime;
+
+      return new BatchResult<U>(outputs, statuses, failures, durations, inputCount, wallNanos);
+   }
+
+   /**
+    * Stops the worker threads once any running batch has finished.
+    */
+   public void shutdown() {
+      this.pool.shutdown();
+   }
+}
@@ -0,0 +1,279 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
+
+/**
+ * The Akl-Toussaint heuristic: finds the input points extreme in the eight compass directions and discards every point
+ * strictly inside the octagon they form, none of which can be a hull vertex. Uniform inputs typically lose well over
+ * 90% of their points before any hull engine runs.
+ * <p>
+ * Both passes, finding the extremes and testing the points against the octagon, run over fixed size chunks on the
+ * common fork/join pool and allocate nothing per point. Each chunk polls the cancellation token before it runs.
+ * <p>
+ * The fraction of the input discarded is <code>discardedPoints / inputPoints</code> of the filter's instrumentation
+ * counters.
+ */
+public class AklToussaintFilter {
+   private static final Counter    INPUT_POINTS     = Instrumentation.counter(AklToussaintFilter.class, "inputPoints");
+   private static final Counter    DISCARDED_POINTS = Instrumentation.counter(AklToussaintFilter.class, "discardedPoints");
+   private static final PhaseTimer FILTER           = Instrumentation.timer(AklToussaintFilter.class, "filter");
+
+   private static final int        CHUNK_SIZE       = 1 << 14;
+
+   /** The compass directions, counter-clockwise starting at west, as x and y pairs. */
+   private static final int[]      DIRECTIONS       = { -1, 0, -1, -1, 0, -1, 1, -1, 1, 0, 1, 1, 0, 1, -1, 1 };
+
+   private AklToussaintFilter() {
+      // statics only
+   }
+
+   /**
+    * Writes the indices of the points that survive the filter, in ascending order, to the start of the given array and
+    * returns how many there are, or -1 if the token was cancelled. The array must hold at least <code>size</code>
+    * entries.
+    *
+    * @param xs
+    * @param ys
+    * @param size
+    * @param survivors
+    * @param token
+    * @return
+    */
+   public static int filter(final double[] xs, final double[] ys, final int size, final int[] survivors, final CancellationToken token) {
+      if (size == 0) {
+         return 0;
+      }
+
+      final long filterStart = (Instrumentation.ENABLED) ? AklToussaintFilter.FILTER.start() : 0;
+      final List<Chunk> chunks = new ArrayList<Chunk>();
+
+      for (int from = 0; from < size; from += AklToussaintFilter.CHUNK_SIZE) {
+         chunks.add(new Chunk(xs, ys, from, Math.min(size, from + AklToussaintFilter.CHUNK_SIZE), survivors, token));
+      }
+
+      ForkJoinTask.invokeAll(chunks);
+
+      if (token.isCancelled()) {
+         return -1;
+      }
+
+      final int[] extremes = new int[AklToussaintFilter.DIRECTIONS.length / 2];
+
+      for (int i = 0; i < chunks.size(); i++) {
+         for (int j = 0; j < extremes.length; j++) {
+            if (i == 0 || AklToussaintFilter.isFurther(xs, ys, j, chunks.get(i).extremes[j], extremes[j])) {
+               extremes[j] = chunks.get(i).extremes[j];
+            }
+         }
+      }
+
+      final double[] octagon = AklToussaintFilter.getOctagon(xs, ys, extremes);
+      int count = 0;
+
+      if (octagon == null) {
+         // too few distinct extremes to enclose anything
+         for (int i = 0; i < size; i++) {
+            survivors[i] = i;
+         }
+
+         count = size;
+      } else {
+         for (final Chunk chunk : chunks) {
+            chunk.octagon = octagon;
+            chunk.reinitialize();
+         }
+
+         ForkJoinTask.invokeAll(chunks);
+
+         if (token.isCancelled()) {
+            return -1;
+         }
+
+         // each chunk wrote its survivors to the start of its own range
+         for (final Chunk chunk : chunks) {
+            System.arraycopy(survivors, chunk.from, survivors, count, chunk.survivorCount);
+            count += chunk.survivorCount;
+         }
+      }
+
+      if (Instrumentation.ENABLED) {
+         AklToussaintFilter.FILTER.stop(filterStart);
+         AklToussaintFilter.INPUT_POINTS.add(size);
+         AklToussaintFilter.DISCARDED_POINTS.add(size - count);
+      }
+
+      return count;
+   }
+
+   /**
+    * Appends the points of the given buffer that survive the filter to the output buffer and returns how many there
+    * are, or -1 if the token was cancelled.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   public static int filter(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final int[] survivors = new int[input.size()];
+      final int count = AklToussaintFilter.filter(input.getXs(), input.getYs(), input.size(), survivors, token);
+
+      if (count < 0) {
+         return -1;
+      }
+
+      output.ensureCapacity(output.size() + count);
+
+      for (int i = 0; i < count; i++) {
+         output.add(input, survivors[i]);
+      }
+
+      return count;
+   }
+
+   private static boolean isFurther(final double[] xs, final double[] ys, final int direction, final int i, final int j) {
+      final int dx = AklToussaintFilter.DIRECTIONS[direction * 2];
+      final int dy = AklToussaintFilter.DIRECTIONS[direction * 2 + 1];
+
+      return dx * xs[i] + dy * ys[i] > dx * xs[j] + dy * ys[j];
+   }
+
+   /**
+    * Returns the distinct extremes as a counter-clockwise polygon of x, y pairs, or null if they do not enclose any
+    * area or, through rounding of the diagonal keys, do not form a convex polygon.
+    */
+   private static double[] getOctagon(final double[] xs, final double[] ys, final int[] extremes) {
+      final double[] polygon = new double[extremes.length * 2];
+      int count = 0;
+      double x, y;
+
+      for (final int extreme : extremes) {
+         x = xs[extreme];
+         y = ys[extreme];
+
+         if (count == 0 || x != polygon[count * 2 - 2] || y != polygon[count * 2 - 1]) {
+            polygon[count * 2] = x;
+            polygon[count * 2 + 1] = y;
+            count++;
+         }
+      }
+
+      while (count > 1 && polygon[0] == polygon[count * 2 - 2] && polygon[1] == polygon[count * 2 - 1]) {
+         count--;
+      }
+
+      if (count < 3) {
+         return null;
+      }
+
+      boolean hasArea = false;
+      int orientation;
+
+      for (int i = 0; i < count; i++) {
+         final int j = (i + 1) % count;
+         final int k = (i + 2) % count;
+         orientation = GeometricPredicates.orientation(polygon[i * 2], polygon[i * 2 + 1], polygon[j * 2], polygon[j * 2 + 1], polygon[k * 2], polygon[k * 2 + 1]);
+
+         if (orientation < 0) {
+            return null;
+         }
+
+         hasArea |= (orientation > 0);
+      }
+
+      if (!hasArea) {
+         return null;
+      }
+
+      final double[] octagon = new double[count * 2];
+      System.arraycopy(polygon, 0, octagon, 0, count * 2);
+
+      return octagon;
+   }
+
+   /**
+    * Finds the extremes of one chunk of the input on its first run and, once given the octagon, writes the indices of
+    * the chunk's surviving points to the start of its range of the survivors array on its second. Either run does
+    * nothing once the token has been cancelled.
+    */
+   private static class Chunk extends RecursiveAction {
+      private static final long       serialVersionUID = -6793521049785262118L;
+
+      private final double[]          xs;
+      private final double[]          ys;
+      private final int               from;
+      private final int               to;
+      private final int[]             survivors;
+      private final CancellationToken token;
+      private final int[]             extremes         = new int[AklToussaintFilter.DIRECTIONS.length / 2];
+      private double[]                octagon          = null;
+      private int                     survivorCount    = 0;
+
+      public Chunk(final double[] xs, final double[] ys, final int from, final int to, final int[] survivors, final CancellationToken token) {
+         this.xs = xs;
+         this.ys = ys;
+         this.from = from;
+         this.to = to;
+         this.survivors = survivors;
+         this.token = token;
+      }
+
+      @Override
+      protected void compute() {
+         if (this.token.isCancelled()) {
+            return;
+         } else if (this.octagon == null) {
+            this.findExtremes();
+         } else {
+            this.filter();
+         }
+      }
+
+      private void findExtremes() {
+         for (int j = 0; j < this.extremes.length; j++) {
+            this.extremes[j] = this.from;
+         }
+
+         for (int i = this.from + 1; i < this.to; i++) {
+            for (int j = 0; j < this.extremes.length; j++) {
+               if (AklToussaintFilter.isFurther(this.xs, this.ys, j, i, this.extremes[j])) {
+                  this.extremes[j] = i;
+               }
+            }
+         }
+      }
+
+      private void filter() {
+         final int edgeCount = this.octagon.length / 2;
+         int count = 0;
+         boolean isInside;
+         int j;
+
+         for (int i = this.from; i < this.to; i++) {
+            isInside = true;
+
+            for (int edge = 0; edge < edgeCount && isInside; edge++) {
+               j = (edge + 1) % edgeCount;
+               isInside = GeometricPredicates.orientation(this.octagon[edge * 2], this.octagon[edge * 2 + 1], this.octagon[j * 2], this.octagon[j * 2 + 1], this.xs[i], this.ys[i]) > 0;
+            }
+
+            if (!isInside) {
+               this.survivors[this.from + count] = i;
+               count++;
+            }
+         }
+
+         this.survivorCount = count;
+      }
+   }
+}
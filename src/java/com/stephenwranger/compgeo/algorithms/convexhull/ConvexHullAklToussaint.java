@@ -0,0 +1,80 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * Runs the {@link AklToussaintFilter} in front of another hull engine, which then only sees the points that can still
+ * be hull vertices. The output is the wrapped engine's output for the surviving points. How much of the input the
+ * filter discarded is reported through its instrumentation counters.
+ */
+public class ConvexHullAklToussaint implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private final Algorithm<Tuple2d, Tuple2d> engine;
+
+   public ConvexHullAklToussaint(final Algorithm<Tuple2d, Tuple2d> engine) {
+      this.engine = engine;
+   }
+
+   @Override
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      final PointBuffer buffer = PointBuffer.fromTuples(input);
+      final int[] survivors = new int[input.size()];
+      final int count = AklToussaintFilter.filter(buffer.getXs(), buffer.getYs(), buffer.size(), survivors, token);
+
+      if (count < 0) {
+         return false;
+      }
+
+      final List<Tuple2d> filtered = new ArrayList<Tuple2d>(count);
+
+      for (int i = 0; i < count; i++) {
+         filtered.add(input.get(survivors[i]));
+      }
+
+      return this.engine.compute(filtered, output, token);
+   }
+
+   /**
+    * Computes the convex hull of the given primitive point buffer, filtering it without creating a Tuple2d per point.
+    * Only the surviving points are handed to the wrapped engine and its hull vertices are appended to the output buffer
+    * in the order the engine returns them. An engine that is a {@link PointBufferAlgorithm} gets the surviving points as
+    * a buffer; any other engine gets a Tuple2d per surviving point.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final PointBuffer filtered = new PointBuffer();
+
+      if (AklToussaintFilter.filter(input, filtered, token) < 0) {
+         return false;
+      } else if (this.engine instanceof PointBufferAlgorithm) {
+         return ((PointBufferAlgorithm) this.engine).compute(filtered, output, token);
+      }
+
+      final List<Tuple2d> survivors = new ArrayList<Tuple2d>(filtered.size());
+      final List<Tuple2d> hull = new ArrayList<Tuple2d>();
+      filtered.toTuples(survivors);
+
+      if (!this.engine.compute(survivors, hull, token)) {
+         return false;
+      }
+
+      output.ensureCapacity(output.size() + hull.size());
+
+      for (final Tuple2d point : hull) {
+         output.add(point.x, point.y);
+      }
+
+      return true;
+   }
+}
@@ -0,0 +1,101 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.List;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * An approximate convex hull in O(kn) time and O(k) extra memory, through an {@link EpsilonKernel} over k directions,
+ * so it can be compared against the exact engines. The result's vertices are input points, each an extreme point in
+ * one of the directions to within rounding, and every input point lies within D sin(pi/k) of it for an input of
+ * diameter D. Hull vertices are returned counter-clockwise starting at the left-most point; collinear points on hull
+ * edges are dropped.
+ */
+public class ConvexHullApproximate implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private static final Counter HULL_VERTICES  = Instrumentation.counter(ConvexHullApproximate.class, "hullVertices");
+
+   /** The number of points added to the kernel between cancellation checks. */
+   private static final int     CHECK_INTERVAL = 1 << 14;
+
+   private final int            directionCount;
+
+   /**
+    * Creates an engine keeping the extreme points in the given number of directions; see
+    * {@link EpsilonKernel#EpsilonKernel(int)}.
+    *
+    * @param directionCount
+    */
+   public ConvexHullApproximate(final int directionCount) {
+      EpsilonKernel.checkDirectionCount(directionCount);
+
+      this.directionCount = directionCount;
+   }
+
+   public int getDirectionCount() {
+      return this.directionCount;
+   }
+
+   @Override
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      final EpsilonKernel kernel = new EpsilonKernel(this.directionCount);
+      int i = 0;
+
+      for (final Tuple2d point : input) {
+         if (i++ % ConvexHullApproximate.CHECK_INTERVAL == 0 && token.isCancelled()) {
+            return false;
+         }
+
+         kernel.add(point);
+      }
+
+      final long[] hull = kernel.getHullPositions();
+
+      for (final long position : hull) {
+         output.add(input.get((int) position));
+      }
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullApproximate.HULL_VERTICES.add(hull.length);
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes the approximate hull of the given primitive point buffer without creating a Tuple2d per point. Hull
+    * vertices are appended to the output buffer counter-clockwise starting at the left-most point.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final EpsilonKernel kernel = new EpsilonKernel(this.directionCount);
+      final int size = input.size();
+
+      for (int i = 0; i < size; i++) {
+         if (i % ConvexHullApproximate.CHECK_INTERVAL == 0 && token.isCancelled()) {
+            return false;
+         }
+
+         kernel.add(input.getX(i), input.getY(i));
+      }
+
+      final int start = output.size();
+      kernel.getHull(output);
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullApproximate.HULL_VERTICES.add(output.size() - start);
+      }
+
+      return true;
+   }
+}
@@ -1,95 +1,187 @@
 package com.stephenwranger.compgeo.algorithms.convexhull;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 import com.stephenwranger.compgeo.algorithms.Algorithm;
-import com.stephenwranger.compgeo.algorithms.AlgorithmUtils;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
 import com.stephenwranger.graphics.math.Tuple2d;
 
-public class ConvexHullBruteForce implements Algorithm<Tuple2d, Tuple2d> {
+public class ConvexHullBruteForce implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private static final Counter ORIENTATION_TESTS = Instrumentation.counter(ConvexHullBruteForce.class, "orientationTests");
+   private static final Counter EXTREME_EDGES     = Instrumentation.counter(ConvexHullBruteForce.class, "extremeEdges");
 
    public ConvexHullBruteForce() {
       // nothing
    }
 
    @Override
-   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final long timeout) {
-      final Set<Tuple2d> outputSet = new HashSet<Tuple2d>();
-      Tuple2d vi, vj, vk;
-      double cA, cB, cC, temp;
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      return this.compute(input, ResultSink.toList(output), token);
+   }
+
+   /**
+    * Computes the hull and streams its vertices to the given sink, counter-clockwise starting at the left-most point,
+    * once every extreme edge has been found; only the hull vertices are buffered.
+    *
+    * @param input
+    * @param sink
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final List<Tuple2d> input, final ResultSink<Tuple2d> sink, final CancellationToken token) {
+      final PointBuffer buffer = PointBuffer.fromTuples(input);
+      final int[] hull = ConvexHullBruteForce.scan(buffer.getXs(), buffer.getYs(), buffer.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      for (final int index : hull) {
+         if (!sink.accept(input.get(index))) {
+            break;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes the convex hull of the given primitive point buffer without creating a Tuple2d per point. Hull vertices
+    * are appended to the output buffer counter-clockwise starting at the left-most point.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final int[] hull = ConvexHullBruteForce.scan(input.getXs(), input.getYs(), input.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      output.ensureCapacity(output.size() + hull.length);
+
+      for (final int index : hull) {
+         output.add(input, index);
+      }
+
+      return true;
+   }
+
+   /**
+    * Returns the indices of the hull vertices, counter-clockwise starting at the left-most point, or null if the token
+    * was cancelled first. Each extreme edge found is recorded in counter-clockwise direction, so the hull is walked
+    * along them without an angular sort; collinear points on hull edges are kept.
+    */
+   private static int[] scan(final double[] xs, final double[] ys, final int size, final CancellationToken token) {
+      final boolean[] duplicate = new boolean[size];
+      final int[] next = new int[size];
       boolean isValid;
-      int currentSign;
-      double minX = Double.MAX_VALUE;
-      double maxX = -Double.MAX_VALUE;
-      double minY = Double.MAX_VALUE;
-      double maxY = -Double.MAX_VALUE;
-
-      final long startTime = System.nanoTime();
-
-      for (int i = 0; i < input.size(); i++) {
-         for (int j = 0; j < input.size(); j++) {
-            if ((System.nanoTime() - startTime) / 1000000l > timeout) {
-               return false;
-            }
-            vi = input.get(i);
-            vj = input.get(j);
+      int currentSign, side;
 
-            if (vi != vj && !vi.equals(vj)) {
-               cA = vj.y - vi.y;
-               cB = vi.x - vj.x;
-               cC = vi.x * vj.y - vi.y * vj.x;
+      Arrays.fill(next, -1);
+
+      // only the first copy of any repeated point takes part in the hull
+      for (int i = 0; i < size; i++) {
+         for (int j = 0; j < i && !duplicate[i]; j++) {
+            duplicate[i] = !duplicate[j] && xs[i] == xs[j] && ys[i] == ys[j];
+         }
+      }
 
+      for (int i = 0; i < size; i++) {
+         if (duplicate[i]) {
+            continue;
+         }
+
+         for (int j = 0; j < size; j++) {
+            if (token.isCancelled()) {
+               return null;
+            }
+
+            if (i != j && !duplicate[j]) {
                isValid = true;
                currentSign = 0;
 
-               /*
-                * check if all other points lie on the same side of the line (xi,yi) and (xj,yj) i.e solving axk+byk-c=0 => xk(yi-yj)+(xi-xj)yk-xiyi+yixj=0
-                * gives you either 0 or a positive number or a negative number add (xi,yi) to (xj,yj) to the list/vector of extreme points
-                */
-               for (int k = 0; k < input.size(); k++) {
-                  vk = input.get(k);
-
-                  if ((vk != vi) && !vk.equals(vi) && (vk != vj) && !vk.equals(vj)) {
-                     temp = cA * vk.x + cB * vk.y - cC;
-
-                     if (currentSign != 0) {
-                        if (temp > 0 && currentSign < 0) {
-                           isValid = false;
-                           break;
-                        } else if (temp < 0 && currentSign > 0) {
-                           isValid = false;
-                           break;
-                        }
-                     } else {
-                        if (temp > 0) {
-                           currentSign = 1;
-                        } else if (temp < 0) {
-                           currentSign = -1;
-                        }
+               for (int k = 0; k < size; k++) {
+                  if ((xs[k] != xs[i] || ys[k] != ys[i]) && (xs[k] != xs[j] || ys[k] != ys[j])) {
+                     side = GeometricPredicates.orientation(xs[i], ys[i], xs[j], ys[j], xs[k], ys[k]);
+
+                     if (Instrumentation.ENABLED) {
+                        ConvexHullBruteForce.ORIENTATION_TESTS.increment();
+                     }
+
+                     if ((side > 0 && currentSign < 0) || (side < 0 && currentSign > 0)) {
+                        isValid = false;
+                        break;
+                     } else if (currentSign == 0) {
+                        currentSign = side;
                      }
                   }
                }
 
-               if (isValid) {
-                  minX = Math.min(minX, vi.x);
-                  maxX = Math.max(maxX, vi.x);
-                  minY = Math.min(minY, vi.y);
-                  maxY = Math.max(maxY, vi.y);
-                  outputSet.add(vi);
-                  outputSet.add(vj);
+               // a non-negative sign puts every other point to the left of i->j; keep the closest such j so collinear
+               // boundary points are walked in order
+               if (isValid && currentSign >= 0) {
+                  if (Instrumentation.ENABLED) {
+                     ConvexHullBruteForce.EXTREME_EDGES.increment();
+                  }
+
+                  if (next[i] == -1 || ConvexHullBruteForce.dist(xs, ys, i, j) < ConvexHullBruteForce.dist(xs, ys, i, next[i])) {
+                     next[i] = j;
+                  }
                }
             }
          }
       }
 
-      output.addAll(outputSet);
-      final double centerX = (maxX - minX) / 2.0 + minX;
-      final double centerY = (maxY - minY) / 2.0 + minY;
-      Collections.sort(output, AlgorithmUtils.getAngleComparator(new Tuple2d(centerX, centerY)));
+      int start = -1;
 
-      return true;
+      for (int i = 0; i < size; i++) {
+         if (next[i] != -1 && (start == -1 || xs[i] < xs[start] || (xs[i] == xs[start] && ys[i] < ys[start]))) {
+            start = i;
+         }
+      }
+
+      final int[] hull = new int[size];
+      int count = 0;
+
+      if (start == -1) {
+         // fewer than two distinct points
+         for (int i = 0; i < size; i++) {
+            if (!duplicate[i]) {
+               hull[count++] = i;
+            }
+         }
+
+         return Arrays.copyOf(hull, count);
+      }
+
+      final boolean[] visited = new boolean[size];
+      int current = start;
+
+      while (current != -1 && !visited[current]) {
+         visited[current] = true;
+         hull[count++] = current;
+         current = next[current];
+      }
+
+      return Arrays.copyOf(hull, count);
+   }
+
+   private static double dist(final double[] xs, final double[] ys, final int i, final int j) {
+      final double dx = xs[j] - xs[i];
+      final double dy = ys[j] - ys[i];
+      return dx * dx + dy * dy;
    }
 }
@@ -0,0 +1,415 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * Chan's output sensitive hull in O(n log h). Each round guesses a hull size m, splits the input into groups of m
+ * points, computes the groups' hulls in parallel with Graham's scan and then wraps the input as the Jarvis march does,
+ * except that each step finds the next vertex of every group hull with an O(log m) tangent search instead of testing
+ * every point. A round gives up once it has wrapped m vertices without closing the hull and the next squares m.
+ * <p>
+ * Hull vertices are returned counter-clockwise starting at the left-most point; collinear points on hull edges are
+ * dropped.
+ */
+public class ConvexHullChans implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private static final Counter    ROUNDS              = Instrumentation.counter(ConvexHullChans.class, "rounds");
+   private static final Counter    TANGENT_SEARCHES    = Instrumentation.counter(ConvexHullChans.class, "tangentSearches");
+   private static final Counter    LINEAR_TANGENTS     = Instrumentation.counter(ConvexHullChans.class, "linearTangents");
+   private static final Counter    HULL_VERTICES       = Instrumentation.counter(ConvexHullChans.class, "hullVertices");
+   private static final PhaseTimer GROUP_HULLS         = Instrumentation.timer(ConvexHullChans.class, "groupHulls");
+   private static final PhaseTimer WRAP                = Instrumentation.timer(ConvexHullChans.class, "wrap");
+
+   /** The first guess at the hull size; each round squares it. */
+   private static final long       MIN_GROUP_SIZE      = 64;
+   /** Group hulls with at most this many vertices are searched linearly. */
+   private static final int        LINEAR_TANGENT_SIZE = 8;
+
+   public ConvexHullChans() {
+      // nothing
+   }
+
+   @Override
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      final PointBuffer buffer = PointBuffer.fromTuples(input);
+      final int[] hull = ConvexHullChans.scan(buffer.getXs(), buffer.getYs(), buffer.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      for (final int index : hull) {
+         output.add(input.get(index));
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes the convex hull of the given primitive point buffer without creating a Tuple2d per point. Hull vertices
+    * are appended to the output buffer counter-clockwise starting at the left-most point.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final int[] hull = ConvexHullChans.scan(input.getXs(), input.getYs(), input.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      output.ensureCapacity(output.size() + hull.length);
+
+      for (final int index : hull) {
+         output.add(input, index);
+      }
+
+      return true;
+   }
+
+   /**
+    * Returns the indices of the hull vertices, counter-clockwise starting at the left-most point, or null if the token
+    * was cancelled first.
+    *
+    * @param xs
+    * @param ys
+    * @param size
+    * @param token
+    * @return
+    */
+   public static int[] scan(final double[] xs, final double[] ys, final int size, final CancellationToken token) {
+      if (size == 0) {
+         return new int[0];
+      }
+
+      int start = 0;
+
+      for (int i = 1; i < size; i++) {
+         if (xs[i] < xs[start] || (xs[i] == xs[start] && ys[i] < ys[start])) {
+            start = i;
+         }
+      }
+
+      int[] hull = null;
+      long guess = ConvexHullChans.MIN_GROUP_SIZE;
+
+      while (hull == null) {
+         if (token.isCancelled()) {
+            return null;
+         }
+
+         if (Instrumentation.ENABLED) {
+            ConvexHullChans.ROUNDS.increment();
+         }
+
+         final int groupSize = (int) Math.min(size, guess);
+         final int[][] groupHulls = ConvexHullChans.getGroupHulls(xs, ys, size, groupSize, token);
+
+         if (groupHulls == null) {
+            return null;
+         } else if (groupHulls.length == 1) {
+            // a single group's hull is the whole hull, already starting at the left-most point
+            hull = groupHulls[0];
+         } else {
+            hull = ConvexHullChans.wrap(xs, ys, groupHulls, start, groupSize, token);
+
+            if (token.isCancelled()) {
+               return null;
+            }
+         }
+
+         guess *= guess;
+      }
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullChans.HULL_VERTICES.add(hull.length);
+      }
+
+      return hull;
+   }
+
+   /**
+    * Returns the counter-clockwise hull of each consecutive group of the given size, as indices into the input, or null
+    * if the token was cancelled first.
+    */
+   private static int[][] getGroupHulls(final double[] xs, final double[] ys, final int size, final int groupSize, final CancellationToken token) {
+      final long groupHullsStart = (Instrumentation.ENABLED) ? ConvexHullChans.GROUP_HULLS.start() : 0;
+      final int groupCount = (size + groupSize - 1) / groupSize;
+      final int[][] groupHulls = new int[groupCount][];
+      final List<GroupHull> tasks = new ArrayList<GroupHull>(groupCount);
+
+      for (int i = 0; i < groupCount; i++) {
+         tasks.add(new GroupHull(xs, ys, i * groupSize, (int) Math.min(size, (long) (i + 1) * groupSize), groupHulls, i, token));
+      }
+
+      ForkJoinTask.invokeAll(tasks);
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullChans.GROUP_HULLS.stop(groupHullsStart);
+      }
+
+      for (final int[] groupHull : groupHulls) {
+         if (groupHull == null) {
+            return null;
+         }
+      }
+
+      return groupHulls;
+   }
+
+   /**
+    * Wraps the group hulls starting at the given point and returns the hull, or null if it has more than the given
+    * number of vertices. Each group's next vertex is the tangent from the current point, except for the current point's
+    * own group, where it is simply the vertex after it.
+    */
+   private static int[] wrap(final double[] xs, final double[] ys, final int[][] groupHulls, final int start, final int groupSize, final CancellationToken token) {
+      final long wrapStart = (Instrumentation.ENABLED) ? ConvexHullChans.WRAP.start() : 0;
+      int[] hull = new int[Math.min(16, groupSize + 1)];
+      int count = 0;
+      int current = start;
+      int currentGroup = start / groupSize;
+      int currentPosition = ConvexHullChans.indexOf(groupHulls[currentGroup], start);
+      double px, py;
+      int next, nextGroup, nextPosition, candidate, tangent;
+      int[] groupHull;
+
+      while (count < groupSize) {
+         if (token.isCancelled()) {
+            return null;
+         }
+
+         if (count == hull.length) {
+            hull = Arrays.copyOf(hull, count * 2);
+         }
+
+         hull[count++] = current;
+         px = xs[current];
+         py = ys[current];
+         next = current;
+         nextGroup = currentGroup;
+         nextPosition = currentPosition;
+
+         for (int group = 0; group < groupHulls.length; group++) {
+            groupHull = groupHulls[group];
+
+            if (group == currentGroup) {
+               tangent = (currentPosition + 1) % groupHull.length;
+            } else {
+               tangent = ConvexHullChans.tangent(xs, ys, groupHull, px, py);
+            }
+
+            if (tangent < 0) {
+               continue;
+            }
+
+            // a neighbour may be further along the same line from the current point
+            for (int offset = -1; offset <= 1; offset++) {
+               candidate = (tangent + offset + groupHull.length) % groupHull.length;
+
+               if (ConvexHullChans.isBetter(xs, ys, px, py, groupHull[candidate], next)) {
+                  next = groupHull[candidate];
+                  nextGroup = group;
+                  nextPosition = candidate;
+               }
+            }
+         }
+
+         if (next == current || (xs[next] == xs[start] && ys[next] == ys[start])) {
+            if (Instrumentation.ENABLED) {
+               ConvexHullChans.WRAP.stop(wrapStart);
+            }
+
+            return Arrays.copyOf(hull, count);
+         }
+
+         current = next;
+         currentGroup = nextGroup;
+         currentPosition = nextPosition;
+      }
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullChans.WRAP.stop(wrapStart);
+      }
+
+      return null;
+   }
+
+   /**
+    * Returns true if the hull should wrap from p to r rather than to q: q lies left of p->r, or on the same line but
+    * closer.
+    */
+   private static boolean isBetter(final double[] xs, final double[] ys, final double px, final double py, final int r, final int q) {
+      if (xs[r] == px && ys[r] == py) {
+         return false;
+      } else if (xs[q] == px && ys[q] == py) {
+         return true;
+      }
+
+      final int orientation = GeometricPredicates.orientation(px, py, xs[r], ys[r], xs[q], ys[q]);
+
+      return orientation > 0 || (orientation == 0 && ConvexHullJarvisMarch.dist(px, py, xs[r], ys[r]) > ConvexHullJarvisMarch.dist(px, py, xs[q], ys[q]));
+   }
+
+   /**
+    * Returns the position of the vertex of the given counter-clockwise hull that every other vertex lies left of, or on
+    * the line through, as seen from p, or -1 if every vertex coincides with p.
+    * <p>
+    * Seen from p, which is outside the hull, the angles of the vertices in hull order rise to one tangent and fall to
+    * the other; the rotation of that sequence relative to vertex 0 is resolved with one orientation test against vertex
+    * 0, leaving a binary search for the first vertex where the angles start rising again.
+    */
+   private static int tangent(final double[] xs, final double[] ys, final int[] hull, final double px, final double py) {
+      final int size = hull.length;
+
+      if (size <= ConvexHullChans.LINEAR_TANGENT_SIZE) {
+         return ConvexHullChans.linearTangent(xs, ys, hull, px, py);
+      }
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullChans.TANGENT_SEARCHES.increment();
+      }
+
+      final boolean isFalling = ConvexHullChans.edge(xs, ys, hull, px, py, 0) < 0;
+      int result;
+
+      if (!isFalling && ConvexHullChans.edge(xs, ys, hull, px, py, size - 1) <= 0) {
+         result = 0;
+      } else {
+         int low = 1;
+         int high = size - 1;
+         int mid;
+         boolean isAfter;
+
+         while (low < high) {
+            mid = (low + high) >>> 1;
+
+            if (isFalling) {
+               // past the tangent once the angles rise or climb back above vertex 0's
+               isAfter = ConvexHullChans.edge(xs, ys, hull, px, py, mid) >= 0 || ConvexHullChans.side(xs, ys, hull, px, py, mid) >= 0;
+            } else {
+               // past the tangent once the angles rise again below vertex 0's
+               isAfter = ConvexHullChans.edge(xs, ys, hull, px, py, mid) >= 0 && ConvexHullChans.side(xs, ys, hull, px, py, mid) < 0;
+            }
+
+            if (isAfter) {
+               high = mid;
+            } else {
+               low = mid + 1;
+            }
+         }
+
+         result = low;
+      }
+
+      // p coincides with a vertex, or the search was misled by a degenerate group hull
+      if ((xs[hull[result]] == px && ys[hull[result]] == py) || ConvexHullChans.edge(xs, ys, hull, px, py, (result + size - 1) % size) > 0
+            || ConvexHullChans.edge(xs, ys, hull, px, py, result) < 0) {
+         return ConvexHullChans.linearTangent(xs, ys, hull, px, py);
+      }
+
+      return result;
+   }
+
+   private static int linearTangent(final double[] xs, final double[] ys, final int[] hull, final double px, final double py) {
+      if (Instrumentation.ENABLED) {
+         ConvexHullChans.LINEAR_TANGENTS.increment();
+      }
+
+      int result = -1;
+
+      for (int i = 0; i < hull.length; i++) {
+         if ((xs[hull[i]] != px || ys[hull[i]] != py) && (result < 0 || ConvexHullChans.isBetter(xs, ys, px, py, hull[i], hull[result]))) {
+            result = i;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Returns the orientation of p, vertex i and the vertex after it; positive when the angle from p rises along the edge.
+    */
+   private static int edge(final double[] xs, final double[] ys, final int[] hull, final double px, final double py, final int i) {
+      final int a = hull[i];
+      final int b = hull[(i + 1) % hull.length];
+
+      return GeometricPredicates.orientation(px, py, xs[a], ys[a], xs[b], ys[b]);
+   }
+
+   /**
+    * Returns the orientation of p, vertex 0 and vertex i; non-negative when vertex i's angle from p is at least vertex 0's.
+    */
+   private static int side(final double[] xs, final double[] ys, final int[] hull, final double px, final double py, final int i) {
+      final int a = hull[0];
+      final int b = hull[i];
+
+      return GeometricPredicates.orientation(px, py, xs[a], ys[a], xs[b], ys[b]);
+   }
+
+   private static int indexOf(final int[] values, final int value) {
+      for (int i = 0; i < values.length; i++) {
+         if (values[i] == value) {
+            return i;
+         }
+      }
+
+      throw new IllegalStateException("Point " + value + " is not a vertex of its group hull.");
+   }
+
+   /**
+    * Computes the hull of one group of the input with Graham's scan.
+    */
+   private static class GroupHull extends RecursiveAction {
+      private static final long       serialVersionUID = -2369532407417436071L;
+
+      private final double[]          xs;
+      private final double[]          ys;
+      private final int               from;
+      private final int               to;
+      private final int[][]           output;
+      private final int               index;
+      private final CancellationToken token;
+
+      public GroupHull(final double[] xs, final double[] ys, final int from, final int to, final int[][] output, final int index, final CancellationToken token) {
+         this.xs = xs;
+         this.ys = ys;
+         this.from = from;
+         this.to = to;
+         this.output = output;
+         this.index = index;
+         this.token = token;
+      }
+
+      @Override
+      protected void compute() {
+         final double[] groupXs = Arrays.copyOfRange(this.xs, this.from, this.to);
+         final double[] groupYs = Arrays.copyOfRange(this.ys, this.from, this.to);
+         final int[] hull = ConvexHullGrahamsScan.scan(groupXs, groupYs, this.to - this.from, this.token);
+
+         if (hull != null) {
+            for (int i = 0; i < hull.length; i++) {
+               hull[i] += this.from;
+            }
+         }
+
+         this.output[this.index] = hull;
+      }
+   }
+}
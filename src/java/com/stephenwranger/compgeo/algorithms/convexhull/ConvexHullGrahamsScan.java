@@ -3,15 +3,262 @@ package com.stephenwranger.compgeo.algorithms.convexhull;
 import java.util.List;
 
 import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.AlgorithmUtils;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
 import com.stephenwranger.graphics.math.Tuple2d;
 
-public class ConvexHullGrahamsScan implements Algorithm<Tuple2d, Tuple2d> {
+/**
+ * Graham's scan in O(n log n). Points are sorted radially around the left-most point by a primitive pseudo-angle key,
+ * nearest first on ties, the few keys rounded out of order are repaired with the exact orientation test, and the
+ * points are then wrapped with a stack, popping every vertex that does not make a strict left turn.
+ * Hull vertices are returned counter-clockwise starting at the left-most point; collinear points on hull edges are
+ * dropped.
+ */
+public class ConvexHullGrahamsScan implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private static final Counter    ORIENTATION_TESTS = Instrumentation.counter(ConvexHullGrahamsScan.class, "orientationTests");
+   private static final Counter    HULL_VERTICES     = Instrumentation.counter(ConvexHullGrahamsScan.class, "hullVertices");
+   private static final PhaseTimer SORT              = Instrumentation.timer(ConvexHullGrahamsScan.class, "sort");
+   private static final PhaseTimer SCAN              = Instrumentation.timer(ConvexHullGrahamsScan.class, "scan");
+
+   /** The number of points scanned between cancellation checks. */
+   private static final int        CHECK_INTERVAL    = 1024;
+   /** Sorted pseudo-angles no further apart than this may have been rounded out of order. */
+   private static final double     ANGLE_TOLERANCE   = 16.0 * Math.ulp(1.0);
+   /** Runs of up to this many points are repaired by insertion rather than merging. */
+   private static final int        INSERTION_SORT    = 16;
+
    public ConvexHullGrahamsScan() {
       // nothing
    }
 
    @Override
-   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final long timeout) {
-      return false;
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      final PointBuffer buffer = PointBuffer.fromTuples(input);
+      final int[] hull = ConvexHullGrahamsScan.scan(buffer.getXs(), buffer.getYs(), buffer.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      for (final int index : hull) {
+         output.add(input.get(index));
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes the convex hull of the given primitive point buffer without creating a Tuple2d per point. Hull vertices
+    * are appended to the output buffer counter-clockwise starting at the left-most point.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final int[] hull = ConvexHullGrahamsScan.scan(input.getXs(), input.getYs(), input.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      output.ensureCapacity(output.size() + hull.length);
+
+      for (final int index : hull) {
+         output.add(input, index);
+      }
+
+      return true;
+   }
+
+   /**
+    * Returns the indices of the hull vertices, counter-clockwise starting at the left-most point, or null if the token
+    * was cancelled first.
+    *
+    * @param xs
+    * @param ys
+    * @param size
+    * @param token
+    * @return
+    */
+   public static int[] scan(final double[] xs, final double[] ys, final int size, final CancellationToken token) {
+      if (size == 0) {
+         return new int[0];
+      }
+
+      int pivot = 0;
+
+      for (int i = 1; i < size; i++) {
+         if (xs[i] < xs[pivot] || (xs[i] == xs[pivot] && ys[i] < ys[pivot])) {
+            pivot = i;
+         }
+      }
+
+      final double px = xs[pivot];
+      final double py = ys[pivot];
+      final double[] angles = new double[size];
+      final double[] distances = new double[size];
+      final int[] order = new int[size];
+      int count = 0;
+      double dx, dy;
+
+      final long sortStart = (Instrumentation.ENABLED) ? ConvexHullGrahamsScan.SORT.start() : 0;
+
+      for (int i = 0; i < size; i++) {
+         dx = xs[i] - px;
+         dy = ys[i] - py;
+
+         // the pivot and any copies of it are not sorted
+         if (dx != 0 || dy != 0) {
+            angles[count] = ConvexHullGrahamsScan.pseudoAngle(dx, dy);
+            distances[count] = dx * dx + dy * dy;
+            order[count] = i;
+            count++;
+         }
+      }
+
+      AlgorithmUtils.sort(angles, distances, order, count);
+      ConvexHullGrahamsScan.repairOrder(xs, ys, pivot, angles, order, count);
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullGrahamsScan.SORT.stop(sortStart);
+      }
+
+      if (token.isCancelled()) {
+         return null;
+      }
+
+      final long scanStart = (Instrumentation.ENABLED) ? ConvexHullGrahamsScan.SCAN.start() : 0;
+      final int[] stack = new int[count + 1];
+      int top = 0;
+      int next;
+
+      stack[0] = pivot;
+
+      for (int i = 0; i < count; i++) {
+         if (i % ConvexHullGrahamsScan.CHECK_INTERVAL == 0 && token.isCancelled()) {
+            return null;
+         }
+
+         next = order[i];
+
+         while (top > 0 && ConvexHullGrahamsScan.orientation(xs, ys, stack[top - 1], stack[top], next) <= 0) {
+            top--;
+         }
+
+         stack[++top] = next;
+      }
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullGrahamsScan.SCAN.stop(scanStart);
+         ConvexHullGrahamsScan.HULL_VERTICES.add(top + 1);
+      }
+
+      final int[] hull = new int[top + 1];
+      System.arraycopy(stack, 0, hull, 0, top + 1);
+
+      return hull;
+   }
+
+   /**
+    * Fixes the order of points whose pseudo-angles were rounded out of order, using the exact orientation test and then
+    * the distance from the pivot. Only a run of sorted keys each within rounding of the one before can be out of order;
+    * each run is merge sorted, so the repair is O(n log n) even when many points are collinear with the pivot.
+    */
+   private static void repairOrder(final double[] xs, final double[] ys, final int pivot, final double[] angles, final int[] order, final int count) {
+      int[] temp = null;
+      int from = 0;
+
+      for (int i = 1; i <= count; i++) {
+         if (i == count || angles[i] - angles[i - 1] > ConvexHullGrahamsScan.ANGLE_TOLERANCE) {
+            if (i - from > 1) {
+               if (temp == null) {
+                  temp = new int[count];
+               }
+
+               ConvexHullGrahamsScan.sort(xs, ys, pivot, order, temp, from, i);
+            }
+
+            from = i;
+         }
+      }
+   }
+
+   /**
+    * Stable merge sort of order[from, to) by {@link #isBefore(double[], double[], int, int, int)}.
+    */
+   private static void sort(final double[] xs, final double[] ys, final int pivot, final int[] order, final int[] temp, final int from, final int to) {
+      if (to - from <= ConvexHullGrahamsScan.INSERTION_SORT) {
+         int value, j;
+
+         for (int i = from + 1; i < to; i++) {
+            value = order[i];
+            j = i - 1;
+
+            while (j >= from && ConvexHullGrahamsScan.isBefore(xs, ys, pivot, value, order[j])) {
+               order[j + 1] = order[j];
+               j--;
+            }
+
+            order[j + 1] = value;
+         }
+
+         return;
+      }
+
+      final int mid = (from + to) >>> 1;
+      ConvexHullGrahamsScan.sort(xs, ys, pivot, order, temp, from, mid);
+      ConvexHullGrahamsScan.sort(xs, ys, pivot, order, temp, mid, to);
+
+      if (!ConvexHullGrahamsScan.isBefore(xs, ys, pivot, order[mid], order[mid - 1])) {
+         // already in order
+         return;
+      }
+
+      System.arraycopy(order, from, temp, from, to - from);
+      int left = from;
+      int right = mid;
+
+      for (int i = from; i < to; i++) {
+         if (right >= to || (left < mid && !ConvexHullGrahamsScan.isBefore(xs, ys, pivot, temp[right], temp[left]))) {
+            order[i] = temp[left++];
+         } else {
+            order[i] = temp[right++];
+         }
+      }
+   }
+
+   private static boolean isBefore(final double[] xs, final double[] ys, final int pivot, final int a, final int b) {
+      final int orientation = ConvexHullGrahamsScan.orientation(xs, ys, pivot, a, b);
+
+      if (orientation != 0) {
+         return orientation > 0;
+      }
+
+      return Math.abs(xs[a] - xs[pivot]) + Math.abs(ys[a] - ys[pivot]) < Math.abs(xs[b] - xs[pivot]) + Math.abs(ys[b] - ys[pivot]);
+   }
+
+   /**
+    * Returns a key that increases monotonically with the angle of (dx, dy) over [-pi/2, pi/2], the only angles possible
+    * around the left-most point, without calling atan2.
+    */
+   private static double pseudoAngle(final double dx, final double dy) {
+      return dy / (Math.abs(dx) + Math.abs(dy));
+   }
+
+   private static int orientation(final double[] xs, final double[] ys, final int a, final int b, final int c) {
+      if (Instrumentation.ENABLED) {
+         ConvexHullGrahamsScan.ORIENTATION_TESTS.increment();
+      }
+
+      return GeometricPredicates.orientation(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c]);
    }
 }
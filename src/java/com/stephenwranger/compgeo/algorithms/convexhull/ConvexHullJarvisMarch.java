@@ -1,26 +1,84 @@
 package com.stephenwranger.compgeo.algorithms.convexhull;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import com.stephenwranger.compgeo.algorithms.Algorithm;
-import com.stephenwranger.compgeo.algorithms.AlgorithmUtils;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
 import com.stephenwranger.graphics.math.Tuple2d;
 
-public class ConvexHullJarvisMarch implements Algorithm<Tuple2d, Tuple2d> {
+public class ConvexHullJarvisMarch implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private static final Counter    ORIENTATION_TESTS = Instrumentation.counter(ConvexHullJarvisMarch.class, "orientationTests");
+   private static final Counter    HULL_VERTICES     = Instrumentation.counter(ConvexHullJarvisMarch.class, "hullVertices");
+   private static final PhaseTimer WRAP              = Instrumentation.timer(ConvexHullJarvisMarch.class, "wrap");
+
+   /** The number of points each parallel wrapping step scans per task. */
+   private static final int        CHUNK_SIZE        = 1 << 13;
+
+   private final boolean           isParallel;
+
    public ConvexHullJarvisMarch() {
-      // nothing
+      this(false);
+   }
+
+   /**
+    * Creates a Jarvis march that, if parallel, finds each next hull vertex with a chunked reduction over the common
+    * fork/join pool instead of a single sequential scan. Both modes return the same hull.
+    *
+    * @param isParallel
+    */
+   public ConvexHullJarvisMarch(final boolean isParallel) {
+      this.isParallel = isParallel;
    }
 
    @Override
-   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final long timeout) {
-      double minX = Double.MAX_VALUE;
-      double maxX = -Double.MAX_VALUE;
-      double minY = Double.MAX_VALUE;
-      double maxY = -Double.MAX_VALUE;
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      return this.compute(input, ResultSink.toList(output), token);
+   }
+
+   /**
+    * Computes the hull and streams its vertices to the given sink, counter-clockwise starting at the left-most point,
+    * once the wrap has finished; only the hull vertices are buffered.
+    *
+    * @param input
+    * @param sink
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final List<Tuple2d> input, final ResultSink<Tuple2d> sink, final CancellationToken token) {
+      if (input.isEmpty()) {
+         return true;
+      }
 
-      final long startTime = System.nanoTime();
+      if (this.isParallel) {
+         // wrap over primitive copies of the coordinates and map the hull back to the input's points
+         final PointBuffer buffer = PointBuffer.fromTuples(input);
+         final int[] hull = ConvexHullJarvisMarch.wrap(buffer.getXs(), buffer.getYs(), buffer.size(), true, token);
+
+         if (hull == null) {
+            return false;
+         }
+
+         final List<Tuple2d> results = new ArrayList<Tuple2d>(hull.length);
+
+         for (final int index : hull) {
+            results.add(input.get(index));
+         }
+
+         ConvexHullJarvisMarch.emit(results, sink);
+         return true;
+      }
 
       Tuple2d lowest = input.get(0);
 
@@ -35,51 +93,121 @@ public class ConvexHullJarvisMarch implements Algorithm<Tuple2d, Tuple2d> {
       final List<Tuple2d> results = new ArrayList<Tuple2d>();
       Tuple2d next = lowest;
       Tuple2d previous = null;
+      final long wrapStart = (Instrumentation.ENABLED) ? ConvexHullJarvisMarch.WRAP.start() : 0;
 
-      try {
-         do {
-            results.add(next);
-            previous = next;
-            if ((System.nanoTime() - startTime) / 1000000l > timeout) {
-               return false;
-            }
+      do {
+         results.add(next);
+         previous = next;
 
-            if (results.size() > input.size()) {
-               throw new Exception("results > input");
-            }
-
-            next = ConvexHullJarvisMarch.nextPoint(input, previous);
-         } while (next != lowest);
-      } catch (final Exception e) {
-         e.printStackTrace();
-         for (final Tuple2d point : results) {
-            System.err.println(point);
+         if (token.isCancelled() || results.size() > input.size()) {
+            // timed out or failed to wrap back around to the starting point
+            return false;
          }
 
-         int ctr = 0;
-         for (final Tuple2d t : input) {
-            System.err.println(ctr + ": " + t);
-            ctr++;
-         }
+         next = ConvexHullJarvisMarch.nextPoint(input, previous);
+      } while (next != lowest);
 
-         return false;
+      if (Instrumentation.ENABLED) {
+         ConvexHullJarvisMarch.WRAP.stop(wrapStart);
+         ConvexHullJarvisMarch.HULL_VERTICES.add(results.size());
       }
 
+      ConvexHullJarvisMarch.emit(results, sink);
+      return true;
+   }
+
+   /**
+    * Streams the hull vertices to the sink in the order they were wrapped, counter-clockwise starting at the left-most
+    * point.
+    */
+   private static void emit(final List<Tuple2d> results, final ResultSink<Tuple2d> sink) {
       for (final Tuple2d point : results) {
-         minX = Math.min(minX, point.x);
-         maxX = Math.max(maxX, point.x);
-         minY = Math.min(minY, point.y);
-         maxY = Math.max(maxY, point.y);
-         output.add(point);
+         if (!sink.accept(point)) {
+            break;
+         }
+      }
+   }
+
+   /**
+    * Computes the convex hull of the given primitive point buffer without creating a Tuple2d per point. Hull vertices
+    * are appended to the output buffer in the order they are wrapped (counter-clockwise starting at the left-most
+    * point).
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      if (input.isEmpty()) {
+         return true;
+      }
+
+      final int[] hull = ConvexHullJarvisMarch.wrap(input.getXs(), input.getYs(), input.size(), this.isParallel, token);
+
+      if (hull == null) {
+         return false;
       }
 
-      final double centerX = (maxX - minX) / 2.0 + minX;
-      final double centerY = (maxY - minY) / 2.0 + minY;
-      Collections.sort(output, AlgorithmUtils.getAngleComparator(new Tuple2d(centerX, centerY)));
+      output.ensureCapacity(output.size() + hull.length);
+
+      for (final int index : hull) {
+         output.add(input, index);
+      }
 
       return true;
    }
 
+   /**
+    * Returns the indices of the hull vertices in the order they are wrapped, counter-clockwise starting at the
+    * left-most point, or null if the token was cancelled or the wrap failed to return to its starting point.
+    */
+   private static int[] wrap(final double[] xs, final double[] ys, final int size, final boolean isParallel, final CancellationToken token) {
+      int lowest = 0;
+
+      for (int i = 1; i < size; i++) {
+         if (xs[i] < xs[lowest] || (xs[i] == xs[lowest] && ys[i] < ys[lowest])) {
+            lowest = i;
+         }
+      }
+
+      final List<NextPoint> chunks = new ArrayList<NextPoint>();
+
+      if (isParallel && size > ConvexHullJarvisMarch.CHUNK_SIZE) {
+         for (int from = 0; from < size; from += ConvexHullJarvisMarch.CHUNK_SIZE) {
+            chunks.add(new NextPoint(xs, ys, from, Math.min(size, from + ConvexHullJarvisMarch.CHUNK_SIZE)));
+         }
+      }
+
+      int[] hull = new int[16];
+      int next = lowest;
+      int count = 0;
+      final long wrapStart = (Instrumentation.ENABLED) ? ConvexHullJarvisMarch.WRAP.start() : 0;
+
+      do {
+         if (count == hull.length) {
+            hull = Arrays.copyOf(hull, count * 2);
+         }
+
+         hull[count++] = next;
+
+         if (token.isCancelled() || count > size) {
+            // timed out or failed to wrap back around to the starting point
+            return null;
+         }
+
+         next = (chunks.isEmpty()) ? ConvexHullJarvisMarch.nextPoint(xs, ys, size, next) : ConvexHullJarvisMarch.nextPoint(xs, ys, chunks, next);
+      } while (next != lowest);
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullJarvisMarch.WRAP.stop(wrapStart);
+         ConvexHullJarvisMarch.HULL_VERTICES.add(count);
+      }
+
+      return Arrays.copyOf(hull, count);
+   }
+
    public static Tuple2d nextPoint(final List<Tuple2d> input, final Tuple2d p) {
       Tuple2d q = p;
       int turn;
@@ -97,6 +225,64 @@ public class ConvexHullJarvisMarch implements Algorithm<Tuple2d, Tuple2d> {
       return q;
    }
 
+   /**
+    * Returns the index of the hull vertex following the vertex at index p using the same turn/distance tie-breaking as
+    * {@link #nextPoint(List, Tuple2d)}.
+    *
+    * @param xs
+    * @param ys
+    * @param size
+    * @param p
+    * @return
+    */
+   public static int nextPoint(final double[] xs, final double[] ys, final int size, final int p) {
+      return ConvexHullJarvisMarch.nextPoint(xs, ys, 0, size, p);
+   }
+
+   /**
+    * Finds the next hull vertex within each chunk in parallel and then reduces the chunks' candidates, in chunk order,
+    * with the same tie-breaking; ties between chunks keep the earlier chunk's candidate, as the sequential scan does.
+    */
+   private static int nextPoint(final double[] xs, final double[] ys, final List<NextPoint> chunks, final int p) {
+      for (final NextPoint chunk : chunks) {
+         chunk.p = p;
+         chunk.reinitialize();
+      }
+
+      ForkJoinTask.invokeAll(chunks);
+
+      int q = p;
+
+      for (final NextPoint chunk : chunks) {
+         if (chunk.q != q && ConvexHullJarvisMarch.isBetter(xs, ys, p, chunk.q, q)) {
+            q = chunk.q;
+         }
+      }
+
+      return q;
+   }
+
+   private static int nextPoint(final double[] xs, final double[] ys, final int from, final int to, final int p) {
+      int q = p;
+
+      for (int r = from; r < to; r++) {
+         if (r != q && ConvexHullJarvisMarch.isBetter(xs, ys, p, r, q)) {
+            q = r;
+         }
+      }
+
+      return q;
+   }
+
+   /**
+    * Returns true if r is a better next hull vertex after p than q: r is clockwise of q or, if p, q and r are collinear,
+    * further from p.
+    */
+   private static boolean isBetter(final double[] xs, final double[] ys, final int p, final int r, final int q) {
+      final int turn = ConvexHullJarvisMarch.turn(xs[p], ys[p], xs[r], ys[r], xs[q], ys[q]);
+      return turn == -1 || (turn == 0 && ConvexHullJarvisMarch.dist(xs[p], ys[p], xs[r], ys[r]) > ConvexHullJarvisMarch.dist(xs[p], ys[p], xs[q], ys[q]));
+   }
+
    public static double dist(final List<Tuple2d> input, final int index1, final int index2) {
       final Tuple2d t1 = input.get(index1);
       final Tuple2d t2 = input.get(index2);
@@ -107,6 +293,12 @@ public class ConvexHullJarvisMarch implements Algorithm<Tuple2d, Tuple2d> {
       return t1.distanceSquared(t2);
    }
 
+   public static double dist(final double x1, final double y1, final double x2, final double y2) {
+      final double dx = x2 - x1;
+      final double dy = y2 - y1;
+      return dx * dx + dy * dy;
+   }
+
    /**
     * Returns -1,0,1 for ccw,no,cw turns.
     *
@@ -116,7 +308,55 @@ public class ConvexHullJarvisMarch implements Algorithm<Tuple2d, Tuple2d> {
     * @return
     */
    public static int turn(final Tuple2d p, final Tuple2d q, final Tuple2d r) {
-      final double val = ((q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y)) + 0;
-      return (val == 0) ? 0 : (val < 0) ? -1 : 1;
+      if (Instrumentation.ENABLED) {
+         ConvexHullJarvisMarch.ORIENTATION_TESTS.increment();
+      }
+
+      return -GeometricPredicates.orientation(p, q, r);
+   }
+
+   /**
+    * Returns -1,0,1 for ccw,no,cw turns.
+    *
+    * @param px
+    * @param py
+    * @param qx
+    * @param qy
+    * @param rx
+    * @param ry
+    * @return
+    */
+   public static int turn(final double px, final double py, final double qx, final double qy, final double rx, final double ry) {
+      if (Instrumentation.ENABLED) {
+         ConvexHullJarvisMarch.ORIENTATION_TESTS.increment();
+      }
+
+      return -GeometricPredicates.orientation(px, py, qx, qy, rx, ry);
+   }
+
+   /**
+    * Finds the next hull vertex after p among one chunk of the input; reused, with a new p, for every wrapping step.
+    */
+   private static class NextPoint extends RecursiveAction {
+      private static final long serialVersionUID = -3180648357309418726L;
+
+      private final double[]    xs;
+      private final double[]    ys;
+      private final int         from;
+      private final int         to;
+      private int               p;
+      private int               q;
+
+      public NextPoint(final double[] xs, final double[] ys, final int from, final int to) {
+         this.xs = xs;
+         this.ys = ys;
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      protected void compute() {
+         this.q = ConvexHullJarvisMarch.nextPoint(this.xs, this.ys, this.from, this.to, this.p);
+      }
    }
 }
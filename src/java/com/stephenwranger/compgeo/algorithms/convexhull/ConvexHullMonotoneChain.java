@@ -0,0 +1,198 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.AlgorithmUtils;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * Andrew's monotone chain in O(n log n). Points are sorted by x and then y with a parallel primitive sort, and the
+ * lower and upper chains are then built concurrently, each with a stack that pops every vertex that does not make a
+ * strict left turn. Needs only orientation tests, no angles. Hull vertices are returned counter-clockwise starting at
+ * the left-most point; collinear points on hull edges are dropped.
+ */
+public class ConvexHullMonotoneChain implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private static final Counter    ORIENTATION_TESTS = Instrumentation.counter(ConvexHullMonotoneChain.class, "orientationTests");
+   private static final Counter    HULL_VERTICES     = Instrumentation.counter(ConvexHullMonotoneChain.class, "hullVertices");
+   private static final PhaseTimer SORT              = Instrumentation.timer(ConvexHullMonotoneChain.class, "sort");
+   private static final PhaseTimer CHAINS            = Instrumentation.timer(ConvexHullMonotoneChain.class, "chains");
+
+   /** The number of points added to a chain between cancellation checks. */
+   private static final int        CHECK_INTERVAL    = 1024;
+
+   public ConvexHullMonotoneChain() {
+      // nothing
+   }
+
+   @Override
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      final PointBuffer buffer = PointBuffer.fromTuples(input);
+      final int[] hull = ConvexHullMonotoneChain.scan(buffer.getXs(), buffer.getYs(), buffer.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      for (final int index : hull) {
+         output.add(input.get(index));
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes the convex hull of the given primitive point buffer without creating a Tuple2d per point. Hull vertices
+    * are appended to the output buffer counter-clockwise starting at the left-most point.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final int[] hull = ConvexHullMonotoneChain.scan(input.getXs(), input.getYs(), input.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      output.ensureCapacity(output.size() + hull.length);
+
+      for (final int index : hull) {
+         output.add(input, index);
+      }
+
+      return true;
+   }
+
+   /**
+    * Returns the indices of the hull vertices, counter-clockwise starting at the left-most point, or null if the token
+    * was cancelled first.
+    *
+    * @param xs
+    * @param ys
+    * @param size
+    * @param token
+    * @return
+    */
+   public static int[] scan(final double[] xs, final double[] ys, final int size, final CancellationToken token) {
+      if (size == 0) {
+         return new int[0];
+      }
+
+      final long sortStart = (Instrumentation.ENABLED) ? ConvexHullMonotoneChain.SORT.start() : 0;
+      final double[] sortedXs = new double[size];
+      final double[] sortedYs = new double[size];
+      final int[] order = new int[size];
+
+      System.arraycopy(xs, 0, sortedXs, 0, size);
+      System.arraycopy(ys, 0, sortedYs, 0, size);
+
+      for (int i = 0; i < size; i++) {
+         order[i] = i;
+      }
+
+      AlgorithmUtils.parallelSort(sortedXs, sortedYs, order, size);
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullMonotoneChain.SORT.stop(sortStart);
+      }
+
+      final int first = order[0];
+      final int last = order[size - 1];
+
+      if (xs[first] == xs[last] && ys[first] == ys[last]) {
+         // every point is the same
+         return new int[] { first };
+      }
+
+      final long chainsStart = (Instrumentation.ENABLED) ? ConvexHullMonotoneChain.CHAINS.start() : 0;
+      final Chain lower = new Chain(xs, ys, order, false, token);
+      final Chain upper = new Chain(xs, ys, order, true, token);
+
+      ForkJoinTask.invokeAll(lower, upper);
+
+      if (lower.stack == null || upper.stack == null) {
+         return null;
+      }
+
+      // each chain ends where the other starts
+      final int[] hull = new int[lower.size + upper.size - 2];
+      System.arraycopy(lower.stack, 0, hull, 0, lower.size - 1);
+      System.arraycopy(upper.stack, 0, hull, lower.size - 1, upper.size - 1);
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullMonotoneChain.CHAINS.stop(chainsStart);
+         ConvexHullMonotoneChain.HULL_VERTICES.add(hull.length);
+      }
+
+      return hull;
+   }
+
+   /**
+    * Builds the lower chain, left to right, or the upper chain, right to left, of the sorted points.
+    */
+   private static class Chain extends RecursiveAction {
+      private static final long       serialVersionUID = 2843209645418312718L;
+
+      private final double[]          xs;
+      private final double[]          ys;
+      private final int[]             order;
+      private final boolean           isUpper;
+      private final CancellationToken token;
+      /** The chain's point indices, or null if the token was cancelled. */
+      private int[]                   stack;
+      private int                     size             = 0;
+
+      public Chain(final double[] xs, final double[] ys, final int[] order, final boolean isUpper, final CancellationToken token) {
+         this.xs = xs;
+         this.ys = ys;
+         this.order = order;
+         this.isUpper = isUpper;
+         this.token = token;
+      }
+
+      @Override
+      protected void compute() {
+         final int[] stack = new int[this.order.length];
+         int top = -1;
+         int next;
+
+         for (int i = 0; i < this.order.length; i++) {
+            if (i % ConvexHullMonotoneChain.CHECK_INTERVAL == 0 && this.token.isCancelled()) {
+               return;
+            }
+
+            next = (this.isUpper) ? this.order[this.order.length - 1 - i] : this.order[i];
+
+            while (top > 0 && this.orientation(stack[top - 1], stack[top], next) <= 0) {
+               top--;
+            }
+
+            stack[++top] = next;
+         }
+
+         this.stack = stack;
+         this.size = top + 1;
+      }
+
+      private int orientation(final int a, final int b, final int c) {
+         if (Instrumentation.ENABLED) {
+            ConvexHullMonotoneChain.ORIENTATION_TESTS.increment();
+         }
+
+         return GeometricPredicates.orientation(this.xs[a], this.ys[a], this.xs[b], this.ys[b], this.xs[c], this.ys[c]);
+      }
+   }
+}
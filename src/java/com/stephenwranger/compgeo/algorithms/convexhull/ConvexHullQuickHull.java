@@ -0,0 +1,444 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.PointBufferAlgorithm;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * QuickHull in expected O(n log n). The left-most and right-most points split the input into the points below and
+ * above the line through them; each side then finds the point farthest outside its hull edge, discards the points
+ * inside the triangle that point forms with the edge and recurses on the points outside the two new edges.
+ * <p>
+ * The first split runs over fixed size chunks on the common fork/join pool and each recursion is a
+ * {@link RecursiveTask}, forked once both of its sides are large enough to be worth it. Every level partitions the same
+ * index array in place, so the recursion allocates nothing per level. Hull vertices are returned counter-clockwise
+ * starting at the left-most point; collinear points on hull edges are dropped.
+ */
+public class ConvexHullQuickHull implements Algorithm<Tuple2d, Tuple2d>, PointBufferAlgorithm {
+   private static final Counter    PARTITIONS      = Instrumentation.counter(ConvexHullQuickHull.class, "partitions");
+   private static final Counter    FORKS           = Instrumentation.counter(ConvexHullQuickHull.class, "forks");
+   private static final Counter    HULL_VERTICES   = Instrumentation.counter(ConvexHullQuickHull.class, "hullVertices");
+   private static final PhaseTimer SPLIT           = Instrumentation.timer(ConvexHullQuickHull.class, "split");
+   private static final PhaseTimer RECURSION       = Instrumentation.timer(ConvexHullQuickHull.class, "recursion");
+
+   private static final int        CHUNK_SIZE      = 1 << 14;
+   /** Both sides of a partition must hold at least this many points for one of them to be forked. */
+   private static final int        FORK_THRESHOLD  = 1 << 12;
+
+   public ConvexHullQuickHull() {
+      // nothing
+   }
+
+   @Override
+   public boolean compute(final List<Tuple2d> input, final List<Tuple2d> output, final CancellationToken token) {
+      final PointBuffer buffer = PointBuffer.fromTuples(input);
+      final int[] hull = ConvexHullQuickHull.scan(buffer.getXs(), buffer.getYs(), buffer.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      for (final int index : hull) {
+         output.add(input.get(index));
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes the convex hull of the given primitive point buffer without creating a Tuple2d per point. Hull vertices
+    * are appended to the output buffer counter-clockwise starting at the left-most point.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final PointBuffer input, final PointBuffer output, final CancellationToken token) {
+      final int[] hull = ConvexHullQuickHull.scan(input.getXs(), input.getYs(), input.size(), token);
+
+      if (hull == null) {
+         return false;
+      }
+
+      output.ensureCapacity(output.size() + hull.length);
+
+      for (final int index : hull) {
+         output.add(input, index);
+      }
+
+      return true;
+   }
+
+   /**
+    * Returns the indices of the hull vertices, counter-clockwise starting at the left-most point, or null if the token
+    * was cancelled first.
+    *
+    * @param xs
+    * @param ys
+    * @param size
+    * @param token
+    * @return
+    */
+   public static int[] scan(final double[] xs, final double[] ys, final int size, final CancellationToken token) {
+      if (size == 0) {
+         return new int[0];
+      }
+
+      final long splitStart = (Instrumentation.ENABLED) ? ConvexHullQuickHull.SPLIT.start() : 0;
+      final int[] indices = new int[size];
+      final List<Chunk> chunks = new ArrayList<Chunk>();
+
+      for (int from = 0; from < size; from += ConvexHullQuickHull.CHUNK_SIZE) {
+         chunks.add(new Chunk(xs, ys, from, Math.min(size, from + ConvexHullQuickHull.CHUNK_SIZE), indices));
+      }
+
+      ForkJoinTask.invokeAll(chunks);
+
+      // lowest of the left-most points and highest of the right-most points
+      int left = chunks.get(0).left;
+      int right = chunks.get(0).right;
+
+      for (final Chunk chunk : chunks) {
+         if (ConvexHullQuickHull.compare(xs, ys, chunk.left, left) < 0) {
+            left = chunk.left;
+         }
+
+         if (ConvexHullQuickHull.compare(xs, ys, chunk.right, right) > 0) {
+            right = chunk.right;
+         }
+      }
+
+      if (xs[left] == xs[right] && ys[left] == ys[right]) {
+         // every point is the same
+         return new int[] { left };
+      }
+
+      for (final Chunk chunk : chunks) {
+         chunk.a = left;
+         chunk.b = right;
+         chunk.reinitialize();
+      }
+
+      ForkJoinTask.invokeAll(chunks);
+
+      // each chunk left its points below the line, then those above it, at the start of its own range
+      final int[] work = new int[size];
+      int belowCount = 0;
+      int aboveCount = 0;
+
+      for (final Chunk chunk : chunks) {
+         belowCount += chunk.belowCount;
+      }
+
+      int below = 0;
+      int above = belowCount;
+
+      for (final Chunk chunk : chunks) {
+         System.arraycopy(indices, chunk.from, work, below, chunk.belowCount);
+         System.arraycopy(indices, chunk.from + chunk.belowCount, work, above, chunk.aboveCount);
+         below += chunk.belowCount;
+         above += chunk.aboveCount;
+         aboveCount += chunk.aboveCount;
+      }
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullQuickHull.SPLIT.stop(splitStart);
+      }
+
+      if (token.isCancelled()) {
+         return null;
+      }
+
+      final long recursionStart = (Instrumentation.ENABLED) ? ConvexHullQuickHull.RECURSION.start() : 0;
+      final Side lower = new Side(xs, ys, work, 0, belowCount, left, right, token);
+      final Side upper = new Side(xs, ys, work, belowCount, belowCount + aboveCount, right, left, token);
+
+      ForkJoinTask.invokeAll(lower, upper);
+
+      if (token.isCancelled()) {
+         return null;
+      }
+
+      final int lowerCount = lower.join();
+      final int upperCount = upper.join();
+      final int[] candidates = new int[lowerCount + upperCount + 2];
+
+      candidates[0] = left;
+      System.arraycopy(work, 0, candidates, 1, lowerCount);
+      candidates[lowerCount + 1] = right;
+      System.arraycopy(work, belowCount, candidates, lowerCount + 2, upperCount);
+
+      final int[] hull = ConvexHullQuickHull.removeReflexVertices(xs, ys, candidates);
+
+      if (Instrumentation.ENABLED) {
+         ConvexHullQuickHull.RECURSION.stop(recursionStart);
+         ConvexHullQuickHull.HULL_VERTICES.add(hull.length);
+      }
+
+      return hull;
+   }
+
+   /**
+    * The farthest point is chosen with a rounded distance, so on nearly collinear input it can be a point just inside
+    * or on the hull instead of a vertex. Drops every candidate that does not make a strict left turn, as Graham's scan
+    * would; the first candidate is always a vertex.
+    */
+   private static int[] removeReflexVertices(final double[] xs, final double[] ys, final int[] candidates) {
+      final int[] stack = new int[candidates.length];
+      int top = 0;
+      int next;
+
+      stack[0] = candidates[0];
+
+      for (int i = 1; i < candidates.length; i++) {
+         next = candidates[i];
+
+         while (top > 0 && ConvexHullQuickHull.orientation(xs, ys, stack[top - 1], stack[top], next) <= 0) {
+            top--;
+         }
+
+         stack[++top] = next;
+      }
+
+      // the last vertices must also turn left into the first
+      while (top > 1 && ConvexHullQuickHull.orientation(xs, ys, stack[top - 1], stack[top], stack[0]) <= 0) {
+         top--;
+      }
+
+      if (top + 1 == candidates.length) {
+         return candidates;
+      }
+
+      final int[] hull = new int[top + 1];
+      System.arraycopy(stack, 0, hull, 0, top + 1);
+
+      return hull;
+   }
+
+   private static int orientation(final double[] xs, final double[] ys, final int a, final int b, final int c) {
+      return GeometricPredicates.orientation(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c]);
+   }
+
+   /**
+    * Orders points by x and then y.
+    */
+   private static int compare(final double[] xs, final double[] ys, final int i, final int j) {
+      final int result = Double.compare(xs[i], xs[j]);
+      return (result == 0) ? Double.compare(ys[i], ys[j]) : result;
+   }
+
+   /**
+    * Finds the extremes of one chunk of the input on its first run and, once given the line through the input's
+    * extremes, moves the chunk's points below the line and then those above it to the start of its range of the index
+    * array on its second.
+    */
+   private static class Chunk extends RecursiveAction {
+      private static final long serialVersionUID = 4417560731293470821L;
+
+      private final double[]    xs;
+      private final double[]    ys;
+      private final int         from;
+      private final int         to;
+      private final int[]       indices;
+      private int               left;
+      private int               right;
+      private int               a                = -1;
+      private int               b                = -1;
+      private int               belowCount       = 0;
+      private int               aboveCount       = 0;
+
+      public Chunk(final double[] xs, final double[] ys, final int from, final int to, final int[] indices) {
+         this.xs = xs;
+         this.ys = ys;
+         this.from = from;
+         this.to = to;
+         this.indices = indices;
+      }
+
+      @Override
+      protected void compute() {
+         if (this.a == -1) {
+            this.findExtremes();
+         } else {
+            this.split();
+         }
+      }
+
+      private void findExtremes() {
+         this.left = this.from;
+         this.right = this.from;
+
+         for (int i = this.from + 1; i < this.to; i++) {
+            if (ConvexHullQuickHull.compare(this.xs, this.ys, i, this.left) < 0) {
+               this.left = i;
+            } else if (ConvexHullQuickHull.compare(this.xs, this.ys, i, this.right) > 0) {
+               this.right = i;
+            }
+         }
+      }
+
+      private void split() {
+         final double ax = this.xs[this.a];
+         final double ay = this.ys[this.a];
+         final double bx = this.xs[this.b];
+         final double by = this.ys[this.b];
+         int below = this.from;
+         int above = this.to;
+         int orientation;
+
+         // below fills the range from the front and above from the back; the above points are then moved to follow
+         for (int i = this.from; i < this.to; i++) {
+            orientation = GeometricPredicates.orientation(ax, ay, bx, by, this.xs[i], this.ys[i]);
+
+            if (orientation < 0) {
+               this.indices[below++] = i;
+            } else if (orientation > 0) {
+               this.indices[--above] = i;
+            }
+         }
+
+         System.arraycopy(this.indices, above, this.indices, below, this.to - above);
+         this.belowCount = below - this.from;
+         this.aboveCount = this.to - above;
+      }
+   }
+
+   /**
+    * Finds the hull vertices between a and b, counter-clockwise, given the points of the range, all of which lie
+    * strictly to the right of the edge from a to b. Writes them, in order, to the start of its range and returns how
+    * many there are.
+    */
+   private static class Side extends RecursiveTask<Integer> {
+      private static final long       serialVersionUID = -2183764027845529103L;
+
+      private final double[]          xs;
+      private final double[]          ys;
+      private final int[]             indices;
+      private final int               from;
+      private final int               to;
+      private final int               a;
+      private final int               b;
+      private final CancellationToken token;
+
+      public Side(final double[] xs, final double[] ys, final int[] indices, final int from, final int to, final int a, final int b, final CancellationToken token) {
+         this.xs = xs;
+         this.ys = ys;
+         this.indices = indices;
+         this.from = from;
+         this.to = to;
+         this.a = a;
+         this.b = b;
+         this.token = token;
+      }
+
+      @Override
+      protected Integer compute() {
+         return this.side(this.from, this.to, this.a, this.b);
+      }
+
+      private int side(final int from, final int to, final int a, final int b) {
+         if (from == to || this.token.isCancelled()) {
+            return 0;
+         }
+
+         if (Instrumentation.ENABLED) {
+            ConvexHullQuickHull.PARTITIONS.increment();
+         }
+
+         final int farthest = this.farthest(from, to, a, b);
+
+         // points right of a to farthest to the front, right of farthest to b next, those inside the triangle dropped
+         final int firstEnd = this.partition(from, to, a, farthest);
+         final int secondEnd = this.partition(firstEnd, to, farthest, b);
+         final int firstCount, secondCount;
+
+         if (firstEnd - from >= ConvexHullQuickHull.FORK_THRESHOLD && secondEnd - firstEnd >= ConvexHullQuickHull.FORK_THRESHOLD) {
+            if (Instrumentation.ENABLED) {
+               ConvexHullQuickHull.FORKS.increment();
+            }
+
+            final Side first = new Side(this.xs, this.ys, this.indices, from, firstEnd, a, farthest, this.token);
+            first.fork();
+            secondCount = this.side(firstEnd, secondEnd, farthest, b);
+            firstCount = first.join();
+         } else {
+            firstCount = this.side(from, firstEnd, a, farthest);
+            secondCount = this.side(firstEnd, secondEnd, farthest, b);
+         }
+
+         // the farthest point is no longer in either range, so there is always room for it between the two chains
+         System.arraycopy(this.indices, firstEnd, this.indices, from + firstCount + 1, secondCount);
+         this.indices[from + firstCount] = farthest;
+
+         return firstCount + secondCount + 1;
+      }
+
+      /**
+       * Returns the point of the range farthest to the right of the edge from a to b; of equally far points, the one
+       * furthest along the edge, so the others are not left behind as collinear hull points.
+       */
+      private int farthest(final int from, final int to, final int a, final int b) {
+         final double ax = this.xs[a];
+         final double ay = this.ys[a];
+         final double dx = this.xs[b] - ax;
+         final double dy = this.ys[b] - ay;
+         int farthest = this.indices[from];
+         double maxDistance = Double.NEGATIVE_INFINITY;
+         double maxAlong = Double.NEGATIVE_INFINITY;
+         double distance, along;
+         int index;
+
+         for (int i = from; i < to; i++) {
+            index = this.indices[i];
+            distance = dy * (this.xs[index] - ax) - dx * (this.ys[index] - ay);
+            along = dx * (this.xs[index] - ax) + dy * (this.ys[index] - ay);
+
+            if (distance > maxDistance || (distance == maxDistance && along > maxAlong)) {
+               farthest = index;
+               maxDistance = distance;
+               maxAlong = along;
+            }
+         }
+
+         return farthest;
+      }
+
+      /**
+       * Moves the points of the range strictly to the right of the edge from a to b to its front and returns the end of
+       * them.
+       */
+      private int partition(final int from, final int to, final int a, final int b) {
+         final double ax = this.xs[a];
+         final double ay = this.ys[a];
+         final double bx = this.xs[b];
+         final double by = this.ys[b];
+         int end = from;
+         int index;
+
+         for (int i = from; i < to; i++) {
+            index = this.indices[i];
+
+            if (GeometricPredicates.orientation(ax, ay, bx, by, this.xs[index], this.ys[index]) < 0) {
+               this.indices[i] = this.indices[end];
+               this.indices[end++] = index;
+            }
+         }
+
+         return end;
+      }
+   }
+}
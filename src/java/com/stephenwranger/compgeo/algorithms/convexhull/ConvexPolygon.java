@@ -0,0 +1,640 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * An immutable convex polygon built from the counter-clockwise output of the hull engines, for point containment in
+ * O(log n) and intersection with another convex polygon in O(n + m).
+ * <p>
+ * Containment first rejects points outside the bounding box and then binary searches the fan of triangles from the
+ * first vertex for the one whose wedge holds the point, so only two orientation tests decide it. Intersection treats
+ * every edge of both polygons as a half-plane; each polygon's edges are already sorted by angle, so the two are merged
+ * instead of sorted and the half-plane intersection runs in one pass over a deque. Points on the boundary are
+ * contained. Duplicate and collinear vertices are dropped when the polygon is built, and a polygon with no area is kept
+ * as the segment or point it is. The batch queries split their work over the common fork/join pool.
+ */
+public class ConvexPolygon {
+   private static final Counter       LOCATED_POINTS = Instrumentation.counter(ConvexPolygon.class, "locatedPoints");
+   private static final Counter       INTERSECTIONS  = Instrumentation.counter(ConvexPolygon.class, "intersections");
+
+   /** The number of points one batch task tests without splitting further. */
+   private static final int           POINT_BATCH    = 1 << 12;
+   /** The number of polygon pairs one batch task intersects without splitting further. */
+   private static final int           POLYGON_BATCH  = 16;
+
+   private static final ConvexPolygon EMPTY          = new ConvexPolygon(new PointBuffer(0));
+
+   private final double[]             xs;
+   private final double[]             ys;
+   private final int                  size;
+   private final double               minX;
+   private final double               minY;
+   private final double               maxX;
+   private final double               maxY;
+
+   /**
+    * Creates a polygon from the given hull vertices, which must be in counter-clockwise order as the hull engines
+    * return them.
+    *
+    * @param hull
+    */
+   public ConvexPolygon(final PointBuffer hull) {
+      final int count = hull.size();
+      final double[] xs = new double[Math.max(1, count)];
+      final double[] ys = new double[Math.max(1, count)];
+      int size = 0;
+      double minX = Double.MAX_VALUE;
+      double minY = Double.MAX_VALUE;
+      double maxX = -Double.MAX_VALUE;
+      double maxY = -Double.MAX_VALUE;
+      int min = 0;
+      int max = 0;
+
+      for (int i = 0; i < count; i++) {
+         final double x = hull.getX(i);
+         final double y = hull.getY(i);
+
+         minX = Math.min(minX, x);
+         minY = Math.min(minY, y);
+         maxX = Math.max(maxX, x);
+         maxY = Math.max(maxY, y);
+
+         if (x < hull.getX(min) || (x == hull.getX(min) && y < hull.getY(min))) {
+            min = i;
+         }
+
+         if (x > hull.getX(max) || (x == hull.getX(max) && y > hull.getY(max))) {
+            max = i;
+         }
+      }
+
+      if (count == 0) {
+         // empty
+      } else if (ConvexPolygon.isFlat(hull, min, max)) {
+         // a segment, or a point if both extremes are the same
+         for (final int index : (min == max || (hull.getX(min) == hull.getX(max) && hull.getY(min) == hull.getY(max))) ? new int[] { min } : new int[] { min, max }) {
+            xs[size] = hull.getX(index);
+            ys[size++] = hull.getY(index);
+         }
+      } else {
+         // the same stack pass as the monotone chain, around the whole polygon
+         for (int i = 0; i < count; i++) {
+            final double x = hull.getX(i);
+            final double y = hull.getY(i);
+
+            while (size >= 2 && GeometricPredicates.orientation(xs[size - 2], ys[size - 2], xs[size - 1], ys[size - 1], x, y) <= 0) {
+               size--;
+            }
+
+            if (size == 0 || xs[size - 1] != x || ys[size - 1] != y) {
+               xs[size] = x;
+               ys[size++] = y;
+            }
+         }
+
+         while (size >= 3 && GeometricPredicates.orientation(xs[size - 2], ys[size - 2], xs[size - 1], ys[size - 1], xs[0], ys[0]) <= 0) {
+            size--;
+         }
+
+         int start = 0;
+
+         while (size - start >= 3 && GeometricPredicates.orientation(xs[size - 1], ys[size - 1], xs[start], ys[start], xs[start + 1], ys[start + 1]) <= 0) {
+            start++;
+         }
+
+         System.arraycopy(xs, start, xs, 0, size - start);
+         System.arraycopy(ys, start, ys, 0, size - start);
+         size -= start;
+      }
+
+      this.xs = xs;
+      this.ys = ys;
+      this.size = size;
+      this.minX = minX;
+      this.minY = minY;
+      this.maxX = maxX;
+      this.maxY = maxY;
+   }
+
+   /**
+    * Returns the number of vertices: 0 for an empty polygon, 1 for a point and 2 for a segment.
+    *
+    * @return
+    */
+   public int size() {
+      return this.size;
+   }
+
+   public boolean isEmpty() {
+      return this.size == 0;
+   }
+
+   public double getX(final int index) {
+      return this.xs[index];
+   }
+
+   public double getY(final int index) {
+      return this.ys[index];
+   }
+
+   /**
+    * Appends the vertices to the given buffer, counter-clockwise.
+    *
+    * @param output
+    */
+   public void getVertices(final PointBuffer output) {
+      output.ensureCapacity(output.size() + this.size);
+
+      for (int i = 0; i < this.size; i++) {
+         output.add(this.xs[i], this.ys[i]);
+      }
+   }
+
+   public double getArea() {
+      double area = 0;
+
+      for (int i = 0; i < this.size; i++) {
+         final int next = (i + 1) % this.size;
+         area += this.xs[i] * this.ys[next] - this.xs[next] * this.ys[i];
+      }
+
+      return area / 2.0;
+   }
+
+   /**
+    * Returns true if the given point is inside the polygon or on its boundary, in O(log n).
+    *
+    * @param x
+    * @param y
+    * @return
+    */
+   public boolean contains(final double x, final double y) {
+      if (this.size == 0 || x < this.minX || x > this.maxX || y < this.minY || y > this.maxY) {
+         return false;
+      } else if (this.size <= 2) {
+         // inside the bounding box of a point or segment, so only its line needs checking
+         return this.size == 1 || GeometricPredicates.orientation(this.xs[0], this.ys[0], this.xs[1], this.ys[1], x, y) == 0;
+      }
+
+      final int last = this.size - 1;
+
+      if (GeometricPredicates.orientation(this.xs[0], this.ys[0], this.xs[1], this.ys[1], x, y) < 0 || GeometricPredicates.orientation(this.xs[0], this.ys[0], this.xs[last], this.ys[last], x, y) > 0) {
+         return false;
+      }
+
+      // the last vertex k whose ray from the first vertex has the point on its left or on it; the point's wedge is then
+      // the triangle of the first vertex, k and k + 1
+      int low = 1;
+      int high = last - 1;
+
+      while (low < high) {
+         final int middle = (low + high + 1) >>> 1;
+
+         if (GeometricPredicates.orientation(this.xs[0], this.ys[0], this.xs[middle], this.ys[middle], x, y) >= 0) {
+            low = middle;
+         } else {
+            high = middle - 1;
+         }
+      }
+
+      return GeometricPredicates.orientation(this.xs[low], this.ys[low], this.xs[low + 1], this.ys[low + 1], x, y) >= 0;
+   }
+
+   public boolean contains(final Tuple2d point) {
+      return this.contains(point.x, point.y);
+   }
+
+   /**
+    * Tests every given point for containment, writing the results to the given array, and returns false if the token
+    * was cancelled first.
+    *
+    * @param points
+    * @param output
+    * @param token
+    * @return
+    */
+   public boolean contains(final PointBuffer points, final boolean[] output, final CancellationToken token) {
+      final ConvexPolygon polygon = this;
+
+      new PointBatch(new PointQuery() {
+         @Override
+         public void run(final int index) {
+            output[index] = polygon.contains(points.getX(index), points.getY(index));
+         }
+      }, 0, points.size(), token).invoke();
+
+      return !token.isCancelled();
+   }
+
+   /**
+    * Returns, for every given point, the index of the first of the given polygons that contains it or -1 if none does;
+    * null if the token was cancelled first.
+    *
+    * @param polygons
+    * @param points
+    * @param token
+    * @return
+    */
+   public static int[] locate(final List<ConvexPolygon> polygons, final PointBuffer points, final CancellationToken token) {
+      final ConvexPolygon[] candidates = polygons.toArray(new ConvexPolygon[polygons.size()]);
+      final int[] output = new int[points.size()];
+
+      new PointBatch(new PointQuery() {
+         @Override
+         public void run(final int index) {
+            final double x = points.getX(index);
+            final double y = points.getY(index);
+
+            output[index] = -1;
+
+            for (int i = 0; i < candidates.length; i++) {
+               if (candidates[i].contains(x, y)) {
+                  output[index] = i;
+                  break;
+               }
+            }
+         }
+      }, 0, points.size(), token).invoke();
+
+      if (Instrumentation.ENABLED) {
+         ConvexPolygon.LOCATED_POINTS.add(points.size());
+      }
+
+      return (token.isCancelled()) ? null : output;
+   }
+
+   /**
+    * Returns the intersection of the two polygons in O(n + m); it is empty, a point or a segment where they do not
+    * overlap with any area.
+    *
+    * @param first
+    * @param second
+    * @return
+    */
+   public static ConvexPolygon intersect(final ConvexPolygon first, final ConvexPolygon second) {
+      if (Instrumentation.ENABLED) {
+         ConvexPolygon.INTERSECTIONS.increment();
+      }
+
+      if (first.size == 0 || second.size == 0 || first.maxX < second.minX || second.maxX < first.minX || first.maxY < second.minY || second.maxY < first.minY) {
+         return ConvexPolygon.EMPTY;
+      } else if (first.size <= 2) {
+         return second.clip(first);
+      } else if (second.size <= 2) {
+         return first.clip(second);
+      }
+
+      // every edge is a half-plane: the line through its start, in its direction, with the polygon on its left
+      final int count = first.size + second.size;
+      final double[] pointXs = new double[count];
+      final double[] pointYs = new double[count];
+      final double[] directionXs = new double[count];
+      final double[] directionYs = new double[count];
+      final double[] firstAngles = first.getEdgeAngles();
+      final double[] secondAngles = second.getEdgeAngles();
+      int i = ConvexPolygon.getFirstEdge(firstAngles);
+      int j = ConvexPolygon.getFirstEdge(secondAngles);
+      int firstCount = 0;
+      int secondCount = 0;
+
+      for (int k = 0; k < count; k++) {
+         final boolean isFirst = (secondCount == second.size || (firstCount < first.size && firstAngles[i] <= secondAngles[j]));
+         final ConvexPolygon polygon = (isFirst) ? first : second;
+         final int edge = (isFirst) ? i : j;
+         final int next = (edge + 1) % polygon.size;
+
+         pointXs[k] = polygon.xs[edge];
+         pointYs[k] = polygon.ys[edge];
+         directionXs[k] = polygon.xs[next] - polygon.xs[edge];
+         directionYs[k] = polygon.ys[next] - polygon.ys[edge];
+
+         if (isFirst) {
+            i = next;
+            firstCount++;
+         } else {
+            j = next;
+            secondCount++;
+         }
+      }
+
+      final int[] deque = new int[count];
+      final double[] vertex = new double[2];
+      int head = 0;
+      int tail = 0;
+
+      for (int k = 0; k < count; k++) {
+         while (tail - head > 1 && ConvexPolygon.isOutside(pointXs, pointYs, directionXs, directionYs, k, deque[tail - 2], deque[tail - 1], vertex)) {
+            tail--;
+         }
+
+         while (tail - head > 1 && ConvexPolygon.isOutside(pointXs, pointYs, directionXs, directionYs, k, deque[head], deque[head + 1], vertex)) {
+            head++;
+         }
+
+         if (tail > head) {
+            final int previous = deque[tail - 1];
+            final double cross = directionXs[previous] * directionYs[k] - directionYs[previous] * directionXs[k];
+
+            if (cross == 0) {
+               if (directionXs[previous] * directionXs[k] + directionYs[previous] * directionYs[k] < 0) {
+                  // opposite half-planes with nothing left between them
+                  return ConvexPolygon.EMPTY;
+               } else if (ConvexPolygon.side(pointXs, pointYs, directionXs, directionYs, previous, pointXs[k], pointYs[k]) < 0) {
+                  // the same direction; keep the inner one
+                  continue;
+               }
+
+               tail--;
+            }
+         }
+
+         deque[tail++] = k;
+      }
+
+      while (tail - head > 2 && ConvexPolygon.isOutside(pointXs, pointYs, directionXs, directionYs, deque[head], deque[tail - 2], deque[tail - 1], vertex)) {
+         tail--;
+      }
+
+      while (tail - head > 2 && ConvexPolygon.isOutside(pointXs, pointYs, directionXs, directionYs, deque[tail - 1], deque[head], deque[head + 1], vertex)) {
+         head++;
+      }
+
+      if (tail - head < 3) {
+         return ConvexPolygon.EMPTY;
+      }
+
+      final PointBuffer vertices = new PointBuffer(tail - head);
+
+      for (int k = head; k < tail; k++) {
+         ConvexPolygon.intersection(pointXs, pointYs, directionXs, directionYs, deque[k], deque[(k + 1 < tail) ? k + 1 : head], vertex);
+         vertices.add(vertex[0], vertex[1]);
+      }
+
+      return new ConvexPolygon(vertices);
+   }
+
+   /**
+    * Intersects each polygon of the first list with the one at the same index of the second and returns the
+    * intersections in the same order, or null if the token was cancelled first.
+    *
+    * @param firsts
+    * @param seconds
+    * @param token
+    * @return
+    */
+   public static ConvexPolygon[] intersect(final List<ConvexPolygon> firsts, final List<ConvexPolygon> seconds, final CancellationToken token) {
+      if (firsts.size() != seconds.size()) {
+         throw new IllegalArgumentException("Both lists must hold the same number of polygons: " + firsts.size() + " and " + seconds.size());
+      }
+
+      final ConvexPolygon[] output = new ConvexPolygon[firsts.size()];
+
+      new IntersectionBatch(firsts.toArray(new ConvexPolygon[output.length]), seconds.toArray(new ConvexPolygon[output.length]), output, 0, output.length, token).invoke();
+
+      return (token.isCancelled()) ? null : output;
+   }
+
+   /**
+    * Returns the part of the given point or segment inside this polygon, clipping the segment against each edge in turn.
+    */
+   private ConvexPolygon clip(final ConvexPolygon other) {
+      final PointBuffer output = new PointBuffer(2);
+
+      if (other.size == 1 || this.size == 1) {
+         final ConvexPolygon point = (other.size == 1) ? other : this;
+         final ConvexPolygon polygon = (other.size == 1) ? this : other;
+
+         if (polygon.contains(point.xs[0], point.ys[0])) {
+            output.add(point.xs[0], point.ys[0]);
+         }
+
+         return new ConvexPolygon(output);
+      }
+
+      final double ax = other.xs[0];
+      final double ay = other.ys[0];
+      final double dx = other.xs[1] - ax;
+      final double dy = other.ys[1] - ay;
+      double start = 0;
+      double end = 1;
+
+      if (this.size == 2) {
+         // two segments share at most a point unless they lie on one line
+         if (GeometricPredicates.orientation(this.xs[0], this.ys[0], this.xs[1], this.ys[1], ax, ay) != 0 || GeometricPredicates.orientation(this.xs[0], this.ys[0], this.xs[1], this.ys[1], other.xs[1], other.ys[1]) != 0) {
+            final double[] crossing = ConvexPolygon.crossSegments(this, other);
+
+            if (crossing != null) {
+               output.add(crossing[0], crossing[1]);
+            }
+
+            return new ConvexPolygon(output);
+         }
+
+         final double length = dx * dx + dy * dy;
+         final double first = ((this.xs[0] - ax) * dx + (this.ys[0] - ay) * dy) / length;
+         final double second = ((this.xs[1] - ax) * dx + (this.ys[1] - ay) * dy) / length;
+
+         start = Math.max(start, Math.min(first, second));
+         end = Math.min(end, Math.max(first, second));
+      } else {
+         for (int i = 0; i < this.size && start <= end; i++) {
+            final int next = (i + 1) % this.size;
+            final double edgeX = this.xs[next] - this.xs[i];
+            final double edgeY = this.ys[next] - this.ys[i];
+            // the segment's side of the edge, positive inside, at its start and its change along the segment
+            final double offset = edgeX * (ay - this.ys[i]) - edgeY * (ax - this.xs[i]);
+            final double slope = edgeX * dy - edgeY * dx;
+
+            if (slope == 0) {
+               if (offset < 0) {
+                  return new ConvexPolygon(output);
+               }
+            } else if (slope > 0) {
+               start = Math.max(start, -offset / slope);
+            } else {
+               end = Math.min(end, -offset / slope);
+            }
+         }
+      }
+
+      if (start <= end) {
+         output.add(ax + dx * start, ay + dy * start);
+         output.add(ax + dx * end, ay + dy * end);
+      }
+
+      return new ConvexPolygon(output);
+   }
+
+   /**
+    * Returns the point where two segments on different lines cross, or null if they do not.
+    */
+   private static double[] crossSegments(final ConvexPolygon first, final ConvexPolygon second) {
+      final double ax = first.xs[0];
+      final double ay = first.ys[0];
+      final double bx = first.xs[first.size - 1];
+      final double by = first.ys[first.size - 1];
+      final double cx = second.xs[0];
+      final double cy = second.ys[0];
+      final double dx = second.xs[second.size - 1];
+      final double dy = second.ys[second.size - 1];
+
+      if (GeometricPredicates.orientation(ax, ay, bx, by, cx, cy) * GeometricPredicates.orientation(ax, ay, bx, by, dx, dy) > 0 || GeometricPredicates.orientation(cx, cy, dx, dy, ax, ay) * GeometricPredicates.orientation(cx, cy, dx, dy, bx, by) > 0) {
+         return null;
+      }
+
+      final double denominator = (bx - ax) * (dy - cy) - (by - ay) * (dx - cx);
+      final double t = ((cx - ax) * (dy - cy) - (cy - ay) * (dx - cx)) / denominator;
+      return new double[] { ax + (bx - ax) * t, ay + (by - ay) * t };
+   }
+
+   /**
+    * Returns the angle of each edge, from the vertex at the same index to the next.
+    */
+   private double[] getEdgeAngles() {
+      final double[] angles = new double[this.size];
+
+      for (int i = 0; i < this.size; i++) {
+         final int next = (i + 1) % this.size;
+         angles[i] = Math.atan2(this.ys[next] - this.ys[i], this.xs[next] - this.xs[i]);
+      }
+
+      return angles;
+   }
+
+   /**
+    * Returns the edge with the smallest angle; the angles rise from there around the polygon.
+    */
+   private static int getFirstEdge(final double[] angles) {
+      int first = 0;
+
+      for (int i = 1; i < angles.length; i++) {
+         first = (angles[i] < angles[first]) ? i : first;
+      }
+
+      return first;
+   }
+
+   /**
+    * Returns true if the point where lines a and b cross is strictly outside the half-plane of line k.
+    */
+   private static boolean isOutside(final double[] pointXs, final double[] pointYs, final double[] directionXs, final double[] directionYs, final int k, final int a, final int b, final double[] vertex) {
+      ConvexPolygon.intersection(pointXs, pointYs, directionXs, directionYs, a, b, vertex);
+
+      return ConvexPolygon.side(pointXs, pointYs, directionXs, directionYs, k, vertex[0], vertex[1]) < 0;
+   }
+
+   /**
+    * Returns a positive value if the given point is on the left of line k, negative on its right and zero on it.
+    */
+   private static double side(final double[] pointXs, final double[] pointYs, final double[] directionXs, final double[] directionYs, final int k, final double x, final double y) {
+      return directionXs[k] * (y - pointYs[k]) - directionYs[k] * (x - pointXs[k]);
+   }
+
+   private static void intersection(final double[] pointXs, final double[] pointYs, final double[] directionXs, final double[] directionYs, final int a, final int b, final double[] output) {
+      final double cross = directionXs[a] * directionYs[b] - directionYs[a] * directionXs[b];
+      final double t = ((pointXs[b] - pointXs[a]) * directionYs[b] - (pointYs[b] - pointYs[a]) * directionXs[b]) / cross;
+
+      output[0] = pointXs[a] + directionXs[a] * t;
+      output[1] = pointYs[a] + directionYs[a] * t;
+   }
+
+   /**
+    * Returns true if every vertex lies on the line through the given extremes.
+    */
+   private static boolean isFlat(final PointBuffer hull, final int min, final int max) {
+      for (int i = 0; i < hull.size(); i++) {
+         if (GeometricPredicates.orientation(hull.getX(min), hull.getY(min), hull.getX(max), hull.getY(max), hull.getX(i), hull.getY(i)) != 0) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * A query answered for one point at a time.
+    */
+   private interface PointQuery {
+      public void run(final int index);
+   }
+
+   /**
+    * Runs a query over a range of points, forking its two halves until they are small enough for one thread.
+    */
+   private static class PointBatch extends RecursiveAction {
+      private static final long       serialVersionUID = 7019862306419725468L;
+
+      private final PointQuery        query;
+      private final int               from;
+      private final int               to;
+      private final CancellationToken token;
+
+      public PointBatch(final PointQuery query, final int from, final int to, final CancellationToken token) {
+         this.query = query;
+         this.from = from;
+         this.to = to;
+         this.token = token;
+      }
+
+      @Override
+      protected void compute() {
+         if (this.to - this.from > ConvexPolygon.POINT_BATCH) {
+            final int middle = (this.from + this.to) >>> 1;
+
+            RecursiveAction.invokeAll(new PointBatch(this.query, this.from, middle, this.token), new PointBatch(this.query, middle, this.to, this.token));
+            return;
+         } else if (this.token.isCancelled()) {
+            return;
+         }
+
+         for (int i = this.from; i < this.to; i++) {
+            this.query.run(i);
+         }
+      }
+   }
+
+   /**
+    * Intersects a range of polygon pairs, forking its two halves until they are small enough for one thread.
+    */
+   private static class IntersectionBatch extends RecursiveAction {
+      private static final long       serialVersionUID = -2129476407402245163L;
+
+      private final ConvexPolygon[]   firsts;
+      private final ConvexPolygon[]   seconds;
+      private final ConvexPolygon[]   output;
+      private final int               from;
+      private final int               to;
+      private final CancellationToken token;
+
+      public IntersectionBatch(final ConvexPolygon[] firsts, final ConvexPolygon[] seconds, final ConvexPolygon[] output, final int from, final int to, final CancellationToken token) {
+         this.firsts = firsts;
+         this.seconds = seconds;
+         this.output = output;
+         this.from = from;
+         this.to = to;
+         this.token = token;
+      }
+
+      @Override
+      protected void compute() {
+         if (this.to - this.from > ConvexPolygon.POLYGON_BATCH) {
+            final int middle = (this.from + this.to) >>> 1;
+
+            RecursiveAction.invokeAll(new IntersectionBatch(this.firsts, this.seconds, this.output, this.from, middle, this.token), new IntersectionBatch(this.firsts, this.seconds, this.output, middle, this.to, this.token));
+            return;
+         }
+
+         for (int i = this.from; i < this.to && !this.token.isCancelled(); i++) {
+            this.output[i] = ConvexPolygon.intersect(this.firsts[i], this.seconds[i]);
+         }
+      }
+   }
+}
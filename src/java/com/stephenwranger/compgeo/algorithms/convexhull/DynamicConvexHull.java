@@ -0,0 +1,503 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.List;
+
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * The convex hull of a changing point set, after Overmars and van Leeuwen. Points are the leaves of a weight balanced
+ * tree ordered by x and then y; every internal node stores the bridges, the upper and lower common tangents, between
+ * the hulls of its two children, so the node's own hull is its left child's hull up to the bridge followed by its
+ * right child's hull from the bridge on. No hull is stored explicitly: each bridge is found by descending both
+ * children at once, in O(log n), and an insert or delete recomputes the bridges on its path up to the first ancestor
+ * whose hull the point is not a vertex of; most updates of a large set stop well short of the root.
+ * <p>
+ * Inserts and deletes take O(log^2 n) amortized time, subtrees that fall out of balance being rebuilt; reading the hull
+ * takes O(h log n). Hull vertices are returned counter-clockwise starting at the left-most point; collinear points on
+ * hull edges are dropped. Not thread safe.
+ */
+public class DynamicConvexHull {
+   private static final Counter BRIDGE_STEPS  = Instrumentation.counter(DynamicConvexHull.class, "bridgeSteps");
+   private static final Counter UPDATED_NODES = Instrumentation.counter(DynamicConvexHull.class, "updatedNodes");
+   private static final Counter REBUILT_NODES = Instrumentation.counter(DynamicConvexHull.class, "rebuiltNodes");
+
+   /** A subtree is rebuilt once one of its children holds more than this fraction of its points. */
+   private static final double  BALANCE       = 0.75;
+
+   private static final int     UPPER         = 1;
+   private static final int     LOWER         = 2;
+
+   private Node                 root          = null;
+
+   public DynamicConvexHull() {
+      // nothing
+   }
+
+   /**
+    * Returns the number of points in the set.
+    *
+    * @return
+    */
+   public int size() {
+      return (this.root == null) ? 0 : this.root.size;
+   }
+
+   public boolean isEmpty() {
+      return this.root == null;
+   }
+
+   public boolean contains(final double x, final double y) {
+      return this.root != null && DynamicConvexHull.compare(this.find(x, y), x, y) == 0;
+   }
+
+   /**
+    * Adds the given point and returns true, or returns false if it is already in the set.
+    *
+    * @param x
+    * @param y
+    * @return
+    */
+   public boolean insert(final double x, final double y) {
+      if (Double.isNaN(x) || Double.isNaN(y)) {
+         throw new IllegalArgumentException("Invalid point: " + x + ", " + y);
+      }
+
+      final Node leaf = new Node(x, y);
+
+      if (this.root == null) {
+         this.root = leaf;
+         return true;
+      }
+
+      final Node existing = this.find(x, y);
+      final int comparison = DynamicConvexHull.compare(existing, x, y);
+
+      if (comparison == 0) {
+         return false;
+      }
+
+      final Node parent = existing.parent;
+      final Node node = (comparison < 0) ? new Node(existing, leaf) : new Node(leaf, existing);
+
+      this.replace(parent, existing, node);
+
+      // once the new point is not a hull vertex of an ancestor, that hull and every hull above it are unchanged
+      int hulls = DynamicConvexHull.UPPER | DynamicConvexHull.LOWER;
+      Node child = leaf;
+
+      for (Node current = node; current != null && hulls != 0; child = current, current = current.parent) {
+         current.update();
+         hulls = DynamicConvexHull.getHulls(current, child, leaf, hulls);
+      }
+
+      this.rebalance(node);
+
+      return true;
+   }
+
+   public boolean insert(final Tuple2d point) {
+      return this.insert(point.x, point.y);
+   }
+
+   /**
+    * Removes the given point and returns true, or returns false if it is not in the set.
+    *
+    * @param x
+    * @param y
+    * @return
+    */
+   public boolean delete(final double x, final double y) {
+      if (this.root == null) {
+         return false;
+      }
+
+      final Node leaf = this.find(x, y);
+
+      if (DynamicConvexHull.compare(leaf, x, y) != 0) {
+         return false;
+      }
+
+      final Node parent = leaf.parent;
+
+      if (parent == null) {
+         this.root = null;
+         return true;
+      }
+
+      // only the hulls the point is a vertex of change, and those are the lowest ones on its path
+      int hulls = DynamicConvexHull.UPPER | DynamicConvexHull.LOWER;
+      int changed = 0;
+      Node child = leaf;
+
+      for (Node current = parent; current != null && hulls != 0; child = current, current = current.parent) {
+         hulls = DynamicConvexHull.getHulls(current, child, leaf, hulls);
+         changed += (hulls == 0) ? 0 : 1;
+      }
+
+      final Node sibling = (parent.left == leaf) ? parent.right : parent.left;
+      final Node grandparent = parent.parent;
+
+      this.replace(grandparent, parent, sibling);
+
+      // the parent itself is gone
+      Node current = grandparent;
+
+      for (int i = 1; i < changed; i++) {
+         current.update();
+         current = current.parent;
+      }
+
+      if (grandparent != null) {
+         this.rebalance(grandparent);
+      }
+
+      return true;
+   }
+
+   public boolean delete(final Tuple2d point) {
+      return this.delete(point.x, point.y);
+   }
+
+   /**
+    * Removes every point.
+    */
+   public void clear() {
+      this.root = null;
+   }
+
+   /**
+    * Appends the hull vertices to the given buffer, counter-clockwise starting at the left-most point.
+    *
+    * @param output
+    */
+   public void getHull(final PointBuffer output) {
+      if (this.root == null) {
+         return;
+      } else if (this.root.isLeaf()) {
+         output.add(this.root.x, this.root.y);
+         return;
+      }
+
+      // the lower hull runs from the right-most point to the left-most one in its frame and the upper hull the other way
+      final int start = output.size();
+      DynamicConvexHull.hull(this.root, this.root.max, this.root.min, true, output);
+      DynamicConvexHull.reverse(output, start, output.size());
+
+      final int upperStart = output.size();
+      DynamicConvexHull.hull(this.root, this.root.min, this.root.max, false, output);
+      DynamicConvexHull.reverse(output, upperStart, output.size());
+
+      // both hulls hold the left-most and right-most points
+      final int upperCount = output.size() - upperStart;
+      System.arraycopy(output.getXs(), upperStart + 1, output.getXs(), upperStart, upperCount - 2);
+      System.arraycopy(output.getYs(), upperStart + 1, output.getYs(), upperStart, upperCount - 2);
+      output.truncate(output.size() - 2);
+   }
+
+   /**
+    * Appends the hull vertices to the given list, counter-clockwise starting at the left-most point.
+    *
+    * @param output
+    */
+   public void getHull(final List<Tuple2d> output) {
+      final PointBuffer hull = new PointBuffer();
+      this.getHull(hull);
+      hull.toTuples(output);
+   }
+
+   /**
+    * Returns the leaf holding the given point or, if there is none, the leaf it would be inserted next to.
+    */
+   private Node find(final double x, final double y) {
+      Node node = this.root;
+
+      while (!node.isLeaf()) {
+         node = (DynamicConvexHull.compare(node.left.max, x, y) >= 0) ? node.left : node.right;
+      }
+
+      return node;
+   }
+
+   private void replace(final Node parent, final Node child, final Node replacement) {
+      replacement.parent = parent;
+
+      if (parent == null) {
+         this.root = replacement;
+      } else if (parent.left == child) {
+         parent.left = replacement;
+      } else {
+         parent.right = replacement;
+      }
+   }
+
+   /**
+    * Returns which of the given hulls of the child, upper, lower or both, the point is still a vertex of in the node.
+    */
+   private static int getHulls(final Node node, final Node child, final Node point, final int hulls) {
+      final boolean isLeft = (child == node.left);
+      int result = hulls;
+
+      if ((result & DynamicConvexHull.UPPER) != 0 && !DynamicConvexHull.isKept(point, isLeft, node.upperLeft, node.upperRight)) {
+         result &= ~DynamicConvexHull.UPPER;
+      }
+
+      if ((result & DynamicConvexHull.LOWER) != 0 && !DynamicConvexHull.isKept(point, isLeft, node.lowerLeft, node.lowerRight)) {
+         result &= ~DynamicConvexHull.LOWER;
+      }
+
+      return result;
+   }
+
+   /**
+    * Returns true if the given point of a child's hull is kept in its parent's hull, which is the left child's hull up to
+    * the bridge and the right child's hull from it on.
+    */
+   private static boolean isKept(final Node point, final boolean isLeft, final Node bridgeLeft, final Node bridgeRight) {
+      return (isLeft) ? DynamicConvexHull.compare(point, bridgeLeft, false) <= 0 : DynamicConvexHull.compare(point, bridgeRight, false) >= 0;
+   }
+
+   /**
+    * Recounts the given node and its ancestors and then rebuilds the highest of them that is out of balance.
+    */
+   private void rebalance(final Node node) {
+      Node scapegoat = null;
+
+      for (Node current = node; current != null; current = current.parent) {
+         current.size = current.left.size + current.right.size;
+
+         if (Math.max(current.left.size, current.right.size) > DynamicConvexHull.BALANCE * current.size) {
+            scapegoat = current;
+         }
+      }
+
+      if (scapegoat != null) {
+         final Node[] leaves = new Node[scapegoat.size];
+         DynamicConvexHull.getLeaves(scapegoat, leaves, 0);
+         this.replace(scapegoat.parent, scapegoat, DynamicConvexHull.build(leaves, 0, leaves.length));
+
+         if (Instrumentation.ENABLED) {
+            DynamicConvexHull.REBUILT_NODES.add(leaves.length - 1);
+         }
+      }
+   }
+
+   private static int getLeaves(final Node node, final Node[] leaves, final int index) {
+      if (node.isLeaf()) {
+         leaves[index] = node;
+         return index + 1;
+      }
+
+      return DynamicConvexHull.getLeaves(node.right, leaves, DynamicConvexHull.getLeaves(node.left, leaves, index));
+   }
+
+   /**
+    * Builds a perfectly balanced subtree over the given range of leaves, computing its bridges bottom up.
+    */
+   private static Node build(final Node[] leaves, final int from, final int to) {
+      if (to - from == 1) {
+         return leaves[from];
+      }
+
+      final int middle = (from + to) >>> 1;
+      final Node node = new Node(DynamicConvexHull.build(leaves, from, middle), DynamicConvexHull.build(leaves, middle, to));
+      node.update();
+
+      return node;
+   }
+
+   /**
+    * Finds the bridge between the upper hulls of the node's children or, if lower, between their lower hulls.
+    * <p>
+    * The lower hull is the upper hull of the points rotated by 180 degrees, which reverses their order and swaps the
+    * children but leaves every orientation unchanged, so both bridges are found the same way. Within that frame the
+    * left-most tangent point of the first child and the right-most of the second are kept, so collinear points are
+    * dropped. At each step at least one of the two subtrees being searched can be narrowed to one of its children:
+    * <ul>
+    * <li>if a point of the second subtree's bridge is on or above the line through the first's, the first tangent point
+    * is in the first subtree's first child;</li>
+    * <li>if a point of the first subtree's bridge is on or above the line through the second's, the second tangent point
+    * is in the second subtree's second child;</li>
+    * <li>otherwise the two lines cross between the bridges and where they cross, relative to the last point of the
+    * node's first child, decides which subtree moves inward.</li>
+    * </ul>
+    */
+   private static void bridge(final Node node, final boolean isLower) {
+      final Node separator = (isLower) ? node.right.min : node.left.max;
+      Node a = DynamicConvexHull.first(node, isLower);
+      Node b = DynamicConvexHull.second(node, isLower);
+      Node a1, a2, b1, b2;
+
+      while (!a.isLeaf() || !b.isLeaf()) {
+         if (Instrumentation.ENABLED) {
+            DynamicConvexHull.BRIDGE_STEPS.increment();
+         }
+
+         if (a.isLeaf()) {
+            b1 = DynamicConvexHull.firstBridge(b, isLower);
+            b2 = DynamicConvexHull.secondBridge(b, isLower);
+            b = (DynamicConvexHull.orientation(b1, b2, a) >= 0) ? DynamicConvexHull.second(b, isLower) : DynamicConvexHull.first(b, isLower);
+         } else if (b.isLeaf()) {
+            a1 = DynamicConvexHull.firstBridge(a, isLower);
+            a2 = DynamicConvexHull.secondBridge(a, isLower);
+            a = (DynamicConvexHull.orientation(a1, a2, b) >= 0) ? DynamicConvexHull.first(a, isLower) : DynamicConvexHull.second(a, isLower);
+         } else {
+            a1 = DynamicConvexHull.firstBridge(a, isLower);
+            a2 = DynamicConvexHull.secondBridge(a, isLower);
+            b1 = DynamicConvexHull.firstBridge(b, isLower);
+            b2 = DynamicConvexHull.secondBridge(b, isLower);
+
+            if (DynamicConvexHull.orientation(a1, a2, b1) >= 0 || DynamicConvexHull.orientation(a1, a2, b2) >= 0) {
+               a = DynamicConvexHull.first(a, isLower);
+            } else if (DynamicConvexHull.orientation(b1, b2, a1) >= 0 || DynamicConvexHull.orientation(b1, b2, a2) >= 0) {
+               b = DynamicConvexHull.second(b, isLower);
+            } else if (DynamicConvexHull.isCrossingBefore(a1, a2, b1, b2, separator, isLower)) {
+               a = DynamicConvexHull.second(a, isLower);
+            } else {
+               b = DynamicConvexHull.first(b, isLower);
+            }
+         }
+      }
+
+      if (isLower) {
+         node.lowerRight = a;
+         node.lowerLeft = b;
+      } else {
+         node.upperLeft = a;
+         node.upperRight = b;
+      }
+   }
+
+   /**
+    * Returns true if the lines through a1, a2 and b1, b2 cross at or before the separator in the frame's order.
+    */
+   private static boolean isCrossingBefore(final Node a1, final Node a2, final Node b1, final Node b2, final Node separator, final boolean isLower) {
+      final int comparison = GeometricPredicates.compareLineIntersection(a1.x, a1.y, a2.x, a2.y, b1.x, b1.y, b2.x, b2.y, separator.x, separator.y);
+      return ((isLower) ? -comparison : comparison) <= 0;
+   }
+
+   /**
+    * Appends the vertices of the node's upper or lower hull from one of them to another, in the frame's order.
+    */
+   private static void hull(final Node node, final Node from, final Node to, final boolean isLower, final PointBuffer output) {
+      if (node.isLeaf()) {
+         output.add(node.x, node.y);
+         return;
+      }
+
+      final Node firstBridge = DynamicConvexHull.firstBridge(node, isLower);
+      final Node secondBridge = DynamicConvexHull.secondBridge(node, isLower);
+
+      if (DynamicConvexHull.compare(from, firstBridge, isLower) <= 0) {
+         final Node end = (DynamicConvexHull.compare(to, firstBridge, isLower) < 0) ? to : firstBridge;
+         DynamicConvexHull.hull(DynamicConvexHull.first(node, isLower), from, end, isLower, output);
+      }
+
+      if (DynamicConvexHull.compare(to, secondBridge, isLower) >= 0) {
+         final Node start = (DynamicConvexHull.compare(from, secondBridge, isLower) > 0) ? from : secondBridge;
+         DynamicConvexHull.hull(DynamicConvexHull.second(node, isLower), start, to, isLower, output);
+      }
+   }
+
+   private static void reverse(final PointBuffer buffer, final int from, final int to) {
+      final double[] xs = buffer.getXs();
+      final double[] ys = buffer.getYs();
+      double temp;
+
+      for (int i = from, j = to - 1; i < j; i++, j--) {
+         temp = xs[i];
+         xs[i] = xs[j];
+         xs[j] = temp;
+         temp = ys[i];
+         ys[i] = ys[j];
+         ys[j] = temp;
+      }
+   }
+
+   private static Node first(final Node node, final boolean isLower) {
+      return (isLower) ? node.right : node.left;
+   }
+
+   private static Node second(final Node node, final boolean isLower) {
+      return (isLower) ? node.left : node.right;
+   }
+
+   private static Node firstBridge(final Node node, final boolean isLower) {
+      return (isLower) ? node.lowerRight : node.upperLeft;
+   }
+
+   private static Node secondBridge(final Node node, final boolean isLower) {
+      return (isLower) ? node.lowerLeft : node.upperRight;
+   }
+
+   private static int orientation(final Node a, final Node b, final Node c) {
+      return GeometricPredicates.orientation(a.x, a.y, b.x, b.y, c.x, c.y);
+   }
+
+   /**
+    * Orders leaves by x and then y, reversed in the lower hull's frame.
+    */
+   private static int compare(final Node a, final Node b, final boolean isLower) {
+      final int comparison = DynamicConvexHull.compare(a, b.x, b.y);
+      return (isLower) ? -comparison : comparison;
+   }
+
+   private static int compare(final Node node, final double x, final double y) {
+      final int comparison = Double.compare(node.x, x);
+      return (comparison == 0) ? Double.compare(node.y, y) : comparison;
+   }
+
+   /**
+    * A point, as a leaf, or a subtree with the bridges between its children's hulls, all of whose endpoints are leaves.
+    */
+   private static class Node {
+      private final double x;
+      private final double y;
+      private Node         parent     = null;
+      private Node         left       = null;
+      private Node         right      = null;
+      private int          size       = 1;
+      private Node         min        = this;
+      private Node         max        = this;
+      private Node         upperLeft  = null;
+      private Node         upperRight = null;
+      private Node         lowerLeft  = null;
+      private Node         lowerRight = null;
+
+      public Node(final double x, final double y) {
+         this.x = x;
+         this.y = y;
+      }
+
+      public Node(final Node left, final Node right) {
+         this.x = Double.NaN;
+         this.y = Double.NaN;
+         this.left = left;
+         this.right = right;
+         left.parent = this;
+         right.parent = this;
+      }
+
+      public boolean isLeaf() {
+         return this.left == null;
+      }
+
+      /**
+       * Recomputes the subtree's size, extremes and bridges from its children.
+       */
+      public void update() {
+         if (Instrumentation.ENABLED) {
+            DynamicConvexHull.UPDATED_NODES.increment();
+         }
+
+         this.size = this.left.size + this.right.size;
+         this.min = this.left.min;
+         this.max = this.right.max;
+         DynamicConvexHull.bridge(this, false);
+         DynamicConvexHull.bridge(this, true);
+      }
+   }
+}
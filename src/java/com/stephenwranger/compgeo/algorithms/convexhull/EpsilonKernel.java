@@ -0,0 +1,264 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.List;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * An approximate convex hull of a point stream of any length in constant memory. For each of k directions evenly
+ * spaced around the circle the kernel keeps the point extreme in that direction; each point costs k dot products, and
+ * the approximate hull is the hull of the at most k points kept.
+ * <p>
+ * The approximate hull's vertices are input points, so it lies inside the exact hull. Projections are rounded dot
+ * products, so each kept point is an extreme point in its direction only to within rounding, and a vertex of the
+ * approximate hull need not be a vertex of the exact hull. Every direction is within pi/k of one kept, so every input
+ * point lies within D sin(pi/k) of the approximate hull, D being the diameter of the input; {@link #getErrorBound()}
+ * returns a bound on that distance from the points seen so far. Use {@link #getDirectionCount(double)} or
+ * {@link #getDirectionCountForAngle(double)} to pick k from a tolerance. Hull vertices are returned counter-clockwise
+ * starting at the left-most point; collinear points on hull edges are dropped.
+ * Not thread safe.
+ */
+public class EpsilonKernel implements ResultSink<PointBuffer> {
+   private static final Counter UPDATES = Instrumentation.counter(EpsilonKernel.class, "updates");
+
+   private final int            directionCount;
+   private final double[]       directionXs;
+   private final double[]       directionYs;
+
+   // the extreme point in each direction and its projection onto that direction
+   private final double[]       extremes;
+   private final double[]       extremeXs;
+   private final double[]       extremeYs;
+   private final long[]         extremePositions;
+   private long                 pointCount = 0;
+
+   /**
+    * Creates a kernel keeping the extreme points in the given number of directions, which must be even and at least 4
+    * so that every kept direction's opposite is kept too.
+    *
+    * @param directionCount
+    */
+   public EpsilonKernel(final int directionCount) {
+      EpsilonKernel.checkDirectionCount(directionCount);
+
+      this.directionCount = directionCount;
+      this.directionXs = new double[directionCount];
+      this.directionYs = new double[directionCount];
+      this.extremes = new double[directionCount];
+      this.extremeXs = new double[directionCount];
+      this.extremeYs = new double[directionCount];
+      this.extremePositions = new long[directionCount];
+
+      for (int i = 0; i < directionCount; i++) {
+         final double angle = 2.0 * Math.PI * i / directionCount;
+         this.directionXs[i] = Math.cos(angle);
+         this.directionYs[i] = Math.sin(angle);
+      }
+   }
+
+   /**
+    * Returns the number of directions needed for the approximate hull to be within the given fraction of the input's
+    * diameter of every input point.
+    *
+    * @param tolerance
+    *           a fraction of the diameter, greater than 0 and less than 1
+    * @return
+    */
+   public static int getDirectionCount(final double tolerance) {
+      if (!(tolerance > 0 && tolerance < 1)) {
+         throw new IllegalArgumentException("The tolerance must be greater than 0 and less than 1: " + tolerance);
+      }
+
+      return EpsilonKernel.toDirectionCount(Math.PI / Math.asin(tolerance));
+   }
+
+   /**
+    * Returns the number of directions needed for no direction to be more than half the given angle from a kept one.
+    *
+    * @param angle
+    *           the spacing between kept directions, in radians, greater than 0
+    * @return
+    */
+   public static int getDirectionCountForAngle(final double angle) {
+      if (!(angle > 0)) {
+         throw new IllegalArgumentException("The angle must be greater than 0: " + angle);
+      }
+
+      return EpsilonKernel.toDirectionCount(2.0 * Math.PI / angle);
+   }
+
+   static void checkDirectionCount(final int directionCount) {
+      if (directionCount < 4 || directionCount % 2 != 0) {
+         throw new IllegalArgumentException("The direction count must be even and at least 4: " + directionCount);
+      }
+   }
+
+   private static int toDirectionCount(final double minimum) {
+      final int count = (int) Math.min(Integer.MAX_VALUE - 1, Math.ceil(minimum));
+      return Math.max(4, count + (count % 2));
+   }
+
+   public int getDirectionCount() {
+      return this.directionCount;
+   }
+
+   /**
+    * Returns the number of points added so far.
+    *
+    * @return
+    */
+   public long getPointCount() {
+      return this.pointCount;
+   }
+
+   /**
+    * Adds the given point in O(k).
+    *
+    * @param x
+    * @param y
+    */
+   public void add(final double x, final double y) {
+      if (Double.isNaN(x) || Double.isNaN(y)) {
+         throw new IllegalArgumentException("Invalid point: " + x + ", " + y);
+      }
+
+      final boolean isFirst = (this.pointCount == 0);
+      int updates = 0;
+
+      for (int i = 0; i < this.directionCount; i++) {
+         final double projection = x * this.directionXs[i] + y * this.directionYs[i];
+
+         if (isFirst || projection > this.extremes[i] || (projection == this.extremes[i] && this.isAhead(i, x, y))) {
+            this.extremes[i] = projection;
+            this.extremeXs[i] = x;
+            this.extremeYs[i] = y;
+            this.extremePositions[i] = this.pointCount;
+            updates++;
+         }
+      }
+
+      this.pointCount++;
+
+      if (Instrumentation.ENABLED) {
+         EpsilonKernel.UPDATES.add(updates);
+      }
+   }
+
+   /**
+    * Returns true if the given point is further counter-clockwise than the given direction's extreme point, so that
+    * among points whose rounded projections tie the last one along the hull is kept.
+    */
+   private boolean isAhead(final int direction, final double x, final double y) {
+      final double dx = this.directionXs[direction];
+      final double dy = this.directionYs[direction];
+
+      return dx * y - dy * x > dx * this.extremeYs[direction] - dy * this.extremeXs[direction];
+   }
+
+   public void add(final Tuple2d point) {
+      this.add(point.x, point.y);
+   }
+
+   /**
+    * Adds every point of the given chunk; never stops the stream.
+    *
+    * @param chunk
+    * @return
+    */
+   @Override
+   public boolean accept(final PointBuffer chunk) {
+      for (int i = 0; i < chunk.size(); i++) {
+         this.add(chunk.getX(i), chunk.getY(i));
+      }
+
+      return true;
+   }
+
+   /**
+    * Removes every point.
+    */
+   public void clear() {
+      this.pointCount = 0;
+   }
+
+   /**
+    * Returns an upper bound on the distance from any point added so far to the approximate hull: the widest extent over
+    * the kept directions bounds the diameter to within a factor of 1 / cos(pi/k).
+    *
+    * @return
+    */
+   public double getErrorBound() {
+      if (this.pointCount == 0) {
+         return 0;
+      }
+
+      final int half = this.directionCount / 2;
+      double width = 0;
+
+      for (int i = 0; i < half; i++) {
+         width = Math.max(width, this.extremes[i] + this.extremes[i + half]);
+      }
+
+      return width * Math.tan(Math.PI / this.directionCount);
+   }
+
+   /**
+    * Appends the approximate hull vertices to the given buffer, counter-clockwise starting at the left-most point.
+    *
+    * @param output
+    */
+   public void getHull(final PointBuffer output) {
+      final int[] hull = this.hull();
+
+      output.ensureCapacity(output.size() + hull.length);
+
+      for (final int index : hull) {
+         output.add(this.extremeXs[index], this.extremeYs[index]);
+      }
+   }
+
+   /**
+    * Appends the approximate hull vertices to the given list, counter-clockwise starting at the left-most point.
+    *
+    * @param output
+    */
+   public void getHull(final List<Tuple2d> output) {
+      final PointBuffer hull = new PointBuffer();
+      this.getHull(hull);
+      hull.toTuples(output);
+   }
+
+   /**
+    * Returns the positions in the stream, counting from zero, of the approximate hull vertices in the order
+    * {@link #getHull(PointBuffer)} returns them.
+    *
+    * @return
+    */
+   public long[] getHullPositions() {
+      final int[] hull = this.hull();
+      final long[] positions = new long[hull.length];
+
+      for (int i = 0; i < hull.length; i++) {
+         positions[i] = this.extremePositions[hull[i]];
+      }
+
+      return positions;
+   }
+
+   /**
+    * Returns the directions whose extreme points are the approximate hull vertices; a point extreme in several
+    * directions appears once.
+    */
+   private int[] hull() {
+      if (this.pointCount == 0) {
+         return new int[0];
+      }
+
+      return ConvexHullMonotoneChain.scan(this.extremeXs, this.extremeYs, this.directionCount, new CancellationToken());
+   }
+}
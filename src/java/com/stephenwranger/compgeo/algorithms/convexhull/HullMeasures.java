@@ -0,0 +1,67 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+
+/**
+ * The diameter, farthest pair, width and minimum area bounding rectangle of one hull, as measured by
+ * {@link RotatingCalipers#measure(PointBuffer)}. Vertex indices refer to the measured hull.
+ */
+public class HullMeasures {
+   private final int      farthestFirst;
+   private final int      farthestSecond;
+   private final double   diameter;
+   private final double   width;
+   private final double[] rectangle;
+   private final double   rectangleArea;
+
+   HullMeasures(final int[] farthestPair, final double diameter, final double width, final double[] rectangle, final double rectangleArea) {
+      this.farthestFirst = (farthestPair.length == 0) ? -1 : farthestPair[0];
+      this.farthestSecond = (farthestPair.length == 0) ? -1 : farthestPair[1];
+      this.diameter = diameter;
+      this.width = width;
+      this.rectangle = rectangle;
+      this.rectangleArea = rectangleArea;
+   }
+
+   /**
+    * Returns the index of the first vertex of the farthest pair; -1 for an empty hull.
+    *
+    * @return
+    */
+   public int getFarthestFirst() {
+      return this.farthestFirst;
+   }
+
+   /**
+    * Returns the index of the second vertex of the farthest pair; -1 for an empty hull.
+    *
+    * @return
+    */
+   public int getFarthestSecond() {
+      return this.farthestSecond;
+   }
+
+   public double getDiameter() {
+      return this.diameter;
+   }
+
+   public double getWidth() {
+      return this.width;
+   }
+
+   public double getRectangleArea() {
+      return this.rectangleArea;
+   }
+
+   /**
+    * Appends the corners of the minimum area bounding rectangle to the given buffer, counter-clockwise; nothing for an
+    * empty hull.
+    *
+    * @param output
+    */
+   public void getRectangle(final PointBuffer output) {
+      for (int i = 0; i < this.rectangle.length; i += 2) {
+         output.add(this.rectangle[i], this.rectangle[i + 1]);
+      }
+   }
+}
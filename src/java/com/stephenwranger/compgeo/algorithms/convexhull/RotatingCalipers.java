@@ -0,0 +1,371 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+
+/**
+ * Rotating calipers queries over the output of the hull engines: diameter and farthest pair, width and the minimum
+ * area bounding rectangle, each in O(h). Every query relies on the hull's vertices being in counter-clockwise order, as
+ * every engine returns them, so the caliper vertices only ever advance around the hull and nothing is sorted; collinear
+ * vertices on hull edges are allowed. A hull whose vertices are all collinear is measured as the segment between its
+ * extremes.
+ */
+public class RotatingCalipers {
+   private static final Counter MEASURED_HULLS = Instrumentation.counter(RotatingCalipers.class, "measuredHulls");
+
+   /** The number of hulls one batch task measures without splitting further. */
+   private static final int     BATCH_SIZE     = 64;
+
+   private RotatingCalipers() {
+      // statics only
+   }
+
+   /**
+    * Returns the indices of the two hull vertices farthest apart: an empty array for an empty hull and the same index
+    * twice for a single vertex.
+    *
+    * @param hull
+    * @return
+    */
+   public static int[] farthestPair(final PointBuffer hull) {
+      final int size = hull.size();
+
+      if (size <= 1) {
+         return (size == 0) ? new int[0] : new int[] { 0, 0 };
+      } else if (RotatingCalipers.isFlat(hull)) {
+         return RotatingCalipers.getExtremes(hull);
+      }
+
+      // every antipodal pair is some vertex with a vertex furthest from one of the edges that vertex ends
+      final int[] pair = new int[2];
+      double best = -1;
+      int j = RotatingCalipers.getFurthest(hull);
+
+      for (int i = 0; i < size; i++) {
+         final int next = (i + 1) % size;
+
+         while (RotatingCalipers.height(hull, i, next, (j + 1) % size) > RotatingCalipers.height(hull, i, next, j)) {
+            j = (j + 1) % size;
+         }
+
+         final double first = RotatingCalipers.distanceSquared(hull, i, j);
+         final double second = RotatingCalipers.distanceSquared(hull, next, j);
+
+         if (first > best) {
+            best = first;
+            pair[0] = i;
+            pair[1] = j;
+         }
+
+         if (second > best) {
+            best = second;
+            pair[0] = next;
+            pair[1] = j;
+         }
+      }
+
+      return pair;
+   }
+
+   /**
+    * Returns the largest distance between two hull vertices; 0 for fewer than two.
+    *
+    * @param hull
+    * @return
+    */
+   public static double diameter(final PointBuffer hull) {
+      final int[] pair = RotatingCalipers.farthestPair(hull);
+      return (pair.length == 0) ? 0 : Math.sqrt(RotatingCalipers.distanceSquared(hull, pair[0], pair[1]));
+   }
+
+   /**
+    * Returns the smallest distance between two parallel lines enclosing the hull; 0 for a hull with no area.
+    *
+    * @param hull
+    * @return
+    */
+   public static double width(final PointBuffer hull) {
+      final int size = hull.size();
+
+      if (size <= 2 || RotatingCalipers.isFlat(hull)) {
+         return 0;
+      }
+
+      // one of the lines holds a hull edge and the other the vertex furthest from it
+      double width = Double.MAX_VALUE;
+      int j = RotatingCalipers.getFurthest(hull);
+
+      for (int i = 0; i < size; i++) {
+         final int next = (i + 1) % size;
+
+         while (RotatingCalipers.height(hull, i, next, (j + 1) % size) > RotatingCalipers.height(hull, i, next, j)) {
+            j = (j + 1) % size;
+         }
+
+         width = Math.min(width, RotatingCalipers.height(hull, i, next, j) / Math.sqrt(RotatingCalipers.distanceSquared(hull, i, next)));
+      }
+
+      return width;
+   }
+
+   /**
+    * Appends the corners of the smallest area rectangle enclosing the hull to the given buffer, counter-clockwise, and
+    * returns its area. A hull with no area gives a rectangle with two pairs of equal corners.
+    *
+    * @param hull
+    * @param output
+    * @return
+    */
+   public static double minimumAreaRectangle(final PointBuffer hull, final PointBuffer output) {
+      final double[] corners = new double[8];
+      final double area = RotatingCalipers.minimumAreaRectangle(hull, corners);
+
+      if (!hull.isEmpty()) {
+         for (int i = 0; i < corners.length; i += 2) {
+            output.add(corners[i], corners[i + 1]);
+         }
+      }
+
+      return area;
+   }
+
+   /**
+    * Runs every query over the given hull.
+    *
+    * @param hull
+    * @return
+    */
+   public static HullMeasures measure(final PointBuffer hull) {
+      final int[] pair = RotatingCalipers.farthestPair(hull);
+      final double diameter = (pair.length == 0) ? 0 : Math.sqrt(RotatingCalipers.distanceSquared(hull, pair[0], pair[1]));
+      final double[] rectangle = new double[(hull.isEmpty()) ? 0 : 8];
+      final double area = RotatingCalipers.minimumAreaRectangle(hull, rectangle);
+
+      if (Instrumentation.ENABLED) {
+         RotatingCalipers.MEASURED_HULLS.increment();
+      }
+
+      return new HullMeasures(pair, diameter, RotatingCalipers.width(hull), rectangle, area);
+   }
+
+   /**
+    * Measures every given hull over the common fork/join pool and returns the measures in the same order, or null if
+    * the token was cancelled first.
+    *
+    * @param hulls
+    * @param token
+    * @return
+    */
+   public static HullMeasures[] measure(final List<PointBuffer> hulls, final CancellationToken token) {
+      final HullMeasures[] measures = new HullMeasures[hulls.size()];
+
+      new Batch(hulls, measures, 0, measures.length, token).invoke();
+
+      return (token.isCancelled()) ? null : measures;
+   }
+
+   /**
+    * Writes the corners of the minimum area rectangle into the given array, if it has room, and returns its area. One
+    * side of the rectangle holds a hull edge; for each edge, in order, calipers track the vertices furthest along it,
+    * furthest back along it and furthest from it.
+    */
+   private static double minimumAreaRectangle(final PointBuffer hull, final double[] corners) {
+      final int size = hull.size();
+
+      if (size == 0) {
+         return 0;
+      } else if (size <= 2 || RotatingCalipers.isFlat(hull)) {
+         final int[] extremes = (size == 1) ? new int[] { 0, 0 } : RotatingCalipers.getExtremes(hull);
+
+         for (int i = 0; i < 4 && corners.length == 8; i++) {
+            // the first two corners are the first extreme and the last two the second
+            corners[i * 2] = hull.getX(extremes[i / 2]);
+            corners[i * 2 + 1] = hull.getY(extremes[i / 2]);
+         }
+
+         return 0;
+      }
+
+      int right = 0;
+      int top = RotatingCalipers.getFurthest(hull);
+      int left = 0;
+
+      // the first edge's calipers are found by a scan; every later edge's only move forward from there
+      for (int i = 1; i < size; i++) {
+         right = (RotatingCalipers.along(hull, 0, 1, i) > RotatingCalipers.along(hull, 0, 1, right)) ? i : right;
+         left = (RotatingCalipers.along(hull, 0, 1, i) < RotatingCalipers.along(hull, 0, 1, left)) ? i : left;
+      }
+
+      double bestArea = Double.MAX_VALUE;
+      int bestEdge = 0;
+      int bestRight = right;
+      int bestTop = top;
+      int bestLeft = left;
+
+      for (int i = 0; i < size; i++) {
+         final int next = (i + 1) % size;
+
+         while (RotatingCalipers.along(hull, i, next, (right + 1) % size) > RotatingCalipers.along(hull, i, next, right)) {
+            right = (right + 1) % size;
+         }
+
+         while (RotatingCalipers.height(hull, i, next, (top + 1) % size) > RotatingCalipers.height(hull, i, next, top)) {
+            top = (top + 1) % size;
+         }
+
+         while (RotatingCalipers.along(hull, i, next, (left + 1) % size) < RotatingCalipers.along(hull, i, next, left)) {
+            left = (left + 1) % size;
+         }
+
+         // both projections are scaled by the edge length squared
+         final double length = RotatingCalipers.distanceSquared(hull, i, next);
+         final double area = (RotatingCalipers.along(hull, i, next, right) - RotatingCalipers.along(hull, i, next, left)) * RotatingCalipers.height(hull, i, next, top) / length;
+
+         if (area < bestArea) {
+            bestArea = area;
+            bestEdge = i;
+            bestRight = right;
+            bestTop = top;
+            bestLeft = left;
+         }
+      }
+
+      if (corners.length == 8) {
+         final int next = (bestEdge + 1) % size;
+         final double length = Math.sqrt(RotatingCalipers.distanceSquared(hull, bestEdge, next));
+         final double ux = (hull.getX(next) - hull.getX(bestEdge)) / length;
+         final double uy = (hull.getY(next) - hull.getY(bestEdge)) / length;
+         final double minAlong = RotatingCalipers.along(hull, bestEdge, next, bestLeft) / length;
+         final double maxAlong = RotatingCalipers.along(hull, bestEdge, next, bestRight) / length;
+         final double height = RotatingCalipers.height(hull, bestEdge, next, bestTop) / length;
+         final double x = hull.getX(bestEdge);
+         final double y = hull.getY(bestEdge);
+
+         // the edge's normal (-uy, ux) points into the hull
+         corners[0] = x + ux * minAlong;
+         corners[1] = y + uy * minAlong;
+         corners[2] = x + ux * maxAlong;
+         corners[3] = y + uy * maxAlong;
+         corners[4] = corners[2] - uy * height;
+         corners[5] = corners[3] + ux * height;
+         corners[6] = corners[0] - uy * height;
+         corners[7] = corners[1] + ux * height;
+      }
+
+      return bestArea;
+   }
+
+   /**
+    * Returns twice the area of the triangle of the edge from a to b and the vertex c, which is the distance from c to the
+    * edge's line scaled by the edge's length.
+    */
+   private static double height(final PointBuffer hull, final int a, final int b, final int c) {
+      return GeometricPredicates.orient2d(hull.getX(a), hull.getY(a), hull.getX(b), hull.getY(b), hull.getX(c), hull.getY(c));
+   }
+
+   /**
+    * Returns the projection of the vertex c onto the edge from a to b, measured from a and scaled by the edge's length.
+    */
+   private static double along(final PointBuffer hull, final int a, final int b, final int c) {
+      return (hull.getX(b) - hull.getX(a)) * (hull.getX(c) - hull.getX(a)) + (hull.getY(b) - hull.getY(a)) * (hull.getY(c) - hull.getY(a));
+   }
+
+   private static double distanceSquared(final PointBuffer hull, final int a, final int b) {
+      final double dx = hull.getX(b) - hull.getX(a);
+      final double dy = hull.getY(b) - hull.getY(a);
+      return dx * dx + dy * dy;
+   }
+
+   /**
+    * Returns the vertex furthest from the first edge, where the caliper opposite the edges starts; starting from the
+    * vertex after the edge instead would stall on any collinear vertices that follow it.
+    */
+   private static int getFurthest(final PointBuffer hull) {
+      int furthest = 1;
+
+      for (int i = 2; i < hull.size(); i++) {
+         furthest = (RotatingCalipers.height(hull, 0, 1, i) > RotatingCalipers.height(hull, 0, 1, furthest)) ? i : furthest;
+      }
+
+      return furthest;
+   }
+
+   /**
+    * Returns the indices of the lowest of the left-most vertices and the highest of the right-most ones.
+    */
+   private static int[] getExtremes(final PointBuffer hull) {
+      int min = 0;
+      int max = 0;
+
+      for (int i = 1; i < hull.size(); i++) {
+         final double x = hull.getX(i);
+         final double y = hull.getY(i);
+
+         if (x < hull.getX(min) || (x == hull.getX(min) && y < hull.getY(min))) {
+            min = i;
+         }
+
+         if (x > hull.getX(max) || (x == hull.getX(max) && y > hull.getY(max))) {
+            max = i;
+         }
+      }
+
+      return new int[] { min, max };
+   }
+
+   /**
+    * Returns true if every vertex lies on one line.
+    */
+   private static boolean isFlat(final PointBuffer hull) {
+      final int[] extremes = RotatingCalipers.getExtremes(hull);
+
+      for (int i = 0; i < hull.size(); i++) {
+         if (GeometricPredicates.orientation(hull.getX(extremes[0]), hull.getY(extremes[0]), hull.getX(extremes[1]), hull.getY(extremes[1]), hull.getX(i), hull.getY(i)) != 0) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Measures a range of hulls, forking its two halves until they are small enough to measure on one thread.
+    */
+   private static class Batch extends RecursiveAction {
+      private static final long       serialVersionUID = 2384559281349207815L;
+
+      private final List<PointBuffer> hulls;
+      private final HullMeasures[]    measures;
+      private final int               from;
+      private final int               to;
+      private final CancellationToken token;
+
+      public Batch(final List<PointBuffer> hulls, final HullMeasures[] measures, final int from, final int to, final CancellationToken token) {
+         this.hulls = hulls;
+         this.measures = measures;
+         this.from = from;
+         this.to = to;
+         this.token = token;
+      }
+
+      @Override
+      protected void compute() {
+         if (this.to - this.from > RotatingCalipers.BATCH_SIZE) {
+            final int middle = (this.from + this.to) >>> 1;
+
+            RecursiveAction.invokeAll(new Batch(this.hulls, this.measures, this.from, middle, this.token), new Batch(this.hulls, this.measures, middle, this.to, this.token));
+            return;
+         }
+
+         for (int i = this.from; i < this.to && !this.token.isCancelled(); i++) {
+            this.measures[i] = RotatingCalipers.measure(this.hulls.get(i));
+         }
+      }
+   }
+}
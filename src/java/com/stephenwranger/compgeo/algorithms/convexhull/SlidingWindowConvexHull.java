@@ -0,0 +1,411 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.graphics.math.Tuple2d;
+
+/**
+ * The convex hull of the most recent points of a time ordered stream, either the last <code>capacity</code> points or,
+ * through {@link #expireBefore(long)}, the points newer than some time. Points are kept in a two stack queue: new points
+ * are pushed on the back stack, whose hull each push extends, and expired from the front stack, whose hull is that of
+ * every point on it. When the front stack runs out the back stack is moved onto it, newest point first. Each stack's
+ * hull is a single {@link LinkedHull}; adding a point to it only relinks the two vertices around the point and records
+ * their old links, so expiring the front stack's oldest point restores the hull of the newer ones in O(1) and the front
+ * stack takes O(n) memory. The window's hull is the merge of the two stacks' hulls.
+ * <p>
+ * Adding a point walks the hull to find the vertices it hides, so pushes take O(h) amortized time, expires O(1) besides
+ * their share of the flips and reading the hull O(h), where h bounds the hull size of the window. That is against
+ * O(n log n) to recompute the hull from scratch, but h is not bounded below the window size: for points in convex
+ * position, e.g. on a circle, every push costs O(n). Hull vertices are returned counter-clockwise starting at the
+ * left-most point; collinear points on hull edges are dropped. Not thread safe.
+ */
+public class SlidingWindowConvexHull {
+   private static final Counter FLIPS          = Instrumentation.counter(SlidingWindowConvexHull.class, "flips");
+   private static final Counter FLIPPED_POINTS = Instrumentation.counter(SlidingWindowConvexHull.class, "flippedPoints");
+
+   private static final int     INITIAL_SIZE   = 16;
+   private static final int     NONE           = -1;
+
+   private final int            capacity;
+
+   // the front stack; its top, the last point added to its hull, is the oldest point in the window
+   private final LinkedHull     front          = new LinkedHull();
+   private long[]               frontTimes     = new long[SlidingWindowConvexHull.INITIAL_SIZE];
+
+   // the back stack, oldest first
+   private final LinkedHull     back           = new LinkedHull();
+   private long[]               backTimes      = new long[SlidingWindowConvexHull.INITIAL_SIZE];
+
+   private final PointBuffer    frontHull      = new PointBuffer();
+   private final PointBuffer    backHull       = new PointBuffer();
+   private long                 lastTime       = Long.MIN_VALUE;
+
+   /**
+    * Creates a window bounded only by {@link #expire()} and {@link #expireBefore(long)}.
+    */
+   public SlidingWindowConvexHull() {
+      this(0);
+   }
+
+   /**
+    * Creates a window holding at most the given number of points; once full, each push expires the oldest point. A
+    * capacity of zero or less leaves the window unbounded.
+    *
+    * @param capacity
+    */
+   public SlidingWindowConvexHull(final int capacity) {
+      this.capacity = capacity;
+   }
+
+   /**
+    * Returns the number of points in the window.
+    *
+    * @return
+    */
+   public int size() {
+      return this.front.count + this.back.count;
+   }
+
+   public boolean isEmpty() {
+      return this.size() == 0;
+   }
+
+   /**
+    * Adds the given point, stamped with the given time, as the newest point in the window. Times must not decrease from
+    * one push to the next.
+    *
+    * @param x
+    * @param y
+    * @param time
+    */
+   public void push(final double x, final double y, final long time) {
+      if (Double.isNaN(x) || Double.isNaN(y)) {
+         throw new IllegalArgumentException("Invalid point: " + x + ", " + y);
+      } else if (time < this.lastTime) {
+         throw new IllegalArgumentException("Point time " + time + " is older than the newest point's time, " + this.lastTime + ".");
+      }
+
+      if (this.capacity > 0 && this.size() == this.capacity) {
+         this.expire();
+      }
+
+      final int size = this.back.count;
+
+      if (size == this.backTimes.length) {
+         this.backTimes = Arrays.copyOf(this.backTimes, size * 2);
+      }
+
+      this.back.add(x, y);
+      this.backTimes[size] = time;
+      this.lastTime = time;
+   }
+
+   public void push(final Tuple2d point, final long time) {
+      this.push(point.x, point.y, time);
+   }
+
+   /**
+    * Removes the oldest point and returns true, or returns false if the window is empty.
+    *
+    * @return
+    */
+   public boolean expire() {
+      if (this.size() == 0) {
+         return false;
+      }
+
+      if (this.front.count == 0) {
+         this.flip();
+      }
+
+      this.front.removeLast();
+
+      return true;
+   }
+
+   /**
+    * Removes every point older than the given time and returns the number removed.
+    *
+    * @param time
+    * @return
+    */
+   public int expireBefore(final long time) {
+      int count = 0;
+
+      while (this.size() > 0 && this.getOldestTime() < time) {
+         this.expire();
+         count++;
+      }
+
+      return count;
+   }
+
+   /**
+    * Returns the time of the oldest point in the window.
+    *
+    * @return
+    */
+   public long getOldestTime() {
+      if (this.front.count > 0) {
+         return this.frontTimes[this.front.count - 1];
+      } else if (this.back.count > 0) {
+         return this.backTimes[0];
+      }
+
+      throw new IllegalStateException("The window is empty.");
+   }
+
+   /**
+    * Removes every point.
+    */
+   public void clear() {
+      this.front.clear();
+      this.back.clear();
+      this.lastTime = Long.MIN_VALUE;
+   }
+
+   /**
+    * Appends the hull vertices of the window to the given buffer, counter-clockwise starting at the left-most point.
+    *
+    * @param output
+    */
+   public void getHull(final PointBuffer output) {
+      if (this.front.count == 0) {
+         this.back.getHull(output);
+      } else {
+         this.frontHull.clear();
+         this.backHull.clear();
+         this.front.getHull(this.frontHull);
+         this.back.getHull(this.backHull);
+         StreamingConvexHull.merge(this.frontHull, this.backHull, output);
+      }
+   }
+
+   /**
+    * Appends the hull vertices of the window to the given list, counter-clockwise starting at the left-most point.
+    *
+    * @param output
+    */
+   public void getHull(final List<Tuple2d> output) {
+      final PointBuffer hull = new PointBuffer();
+      this.getHull(hull);
+      hull.toTuples(output);
+   }
+
+   /**
+    * Moves the back stack onto the front stack, newest point first, so the oldest point ends up on top.
+    */
+   private void flip() {
+      final int size = this.back.count;
+
+      // the front stack is empty, so it can be reallocated without copying
+      if (size > this.frontTimes.length) {
+         this.frontTimes = new long[Math.max(size, this.frontTimes.length * 2)];
+      }
+
+      this.front.ensureCapacity(size);
+
+      for (int i = size - 1; i >= 0; i--) {
+         this.frontTimes[this.front.count] = this.backTimes[i];
+         this.front.add(this.back.xs[i], this.back.ys[i]);
+      }
+
+      this.back.clear();
+
+      if (Instrumentation.ENABLED) {
+         SlidingWindowConvexHull.FLIPS.increment();
+         SlidingWindowConvexHull.FLIPPED_POINTS.add(size);
+      }
+   }
+
+   /**
+    * The hull of a stack of points, kept as a cyclic, counter-clockwise doubly linked list over the points' indices.
+    * Adding a point links it between the two vertices it can see past, the left and right tangents, without touching
+    * the links of the vertices it hides, and records the tangents' old links, so removing the most recently added
+    * point only links the hidden chain back in.
+    */
+   private static class LinkedHull {
+      private double[] xs         = new double[SlidingWindowConvexHull.INITIAL_SIZE];
+      private double[] ys         = new double[SlidingWindowConvexHull.INITIAL_SIZE];
+      private int[]    next       = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+      private int[]    previous   = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+
+      // what adding each point changed, to undo it; the left tangent is NONE if the hull was left as it was
+      private int[]    lefts      = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+      private int[]    leftNexts  = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+      private int[]    rights     = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+      private int[]    rightPrevs = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+      private int[]    oldStarts  = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+      private int[]    oldSizes   = new int[SlidingWindowConvexHull.INITIAL_SIZE];
+
+      /** The number of points on the stack. */
+      private int      count      = 0;
+      /** The left-most hull vertex. */
+      private int      start      = SlidingWindowConvexHull.NONE;
+      /** The number of hull vertices. */
+      private int      size       = 0;
+
+      /**
+       * Pushes the given point and adds it to the hull in O(h).
+       */
+      private void add(final double x, final double y) {
+         if (this.count == this.xs.length) {
+            this.ensureCapacity(this.count * 2);
+         }
+
+         final int point = this.count++;
+
+         this.xs[point] = x;
+         this.ys[point] = y;
+         this.lefts[point] = SlidingWindowConvexHull.NONE;
+         this.oldStarts[point] = this.start;
+         this.oldSizes[point] = this.size;
+
+         if (this.size == 0) {
+            this.next[point] = point;
+            this.previous[point] = point;
+            this.start = point;
+            this.size = 1;
+            return;
+         }
+
+         // find an edge the point lies outside of
+         int visible = this.start;
+         int steps = 0;
+
+         while (steps < this.size && !this.isVisible(visible, point)) {
+            visible = this.next[visible];
+            steps++;
+         }
+
+         if (steps == this.size) {
+            // inside or on the hull
+            return;
+         }
+
+         // extend it to the whole chain of visible edges, from the left to the right tangent
+         int left = visible;
+         int right = this.next[visible];
+         steps = 1;
+
+         while (steps < this.size && this.isVisible(this.previous[left], point)) {
+            left = this.previous[left];
+            steps++;
+         }
+
+         while (steps < this.size && this.isVisible(right, point)) {
+            right = this.next[right];
+            steps++;
+         }
+
+         if (steps == this.size) {
+            // every edge is visible, so the hull is a point or a segment the point is collinear with; keep the far end
+            left = (this.size == 2 && this.getDistance(this.next[this.start], point) > this.getDistance(this.start, point)) ? this.next[this.start] : this.start;
+            right = left;
+         }
+
+         int hidden = 0;
+
+         for (int i = this.next[left]; i != right; i = this.next[i]) {
+            hidden++;
+         }
+
+         this.lefts[point] = left;
+         this.leftNexts[point] = this.next[left];
+         this.rights[point] = right;
+         this.rightPrevs[point] = this.previous[right];
+
+         this.next[left] = point;
+         this.previous[point] = left;
+         this.next[point] = right;
+         this.previous[right] = point;
+         this.size += 1 - hidden;
+
+         if (x < this.xs[this.start] || (x == this.xs[this.start] && y < this.ys[this.start])) {
+            this.start = point;
+         }
+      }
+
+      /**
+       * Pops the most recently added point and restores the hull from before it was added in O(1).
+       */
+      private void removeLast() {
+         final int point = --this.count;
+         final int left = this.lefts[point];
+
+         if (left != SlidingWindowConvexHull.NONE) {
+            this.next[left] = this.leftNexts[point];
+            this.previous[this.rights[point]] = this.rightPrevs[point];
+         }
+
+         this.start = this.oldStarts[point];
+         this.size = this.oldSizes[point];
+      }
+
+      /**
+       * Returns whether the given point lies outside of the hull edge starting at the given vertex: strictly right of
+       * it or, collinear with it, beyond either end.
+       */
+      private boolean isVisible(final int vertex, final int point) {
+         final int end = this.next[vertex];
+         final int orientation = GeometricPredicates.orientation(this.xs[vertex], this.ys[vertex], this.xs[end], this.ys[end], this.xs[point], this.ys[point]);
+
+         if (orientation != 0) {
+            return orientation < 0;
+         }
+
+         final double x = this.xs[point];
+         final double y = this.ys[point];
+
+         return x < Math.min(this.xs[vertex], this.xs[end]) || x > Math.max(this.xs[vertex], this.xs[end]) || y < Math.min(this.ys[vertex], this.ys[end]) || y > Math.max(this.ys[vertex], this.ys[end]);
+      }
+
+      private double getDistance(final int i, final int j) {
+         final double dx = this.xs[j] - this.xs[i];
+         final double dy = this.ys[j] - this.ys[i];
+         return dx * dx + dy * dy;
+      }
+
+      /**
+       * Appends the hull vertices to the given buffer, counter-clockwise starting at the left-most point.
+       */
+      private void getHull(final PointBuffer output) {
+         output.ensureCapacity(output.size() + this.size);
+
+         for (int i = 0, vertex = this.start; i < this.size; i++, vertex = this.next[vertex]) {
+            output.add(this.xs[vertex], this.ys[vertex]);
+         }
+      }
+
+      private void clear() {
+         this.count = 0;
+         this.start = SlidingWindowConvexHull.NONE;
+         this.size = 0;
+      }
+
+      private void ensureCapacity(final int capacity) {
+         if (capacity > this.xs.length) {
+            this.xs = Arrays.copyOf(this.xs, capacity);
+            this.ys = Arrays.copyOf(this.ys, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.previous = Arrays.copyOf(this.previous, capacity);
+            this.lefts = Arrays.copyOf(this.lefts, capacity);
+            this.leftNexts = Arrays.copyOf(this.leftNexts, capacity);
+            this.rights = Arrays.copyOf(this.rights, capacity);
+            this.rightPrevs = Arrays.copyOf(this.rightPrevs, capacity);
+            this.oldStarts = Arrays.copyOf(this.oldStarts, capacity);
+            this.oldSizes = Arrays.copyOf(this.oldSizes, capacity);
+         }
+      }
+
+      @Override
+      public String toString() {
+         return "LinkedHull[" + this.count + ", " + this.size + "]";
+      }
+   }
+}
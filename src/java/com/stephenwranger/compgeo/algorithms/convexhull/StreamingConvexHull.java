@@ -0,0 +1,241 @@
+package com.stephenwranger.compgeo.algorithms.convexhull;
+
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
+
+/**
+ * The convex hull of a point stream too large to hold at once. Each chunk of points passed to {@link #accept(PointBuffer)}
+ * is reduced to its hull with {@link ConvexHullQuickHull}, and that hull is merged into the hull of everything seen so
+ * far in time linear in the two hulls' sizes, so memory is bounded by the largest chunk plus the hull.
+ * <p>
+ * Pass it as the sink of {@link com.stephenwranger.compgeo.io.GeometryFile#readPoints(int, ResultSink)} or
+ * {@link com.stephenwranger.compgeo.io.TextGeometryParser#parsePoints(java.nio.file.Path, long, ResultSink)}. Hull
+ * vertices are kept counter-clockwise starting at the left-most point; collinear points on hull edges are dropped.
+ */
+public class StreamingConvexHull implements ResultSink<PointBuffer> {
+   private static final Counter    CHUNKS      = Instrumentation.counter(StreamingConvexHull.class, "chunks");
+   private static final Counter    CHUNK_HULLS = Instrumentation.counter(StreamingConvexHull.class, "chunkHullVertices");
+   private static final PhaseTimer CHUNK_HULL  = Instrumentation.timer(StreamingConvexHull.class, "chunkHull");
+   private static final PhaseTimer MERGE       = Instrumentation.timer(StreamingConvexHull.class, "merge");
+
+   /** The number of points read per chunk by default; 64MB of coordinates. */
+   public static final int         CHUNK_SIZE  = 1 << 22;
+
+   private final CancellationToken token;
+   private PointBuffer             hull        = new PointBuffer();
+   private long                    pointCount  = 0;
+
+   public StreamingConvexHull(final CancellationToken token) {
+      this.token = token;
+   }
+
+   /**
+    * Merges the hull of the given points into the hull so far; returns false, stopping the stream, once the token is
+    * cancelled.
+    *
+    * @param chunk
+    * @return
+    */
+   @Override
+   public boolean accept(final PointBuffer chunk) {
+      final long chunkStart = (Instrumentation.ENABLED) ? StreamingConvexHull.CHUNK_HULL.start() : 0;
+      final int[] indices = ConvexHullQuickHull.scan(chunk.getXs(), chunk.getYs(), chunk.size(), this.token);
+
+      if (indices == null) {
+         return false;
+      }
+
+      final PointBuffer chunkHull = new PointBuffer(indices.length);
+
+      for (final int index : indices) {
+         chunkHull.add(chunk, index);
+      }
+
+      if (Instrumentation.ENABLED) {
+         StreamingConvexHull.CHUNK_HULL.stop(chunkStart);
+         StreamingConvexHull.CHUNKS.increment();
+         StreamingConvexHull.CHUNK_HULLS.add(indices.length);
+      }
+
+      final long mergeStart = (Instrumentation.ENABLED) ? StreamingConvexHull.MERGE.start() : 0;
+      final PointBuffer merged = new PointBuffer(this.hull.size() + chunkHull.size());
+
+      StreamingConvexHull.merge(this.hull, chunkHull, merged);
+      this.hull = merged;
+      this.pointCount += chunk.size();
+
+      if (Instrumentation.ENABLED) {
+         StreamingConvexHull.MERGE.stop(mergeStart);
+      }
+
+      return !this.token.isCancelled();
+   }
+
+   /**
+    * Returns the hull of every point accepted so far.
+    *
+    * @return
+    */
+   public PointBuffer getHull() {
+      final PointBuffer copy = new PointBuffer(this.hull.size());
+
+      for (int i = 0; i < this.hull.size(); i++) {
+         copy.add(this.hull, i);
+      }
+
+      return copy;
+   }
+
+   /**
+    * Returns the number of points accepted so far.
+    *
+    * @return
+    */
+   public long getPointCount() {
+      return this.pointCount;
+   }
+
+   /**
+    * Appends the hull of the vertices of two hulls, each counter-clockwise starting at its left-most point, to the
+    * output buffer in the same order, in O(n + m). Each hull's lower and upper chains are already sorted by x and then
+    * y, so all four are merged into one sorted run and the monotone chain's stack passes finish the hull without a sort.
+    *
+    * @param first
+    * @param second
+    * @param output
+    */
+   public static void merge(final PointBuffer first, final PointBuffer second, final PointBuffer output) {
+      final int size = first.size() + second.size();
+
+      if (size == 0) {
+         return;
+      }
+
+      final double[] xs = new double[size];
+      final double[] ys = new double[size];
+      final double[] sortedXs = new double[size];
+      final double[] sortedYs = new double[size];
+
+      StreamingConvexHull.sortVertices(first, xs, ys, 0);
+      StreamingConvexHull.sortVertices(second, xs, ys, first.size());
+      StreamingConvexHull.merge(xs, ys, 0, first.size(), size, sortedXs, sortedYs, 0);
+
+      if (sortedXs[0] == sortedXs[size - 1] && sortedYs[0] == sortedYs[size - 1]) {
+         // every point is the same
+         output.add(sortedXs[0], sortedYs[0]);
+         return;
+      }
+
+      final int[] lower = new int[size];
+      final int[] upper = new int[size];
+      final int lowerSize = StreamingConvexHull.chain(sortedXs, sortedYs, size, false, lower);
+      final int upperSize = StreamingConvexHull.chain(sortedXs, sortedYs, size, true, upper);
+
+      output.ensureCapacity(output.size() + lowerSize + upperSize - 2);
+
+      // each chain ends where the other starts
+      for (int i = 0; i < lowerSize - 1; i++) {
+         output.add(sortedXs[lower[i]], sortedYs[lower[i]]);
+      }
+
+      for (int i = 0; i < upperSize - 1; i++) {
+         output.add(sortedXs[upper[i]], sortedYs[upper[i]]);
+      }
+   }
+
+   /**
+    * Writes the vertices of the given hull to the arrays from the given offset, sorted by x and then y, by merging its
+    * lower chain with its reversed upper chain.
+    */
+   private static void sortVertices(final PointBuffer hull, final double[] xs, final double[] ys, final int offset) {
+      final int size = hull.size();
+
+      if (size <= 2) {
+         for (int i = 0; i < size; i++) {
+            xs[offset + i] = hull.getX(i);
+            ys[offset + i] = hull.getY(i);
+         }
+
+         return;
+      }
+
+      // the lower chain runs from the first vertex to the right-most one and the upper chain back again
+      int last = 0;
+
+      for (int i = 1; i < size; i++) {
+         if (StreamingConvexHull.compare(hull.getX(i), hull.getY(i), hull.getX(last), hull.getY(last)) > 0) {
+            last = i;
+         }
+      }
+
+      int lower = 1;
+      int upper = size - 1;
+      int index = offset;
+
+      xs[index] = hull.getX(0);
+      ys[index++] = hull.getY(0);
+
+      while (lower < last || upper > last) {
+         if (upper == last || (lower < last && StreamingConvexHull.compare(hull.getX(lower), hull.getY(lower), hull.getX(upper), hull.getY(upper)) <= 0)) {
+            xs[index] = hull.getX(lower);
+            ys[index++] = hull.getY(lower++);
+         } else {
+            xs[index] = hull.getX(upper);
+            ys[index++] = hull.getY(upper--);
+         }
+      }
+
+      xs[index] = hull.getX(last);
+      ys[index] = hull.getY(last);
+   }
+
+   /**
+    * Merges the sorted runs <code>[from, middle)</code> and <code>[middle, to)</code> into the output arrays.
+    */
+   private static void merge(final double[] xs, final double[] ys, final int from, final int middle, final int to, final double[] outputXs, final double[] outputYs, final int offset) {
+      int i = from;
+      int j = middle;
+      int index = offset;
+
+      while (i < middle || j < to) {
+         if (j == to || (i < middle && StreamingConvexHull.compare(xs[i], ys[i], xs[j], ys[j]) <= 0)) {
+            outputXs[index] = xs[i];
+            outputYs[index++] = ys[i++];
+         } else {
+            outputXs[index] = xs[j];
+            outputYs[index++] = ys[j++];
+         }
+      }
+   }
+
+   /**
+    * Builds the lower chain, left to right, or the upper chain, right to left, of the sorted points into the given stack
+    * and returns its size.
+    */
+   private static int chain(final double[] xs, final double[] ys, final int size, final boolean isUpper, final int[] stack) {
+      int top = -1;
+      int next;
+
+      for (int i = 0; i < size; i++) {
+         next = (isUpper) ? size - 1 - i : i;
+
+         while (top > 0 && GeometricPredicates.orientation(xs[stack[top - 1]], ys[stack[top - 1]], xs[stack[top]], ys[stack[top]], xs[next], ys[next]) <= 0) {
+            top--;
+         }
+
+         stack[++top] = next;
+      }
+
+      return top + 1;
+   }
+
+   private static int compare(final double x1, final double y1, final double x2, final double y2) {
+      final int result = Double.compare(x1, x2);
+      return (result == 0) ? Double.compare(y1, y2) : result;
+   }
+}
@@ -13,17 +13,25 @@ import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.activity.InvalidActivityException;
 
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
 import com.stephenwranger.graphics.collections.Pair;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.Tuple3d;
 import com.stephenwranger.graphics.math.intersection.IntersectionUtils;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
 import com.stephenwranger.graphics.math.intersection.Triangle2d;
-import com.stephenwranger.graphics.renderables.Circle;
 import com.stephenwranger.graphics.utils.Iterative;
 import com.stephenwranger.graphics.utils.IterativeListener;
 
 public class DelaunayTriangulation implements Iterative {
+   private static final Counter                    CIRCUMCIRCLE_TESTS  = Instrumentation.counter(DelaunayTriangulation.class, "circumcircleTests");
+   private static final Counter                    TRIANGLES_REPLACED  = Instrumentation.counter(DelaunayTriangulation.class, "trianglesReplaced");
+   private static final Counter                    EDGE_FLIPS          = Instrumentation.counter(DelaunayTriangulation.class, "edgeFlips");
+   private static final PhaseTimer                 INSERT              = Instrumentation.timer(DelaunayTriangulation.class, "insert");
+
    private final List<Tuple2d>                     vertices            = new ArrayList<>();
    private final Map<LineSegment, Set<Triangle2d>> edgesToTrianglesMap = new HashMap<>();
    private final Set<Triangle2d>                   triangles           = new CopyOnWriteArraySet<>();
@@ -135,11 +143,9 @@ public class DelaunayTriangulation implements Iterative {
 
    private void addTriangle(final Triangle2d triangle) {
       final Tuple2d[] corners = triangle.getCorners(false);
-      final double left = (corners[1].y - corners[0].y) * (corners[2].x - corners[1].x);
-      final double right = (corners[2].y - corners[1].y) * (corners[1].x - corners[0].x);
 
       // triangle vertices are colinear and we're going to ignore that
-      if (IntersectionUtils.isEqual(left, right)) {
+      if (GeometricPredicates.orientation(corners[0], corners[1], corners[2]) == 0) {
          return;
       }
 
@@ -167,6 +173,7 @@ public class DelaunayTriangulation implements Iterative {
    }
 
    private void addVertexImpl(final Tuple2d vertex, final boolean sendIterativeListenerNotifications) {
+      final long insertStart = (Instrumentation.ENABLED) ? DelaunayTriangulation.INSERT.start() : 0;
       DelaunayTriangulation.this.vertices.add(vertex);
 
       DelaunayTriangulation.this.notifyListeners("Adding New Vertex: " + vertex, sendIterativeListenerNotifications, vertex);
@@ -175,20 +182,28 @@ public class DelaunayTriangulation implements Iterative {
          DelaunayTriangulation.this.addTriangle(new Triangle2d(DelaunayTriangulation.this.vertices.get(0), DelaunayTriangulation.this.vertices.get(1), DelaunayTriangulation.this.vertices.get(2), false));
       } else if (DelaunayTriangulation.this.vertices.size() > 3) {
          final List<Triangle2d> needsReplacing = new ArrayList<>();
-         Circle c = null;
+         Tuple2d[] corners;
 
          DelaunayTriangulation.this.notifyListeners("Checking New Point against existing Triangles' Circumscribed Circles.", sendIterativeListenerNotifications);
          for (final Triangle2d t : DelaunayTriangulation.this.triangles) {
-            c = t.getCircumscribedCircle();
+            corners = t.getCorners(false);
+
+            if (Instrumentation.ENABLED) {
+               DelaunayTriangulation.CIRCUMCIRCLE_TESTS.increment();
+            }
 
-            if (c.contains(vertex)) {
-               DelaunayTriangulation.this.notifyListeners("\tFound intersecting circumcircle.", sendIterativeListenerNotifications, t, c);
+            if (GeometricPredicates.isInCircle(corners[0], corners[1], corners[2], vertex)) {
+               DelaunayTriangulation.this.notifyListeners("\tFound intersecting circumcircle.", sendIterativeListenerNotifications, t, t.getCircumscribedCircle());
                needsReplacing.add(t);
             }
          }
 
          DelaunayTriangulation.this.notifyListeners("Found " + needsReplacing.size() + " triangles that need updating; removing them from the triangulation.", sendIterativeListenerNotifications, needsReplacing.toArray());
 
+         if (Instrumentation.ENABLED) {
+            DelaunayTriangulation.TRIANGLES_REPLACED.add(needsReplacing.size());
+         }
+
          final List<LineSegment> edges = new ArrayList<>();
          final List<LineSegment> output = new ArrayList<>();
          final Set<Triangle2d> newTriangles = new HashSet<>();
@@ -243,12 +258,18 @@ public class DelaunayTriangulation implements Iterative {
          }
       }
 
+      if (Instrumentation.ENABLED) {
+         DelaunayTriangulation.INSERT.stop(insertStart);
+      }
+
       DelaunayTriangulation.this.notifyListeners("Addition of new Vertex complete.", sendIterativeListenerNotifications, vertex);
       DelaunayTriangulation.this.isBusy = false;
    }
 
    /**
-    * Checks if the two given triangles form a valid delaunay triangulation and if not, flips their common edge.
+    * Checks if the two given triangles form a valid delaunay triangulation and if not, flips their common edge. The pair
+    * is invalid when the vertex of t2 opposite the common edge lies inside the circumcircle of t1, which is equivalent to
+    * the two angles opposite the common edge summing to more than 180 degrees.
     *
     * @param t1
     * @param t2
@@ -259,11 +280,10 @@ public class DelaunayTriangulation implements Iterative {
       final Pair<LineSegment, LineSegment> corner1 = t1.getOppositeEdges(edge);
       final Pair<LineSegment, LineSegment> corner2 = t2.getOppositeEdges(edge);
 
-      final double angle = Math.toDegrees(Math.abs(corner1.left.getAngle(corner1.right)) + Math.abs(corner2.left.getAngle(corner2.right)));
+      final Tuple2d commonVertex1 = corner1.left.getCommonVertex(corner1.right);
+      final Tuple2d commonVertex2 = corner2.left.getCommonVertex(corner2.right);
 
-      if (angle > 180.0) {
-         final Tuple2d commonVertex1 = corner1.left.getCommonVertex(corner1.right);
-         final Tuple2d commonVertex2 = corner2.left.getCommonVertex(corner2.right);
+      if (GeometricPredicates.isInCircle(edge.min, edge.max, commonVertex1, commonVertex2)) {
          final Triangle2d newT1 = new Triangle2d(edge.min, commonVertex1, commonVertex2, false);
          final Triangle2d newT2 = new Triangle2d(edge.max, commonVertex1, commonVertex2, false);
          if(!this.vertices.contains(edge.min)) System.out.println("3. vertex not in input: " + edge.min);
@@ -349,6 +369,10 @@ public class DelaunayTriangulation implements Iterative {
                toCheckNext.add(newTriangles.left);
                toCheckNext.add(newTriangles.right);
 
+               if (Instrumentation.ENABLED) {
+                  DelaunayTriangulation.EDGE_FLIPS.increment();
+               }
+
                hasFlipped = true;
             }
          }
@@ -42,6 +42,8 @@ import javax.swing.SwingUtilities;
 import javax.swing.border.BevelBorder;
 import javax.swing.filechooser.FileFilter;
 
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.io.GeometryFile;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.Tuple3d;
 import com.stephenwranger.graphics.math.intersection.IntersectionUtils;
@@ -217,6 +219,9 @@ public class InteractiveDelaunay {
       final JButton loadFileVl2Button = new JButton("Load VL2 File");
       loadFileVl2Button.addActionListener(InteractiveDelaunay.getFileListener(loadFileVl2Button, dt, ".vl2", FileMode.LOAD));
 
+      final JButton loadFileGeometryButton = new JButton("Load CGEO File");
+      loadFileGeometryButton.addActionListener(InteractiveDelaunay.getFileListener(loadFileGeometryButton, dt, GeometryFile.EXTENSION, FileMode.LOAD));
+
       final JButton saveFilePlyButton = new JButton("Save PLY File");
       saveFilePlyButton.addActionListener(InteractiveDelaunay.getFileListener(saveFilePlyButton, dt, ".ply", FileMode.SAVE));
       final JButton saveFileVl2Button = new JButton("Save VL2 File");
@@ -239,6 +244,9 @@ public class InteractiveDelaunay {
       loadFileVl2Button.setAlignmentX(Component.LEFT_ALIGNMENT);
       leftPanel.add(loadFileVl2Button);
 
+      loadFileGeometryButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+      leftPanel.add(loadFileGeometryButton);
+
       saveFilePlyButton.setAlignmentX(Component.LEFT_ALIGNMENT);
       leftPanel.add(saveFilePlyButton);
 
@@ -352,6 +360,18 @@ public class InteractiveDelaunay {
          VertexListLoader.loadVertexList2d(file, tempVertices);
          // make sure we don't have duplicates
          vertices.addAll(tempVertices);
+      } else if (GeometryFile.isGeometryFile(file.toPath())) {
+         final PointBuffer points;
+
+         // copy every point out of the mapped file in one pass rather than locking on each coordinate
+         try (final GeometryFile geometryFile = GeometryFile.open(file.toPath())) {
+            points = geometryFile.readPoints();
+         }
+
+         // the file may repeat a point, which the set keeps only once
+         for (int i = 0; i < points.size(); i++) {
+            vertices.add(new Tuple2d(points.getX(i), points.getY(i)));
+         }
       }
 
       for (final Tuple2d vertex : vertices) {
@@ -0,0 +1,37 @@
+package com.stephenwranger.compgeo.algorithms.instrumentation;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count of operations, e.g. orientation tests or event-queue inserts.
+ */
+public class Counter extends Metric {
+   private final LongAdder count = new LongAdder();
+
+   Counter(final String name) {
+      super(name);
+   }
+
+   public void increment() {
+      this.count.increment();
+   }
+
+   public void add(final long amount) {
+      this.count.add(amount);
+   }
+
+   public long get() {
+      return this.count.sum();
+   }
+
+   @Override
+   public void snapshot(final Map<String, Long> output) {
+      output.put(this.getName(), this.get());
+   }
+
+   @Override
+   public void reset() {
+      this.count.reset();
+   }
+}
@@ -0,0 +1,121 @@
+package com.stephenwranger.compgeo.algorithms.instrumentation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registry of per-engine operation counters and phase timers. Instrumentation is off unless the JVM is started with
+ * <code>-Dcompgeo.instrumentation=true</code>; engines guard every update with {@link #ENABLED}, a static final flag, so
+ * the JIT removes the updates entirely when disabled.
+ *
+ * <pre>
+ * private static final Counter ORIENTATION_TESTS = Instrumentation.counter(ConvexHullJarvisMarch.class, "orientationTests");
+ *
+ * if (Instrumentation.ENABLED) {
+ *    ORIENTATION_TESTS.increment();
+ * }
+ * </pre>
+ *
+ * Metrics are shared by every instance of an engine and are safe to update from multiple threads; read them after a run
+ * through {@link #snapshot()} or {@link #report()}.
+ */
+public class Instrumentation {
+   public static final boolean              ENABLED = Boolean.getBoolean("compgeo.instrumentation");
+
+   private static final Map<String, Metric> METRICS = new TreeMap<String, Metric>();
+
+   private Instrumentation() {
+      // statics only
+   }
+
+   /**
+    * Returns the counter with the given name for the given engine, registering it if needed.
+    *
+    * @param engine
+    * @param name
+    * @return
+    */
+   public static Counter counter(final Class<?> engine, final String name) {
+      return Instrumentation.register(new Counter(Instrumentation.getName(engine, name)));
+   }
+
+   /**
+    * Returns the maximum tracker with the given name for the given engine, registering it if needed.
+    *
+    * @param engine
+    * @param name
+    * @return
+    */
+   public static Maximum maximum(final Class<?> engine, final String name) {
+      return Instrumentation.register(new Maximum(Instrumentation.getName(engine, name)));
+   }
+
+   /**
+    * Returns the phase timer with the given name for the given engine, registering it if needed.
+    *
+    * @param engine
+    * @param name
+    * @return
+    */
+   public static PhaseTimer timer(final Class<?> engine, final String name) {
+      return Instrumentation.register(new PhaseTimer(Instrumentation.getName(engine, name)));
+   }
+
+   /**
+    * Returns the current value of every registered metric keyed by "Engine.metric", in name order.
+    *
+    * @return
+    */
+   public static synchronized Map<String, Long> snapshot() {
+      final Map<String, Long> values = new LinkedHashMap<String, Long>();
+
+      for (final Metric metric : Instrumentation.METRICS.values()) {
+         metric.snapshot(values);
+      }
+
+      return values;
+   }
+
+   /**
+    * Resets every registered metric; call between runs to measure them individually.
+    */
+   public static synchronized void reset() {
+      for (final Metric metric : Instrumentation.METRICS.values()) {
+         metric.reset();
+      }
+   }
+
+   /**
+    * Returns a human readable listing of every registered metric, one per line.
+    *
+    * @return
+    */
+   public static String report() {
+      final StringBuilder sb = new StringBuilder();
+
+      for (final Map.Entry<String, Long> entry : Instrumentation.snapshot().entrySet()) {
+         sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+      }
+
+      return sb.toString();
+   }
+
+   @SuppressWarnings("unchecked")
+   private static synchronized <M extends Metric> M register(final M metric) {
+      final Metric existing = Instrumentation.METRICS.get(metric.getName());
+
+      if (existing == null) {
+         Instrumentation.METRICS.put(metric.getName(), metric);
+         return metric;
+      } else if (existing.getClass() != metric.getClass()) {
+         throw new IllegalArgumentException("Metric " + metric.getName() + " is already registered as a " + existing.getClass().getSimpleName());
+      }
+
+      return (M) existing;
+   }
+
+   private static String getName(final Class<?> engine, final String name) {
+      return engine.getSimpleName() + "." + name;
+   }
+}
@@ -0,0 +1,39 @@
+package com.stephenwranger.compgeo.algorithms.instrumentation;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * The largest value recorded, e.g. the deepest search structure walk seen during a run.
+ */
+public class Maximum extends Metric {
+   private final LongAccumulator maximum = new LongAccumulator(new LongBinaryOperator() {
+      @Override
+      public long applyAsLong(final long left, final long right) {
+         return Math.max(left, right);
+      }
+   }, 0);
+
+   Maximum(final String name) {
+      super(name);
+   }
+
+   public void record(final long value) {
+      this.maximum.accumulate(value);
+   }
+
+   public long get() {
+      return this.maximum.get();
+   }
+
+   @Override
+   public void snapshot(final Map<String, Long> output) {
+      output.put(this.getName(), this.get());
+   }
+
+   @Override
+   public void reset() {
+      this.maximum.reset();
+   }
+}
@@ -0,0 +1,30 @@
+package com.stephenwranger.compgeo.algorithms.instrumentation;
+
+import java.util.Map;
+
+/**
+ * Base class for named, thread-safe engine metrics registered with {@link Instrumentation}.
+ */
+public abstract class Metric {
+   private final String name;
+
+   protected Metric(final String name) {
+      this.name = name;
+   }
+
+   public String getName() {
+      return this.name;
+   }
+
+   /**
+    * Adds the current value(s) of this metric to the given map, keyed by name.
+    *
+    * @param output
+    */
+   public abstract void snapshot(final Map<String, Long> output);
+
+   /**
+    * Resets this metric to its initial state.
+    */
+   public abstract void reset();
+}
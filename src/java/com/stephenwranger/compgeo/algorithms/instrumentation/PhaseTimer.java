@@ -0,0 +1,51 @@
+package com.stephenwranger.compgeo.algorithms.instrumentation;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the time spent in, and number of executions of, one phase of an engine.
+ *
+ * <pre>
+ * final long start = TIMER.start();
+ * // phase
+ * TIMER.stop(start);
+ * </pre>
+ */
+public class PhaseTimer extends Metric {
+   private final LongAdder nanos = new LongAdder();
+   private final LongAdder count = new LongAdder();
+
+   PhaseTimer(final String name) {
+      super(name);
+   }
+
+   public long start() {
+      return System.nanoTime();
+   }
+
+   public void stop(final long start) {
+      this.nanos.add(System.nanoTime() - start);
+      this.count.increment();
+   }
+
+   public long getNanos() {
+      return this.nanos.sum();
+   }
+
+   public long getCount() {
+      return this.count.sum();
+   }
+
+   @Override
+   public void snapshot(final Map<String, Long> output) {
+      output.put(this.getName() + ".nanos", this.getNanos());
+      output.put(this.getName() + ".count", this.getCount());
+   }
+
+   @Override
+   public void reset() {
+      this.nanos.reset();
+      this.count.reset();
+   }
+}
@@ -3,38 +3,100 @@ package com.stephenwranger.compgeo.algorithms.segments;
 import java.util.List;
 
 import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
 
 public class BruteForceSegmentIntersectionAlgorithm implements Algorithm<LineSegment, Tuple2d> {
+   private static final Counter INTERSECTION_TESTS = Instrumentation.counter(BruteForceSegmentIntersectionAlgorithm.class, "intersectionTests");
+   private static final Counter INTERSECTIONS      = Instrumentation.counter(BruteForceSegmentIntersectionAlgorithm.class, "intersections");
 
    @Override
-   public boolean compute(final List<LineSegment> input, final List<Tuple2d> output, final long timeout) {
+   public boolean compute(final List<LineSegment> input, final List<Tuple2d> output, final CancellationToken token) {
+      return this.compute(input, ResultSink.toList(output), token);
+   }
+
+   /**
+    * Streams each intersection to the given sink as soon as it is found.
+    *
+    * @param input
+    * @param sink
+    * @param token
+    * @return
+    */
+   @Override
+   public boolean compute(final List<LineSegment> input, final ResultSink<Tuple2d> sink, final CancellationToken token) {
       LineSegment sI, sJ;
       Tuple2d intersection;
 
-      final long startTime = System.nanoTime();
-
       for (int i = 0; i < input.size() - 1; i++) {
          sI = input.get(i);
 
          for (int j = i + 1; j < input.size(); j++) {
-            if ((System.nanoTime() - startTime) / 1000000l > timeout) {
+            if (token.isCancelled()) {
                return false;
             }
 
             sJ = input.get(j);
             intersection = sI.intersect(sJ);
 
-            if (intersection != null) {
-               if (output != null) {
-                  output.add(intersection);
+            if (Instrumentation.ENABLED) {
+               BruteForceSegmentIntersectionAlgorithm.INTERSECTION_TESTS.increment();
+
+               if (intersection != null) {
+                  BruteForceSegmentIntersectionAlgorithm.INTERSECTIONS.increment();
                }
             }
+
+            if (intersection != null && !sink.accept(intersection)) {
+               return true;
+            }
          }
       }
 
       return true;
    }
 
+   /**
+    * Computes all pairwise intersections of the segments in the given primitive buffer, appending each intersection
+    * point to the output buffer (which may be null to only run the computation).
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   public boolean compute(final SegmentBuffer input, final PointBuffer output, final CancellationToken token) {
+      final double[] intersection = new double[2];
+      final int size = input.size();
+
+      for (int i = 0; i < size - 1; i++) {
+         for (int j = i + 1; j < size; j++) {
+            if (token.isCancelled()) {
+               return false;
+            }
+
+            final boolean intersects = input.intersect(i, j, intersection);
+
+            if (Instrumentation.ENABLED) {
+               BruteForceSegmentIntersectionAlgorithm.INTERSECTION_TESTS.increment();
+
+               if (intersects) {
+                  BruteForceSegmentIntersectionAlgorithm.INTERSECTIONS.increment();
+               }
+            }
+
+            if (intersects && output != null) {
+               output.add(intersection[0], intersection[1]);
+            }
+         }
+      }
+
+      return true;
+   }
 }
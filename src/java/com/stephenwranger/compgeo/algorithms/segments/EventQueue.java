@@ -0,0 +1,220 @@
+package com.stephenwranger.compgeo.algorithms.segments;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of sweep events stored in parallel primitive arrays, ordered by x, then y, then type, so queueing
+ * and comparing events allocates nothing. Segments are referred to by their index in the sweep's input; an event of a
+ * single segment has -1 as its second segment.
+ */
+class EventQueue {
+   private static final int DEFAULT_CAPACITY = 16;
+
+   private double[]         xs;
+   private double[]         ys;
+   private EventType[]      types;
+   private int[]            firsts;
+   private int[]            seconds;
+   private int              size             = 0;
+
+   /**
+    * Creates a new, empty EventQueue.
+    */
+   EventQueue() {
+      this(EventQueue.DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Creates a new, empty EventQueue able to hold the given number of events before growing.
+    *
+    * @param capacity
+    */
+   EventQueue(final int capacity) {
+      final int length = Math.max(1, capacity);
+
+      this.xs = new double[length];
+      this.ys = new double[length];
+      this.types = new EventType[length];
+      this.firsts = new int[length];
+      this.seconds = new int[length];
+   }
+
+   /**
+    * Adds the given event in O(log n).
+    *
+    * @param x
+    * @param y
+    * @param type
+    * @param first
+    * @param second
+    *           -1 for an event of a single segment
+    */
+   void add(final double x, final double y, final EventType type, final int first, final int second) {
+      if (this.size == this.xs.length) {
+         this.ensureCapacity(this.size * 2);
+      }
+
+      int index = this.size++;
+
+      this.set(index, x, y, type, first, second);
+
+      while (index > 0) {
+         final int parent = (index - 1) >>> 1;
+
+         if (this.compare(parent, index) <= 0) {
+            break;
+         }
+
+         this.swap(parent, index);
+         index = parent;
+      }
+   }
+
+   /**
+    * Removes the first event in O(log n).
+    */
+   void remove() {
+      if (this.size == 0) {
+         throw new IllegalStateException("The event queue is empty.");
+      }
+
+      this.size--;
+
+      if (this.size == 0) {
+         return;
+      }
+
+      this.set(0, this.xs[this.size], this.ys[this.size], this.types[this.size], this.firsts[this.size], this.seconds[this.size]);
+      this.types[this.size] = null;
+
+      int index = 0;
+
+      while (true) {
+         final int left = 2 * index + 1;
+
+         if (left >= this.size) {
+            break;
+         }
+
+         final int right = left + 1;
+         final int child = (right < this.size && this.compare(right, left) < 0) ? right : left;
+
+         if (this.compare(index, child) <= 0) {
+            break;
+         }
+
+         this.swap(index, child);
+         index = child;
+      }
+   }
+
+   /**
+    * Returns the x of the first event.
+    *
+    * @return
+    */
+   double getX() {
+      return this.xs[0];
+   }
+
+   /**
+    * Returns the y of the first event.
+    *
+    * @return
+    */
+   double getY() {
+      return this.ys[0];
+   }
+
+   /**
+    * Returns the type of the first event.
+    *
+    * @return
+    */
+   EventType getType() {
+      return this.types[0];
+   }
+
+   /**
+    * Returns the index of the first event's first segment.
+    *
+    * @return
+    */
+   int getFirst() {
+      return this.firsts[0];
+   }
+
+   /**
+    * Returns the index of the first event's second segment; -1 for an event of a single segment.
+    *
+    * @return
+    */
+   int getSecond() {
+      return this.seconds[0];
+   }
+
+   int size() {
+      return this.size;
+   }
+
+   boolean isEmpty() {
+      return this.size == 0;
+   }
+
+   /**
+    * Removes all events; the backing arrays are retained for reuse.
+    */
+   void clear() {
+      Arrays.fill(this.types, 0, this.size, null);
+      this.size = 0;
+   }
+
+   /**
+    * Grows the backing arrays, if needed, so they can hold at least the given number of events.
+    *
+    * @param capacity
+    */
+   void ensureCapacity(final int capacity) {
+      if (capacity > this.xs.length) {
+         this.xs = Arrays.copyOf(this.xs, capacity);
+         this.ys = Arrays.copyOf(this.ys, capacity);
+         this.types = Arrays.copyOf(this.types, capacity);
+         this.firsts = Arrays.copyOf(this.firsts, capacity);
+         this.seconds = Arrays.copyOf(this.seconds, capacity);
+      }
+   }
+
+   private int compare(final int i, final int j) {
+      if (this.xs[i] != this.xs[j]) {
+         return (this.xs[i] < this.xs[j]) ? -1 : 1;
+      } else if (this.ys[i] != this.ys[j]) {
+         return (this.ys[i] < this.ys[j]) ? -1 : 1;
+      }
+
+      return this.types[i].compareTo(this.types[j]);
+   }
+
+   private void set(final int index, final double x, final double y, final EventType type, final int first, final int second) {
+      this.xs[index] = x;
+      this.ys[index] = y;
+      this.types[index] = type;
+      this.firsts[index] = first;
+      this.seconds[index] = second;
+   }
+
+   private void swap(final int i, final int j) {
+      final double x = this.xs[i];
+      final double y = this.ys[i];
+      final EventType type = this.types[i];
+      final int first = this.firsts[i];
+      final int second = this.seconds[i];
+
+      this.set(i, this.xs[j], this.ys[j], this.types[j], this.firsts[j], this.seconds[j]);
+      this.set(j, x, y, type, first, second);
+   }
+
+   @Override
+   public String toString() {
+      return "EventQueue[" + this.size + "]";
+   }
+}
@@ -0,0 +1,10 @@
+package com.stephenwranger.compgeo.algorithms.segments;
+
+/**
+ * Line sweep event types in the order events at the same vertex are processed, so that two segments touching at an end
+ * point are swapped before either is removed and segments ending there are removed before segments starting there are
+ * inserted.
+ */
+enum EventType {
+   INTERSECTION_VERTEX, END_VERTEX, START_VERTEX;
+}
@@ -1,206 +1,311 @@
 package com.stephenwranger.compgeo.algorithms.segments;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 
 import com.stephenwranger.compgeo.algorithms.Algorithm;
-import com.stephenwranger.compgeo.algorithms.segments.SegmentEvent.EventType;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Maximum;
+import com.stephenwranger.compgeo.algorithms.instrumentation.PhaseTimer;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
 
+/**
+ * Bentley-Ottmann line sweep. The sweep status is a {@link StatusTree} of the segments crossing the sweep line, ordered
+ * from top to bottom. A segment is placed when it starts by {@link GeometricPredicates#orientation} tests of its start
+ * vertex, or of its end vertex if it starts on another segment; it is then removed, swapped and asked for its neighbours
+ * through its node in the tree, so each of these takes O(log n) without comparing segments again. Two neighbours are
+ * only queued to cross while they are still in the order they had left of their crossing, which is also decided
+ * exactly, so no pair is swapped twice however many segments meet at a vertex.
+ * <p>
+ * Events wait in an {@link EventQueue}, a binary heap of primitives ordered by vertex and type, so no object is created
+ * per event. The pairs with a pending intersection are kept in a {@link PairIndex}; a pair stops being pending as soon
+ * as the two are no longer neighbours, in O(1), and its event is then skipped when it reaches the top of the heap.
+ */
 public class LineSweepSegmentIntersectionAlgorithm implements Algorithm<LineSegment, Tuple2d> {
-
-   private final List<SegmentEvent>       eventQueue               = new LinkedList<SegmentEvent>();
-   private final List<LineSegment>        status                   = new LinkedList<LineSegment>();
-   private double                         currentX                 = -Double.MAX_VALUE;
-
-   private final Comparator<SegmentEvent> SEGMENT_EVENT_COMPARATOR = new Comparator<SegmentEvent>() {
-      @Override
-      public int compare(final SegmentEvent o1, final SegmentEvent o2) {
-         final Tuple2d v1 = o1.getVertex();
-         final Tuple2d v2 = o2.getVertex();
-         return v1.x < v2.x ? -1 : v1.x == v2.x ? 0 : 1;
-      }
-   };
+   private static final Counter    EVENTS_PROCESSED     = Instrumentation.counter(LineSweepSegmentIntersectionAlgorithm.class, "eventsProcessed");
+   private static final Counter    EVENT_INSERTS        = Instrumentation.counter(LineSweepSegmentIntersectionAlgorithm.class, "eventInserts");
+   private static final Counter    STALE_EVENTS         = Instrumentation.counter(LineSweepSegmentIntersectionAlgorithm.class, "staleEvents");
+   private static final Counter    INTERSECTION_TESTS   = Instrumentation.counter(LineSweepSegmentIntersectionAlgorithm.class, "intersectionTests");
+   private static final Maximum    MAX_EVENT_QUEUE_SIZE = Instrumentation.maximum(LineSweepSegmentIntersectionAlgorithm.class, "maxEventQueueSize");
+   private static final Maximum    MAX_STATUS_SIZE      = Instrumentation.maximum(LineSweepSegmentIntersectionAlgorithm.class, "maxStatusSize");
+   private static final PhaseTimer SWEEP                = Instrumentation.timer(LineSweepSegmentIntersectionAlgorithm.class, "sweep");
+
+   private final EventQueue        eventQueue           = new EventQueue();
+   private final StatusTree        status;
+   private final List<LineSegment> segments             = new ArrayList<LineSegment>();
+   /** The pairs of segments with a queued intersection; each pair is neighbours in the status. */
+   private final PairIndex         pending              = new PairIndex();
+   private double                  currentX             = -Double.MAX_VALUE;
+   private double                  currentY             = -Double.MAX_VALUE;
 
    public LineSweepSegmentIntersectionAlgorithm() {
+      this.status = new StatusTree() {
+         @Override
+         protected boolean isAbove(final int segment, final int other) {
+            return LineSweepSegmentIntersectionAlgorithm.this.isAbove(segment, other);
+         }
+      };
+   }
+
+   @Override
+   public boolean compute(final List<LineSegment> input, final List<Tuple2d> output, final CancellationToken token) {
+      return this.compute(input, ResultSink.toList(output), token);
+   }
 
+   /**
+    * Computes all intersections of the segments in the given primitive buffer, appending each intersection point to the
+    * output buffer (which may be null to only run the computation). The sweep status still orders LineSegments, so one
+    * is created per input segment for the duration of the call; no Tuple2d is retained per intersection.
+    *
+    * @param input
+    * @param output
+    * @param token
+    * @return
+    */
+   public boolean compute(final SegmentBuffer input, final PointBuffer output, final CancellationToken token) {
+      final List<LineSegment> segments = new ArrayList<LineSegment>(input.size());
+      input.toSegments(segments);
+
+      return this.compute(segments, new ResultSink<Tuple2d>() {
+         @Override
+         public boolean accept(final Tuple2d result) {
+            if (output != null) {
+               output.add(result.x, result.y);
+            }
+
+            return true;
+         }
+      }, token);
    }
 
+   /**
+    * Streams each intersection to the given sink as soon as its event is processed by the sweep.
+    *
+    * @param input
+    * @param sink
+    * @param token
+    * @return
+    */
    @Override
-   public boolean compute(final List<LineSegment> input, final List<Tuple2d> output, final long timeout) {
-      final long startTime = System.nanoTime();
+   public boolean compute(final List<LineSegment> input, final ResultSink<Tuple2d> sink, final CancellationToken token) {
       this.eventQueue.clear();
-      this.status.clear();
+      this.pending.clear();
+      this.segments.clear();
       this.currentX = -Double.MAX_VALUE;
+      this.currentY = -Double.MAX_VALUE;
 
-      for (final LineSegment s : input) {
-         if ((System.nanoTime() - startTime) / 1000000l > timeout) {
+      this.segments.addAll(input);
+      this.status.reset(this.segments.size());
+      this.eventQueue.ensureCapacity(2 * this.segments.size());
+
+      for (int i = 0; i < this.segments.size(); i++) {
+         if (token.isCancelled()) {
             return false;
          }
-         this.insertEvent(new SegmentEvent(EventType.START_VERTEX, s.min, s));
-         this.insertEvent(new SegmentEvent(EventType.END_VERTEX, s.max, s));
+
+         final LineSegment s = this.segments.get(i);
+
+         if (s.min.x == s.max.x && s.min.y == s.max.y) {
+            // a single point never crosses the sweep line
+            continue;
+         }
+
+         this.insertEvent(s.min.x, s.min.y, EventType.START_VERTEX, i, -1);
+         this.insertEvent(s.max.x, s.max.y, EventType.END_VERTEX, i, -1);
       }
 
-      SegmentEvent currentEvent, tempEvent;
-      LineSegment above, currentSegment, below;
+      EventType type;
+      int first, second, above, below;
+      final long sweepStart = (Instrumentation.ENABLED) ? LineSweepSegmentIntersectionAlgorithm.SWEEP.start() : 0;
 
       while (!this.eventQueue.isEmpty()) {
-         if ((System.nanoTime() - startTime) / 1000000l > timeout) {
+         if (token.isCancelled()) {
             return false;
          }
 
-         currentEvent = this.getNextEvent();
-         this.currentX = currentEvent.vertex.x;
+         type = this.eventQueue.getType();
+         first = this.eventQueue.getFirst();
+         second = this.eventQueue.getSecond();
+         this.currentX = this.eventQueue.getX();
+         this.currentY = this.eventQueue.getY();
+         this.eventQueue.remove();
 
-         switch (currentEvent.type) {
-            case START_VERTEX:
-               currentSegment = currentEvent.getSegment(0);
-               this.insertStatusLine(currentSegment);
+         if (type == EventType.INTERSECTION_VERTEX && !this.deletePending(first, second)) {
+            // deleted since it was queued
+            if (Instrumentation.ENABLED) {
+               LineSweepSegmentIntersectionAlgorithm.STALE_EVENTS.increment();
+            }
 
-               above = this.getStatusAbove(currentSegment);
-               below = this.getStatusBelow(currentSegment);
-               tempEvent = this.getEvent(above, below);
+            continue;
+         }
 
-               if (tempEvent != null) {
-                  this.deleteEvent(tempEvent);
-               }
+         if (Instrumentation.ENABLED) {
+            LineSweepSegmentIntersectionAlgorithm.EVENTS_PROCESSED.increment();
+            LineSweepSegmentIntersectionAlgorithm.MAX_STATUS_SIZE.record(this.status.size());
+         }
 
-               this.checkForIntersection(above, currentSegment);
-               this.checkForIntersection(currentSegment, below);
+         switch (type) {
+            case START_VERTEX:
+               this.status.insert(first);
+
+               above = this.status.above(first);
+               below = this.status.below(first);
+
+               this.deletePending(above, below);
+               this.checkForIntersection(above, first);
+               this.checkForIntersection(first, below);
                break;
             case END_VERTEX:
-               currentSegment = currentEvent.getSegment(0);
-               above = this.getStatusAbove(currentSegment);
-               below = this.getStatusBelow(currentSegment);
+               above = this.status.above(first);
+               below = this.status.below(first);
 
-               this.deleteStatusLine(currentSegment);
+               this.status.remove(first);
+               this.deletePending(above, first);
+               this.deletePending(first, below);
                this.checkForIntersection(above, below);
                break;
             case INTERSECTION_VERTEX:
-               if (output != null) {
-                  output.add(currentEvent.vertex);
+               if (!sink.accept(new Tuple2d(this.currentX, this.currentY))) {
+                  return true;
                }
-               above = currentEvent.getSegment(0);
-               below = currentEvent.getSegment(1);
 
-               if (above.min.y < below.min.y) {
-                  above = currentEvent.getSegment(1);
-                  below = currentEvent.getSegment(0);
+               // a pending pair is always neighbours
+               if (this.status.below(first) == second) {
+                  above = first;
+                  below = second;
+               } else {
+                  above = second;
+                  below = first;
                }
 
-               this.deleteEvent(this.getEvent(above, this.getStatusAbove(above)));
-               this.deleteEvent(this.getEvent(below, this.getStatusAbove(below)));
+               this.deletePending(above, this.status.above(above));
+               this.deletePending(below, this.status.below(below));
 
-               this.swapStatus(above, below);
+               this.status.swap(above, below);
 
-               this.checkForIntersection(below, this.getStatusAbove(below));
-               this.checkForIntersection(above, this.getStatusBelow(above));
+               this.checkForIntersection(this.status.above(below), below);
+               this.checkForIntersection(above, this.status.below(above));
                break;
          }
       }
 
-      return true;
-   }
-
-   private void checkForIntersection(final LineSegment s1, final LineSegment s2) {
-      if (s1 != null && s2 != null) {
-         final Tuple2d intersection = s1.intersect(s2);
-
-         if (intersection != null) {
-            this.insertEvent(new SegmentEvent(EventType.INTERSECTION_VERTEX, intersection, s1, s2));
-         }
+      if (Instrumentation.ENABLED) {
+         LineSweepSegmentIntersectionAlgorithm.SWEEP.stop(sweepStart);
       }
-   }
-
-   private void insertStatusLine(final LineSegment segment) {
-      int index = this.status.size();
-      double y;
 
-      for (int i = 0; i < this.status.size(); i++) {
-         y = this.status.get(i).getIntersection(segment.min.x);
+      return true;
+   }
 
-         if (segment.min.y > y) {
-            index = i;
-            break;
-         }
+   /**
+    * Returns whether the given segment, starting at the current event vertex, lies above the other segment, which is
+    * in the status there; a segment starting on the other one is placed by its end vertex instead.
+    */
+   private boolean isAbove(final int segment, final int other) {
+      final LineSegment s = this.segments.get(segment);
+      final LineSegment t = this.segments.get(other);
+      int orientation = GeometricPredicates.orientation(t.min, t.max, s.min);
+
+      if (orientation == 0) {
+         orientation = GeometricPredicates.orientation(t.min, t.max, s.max);
       }
 
-      this.status.add(index, segment);
+      // a vertex to the left of t, directed from min to max, is above it; overlapping segments keep their input order
+      return (orientation == 0) ? segment < other : orientation > 0;
    }
 
-   private void deleteStatusLine(final LineSegment segment) {
-      this.status.remove(segment);
-   }
-
-   private void swapStatus(final LineSegment s1, final LineSegment s2) {
-      final int index1 = this.status.indexOf(s1);
-      final int index2 = this.status.indexOf(s2);
-
-      if (index1 >= 0 && index2 >= 0) {
-         this.status.set(index1, s2);
-         this.status.set(index2, s1);
+   /**
+    * Queues the intersection of the given neighbours, the first above the second, if they are yet to cross.
+    */
+   private void checkForIntersection(final int id1, final int id2) {
+      if (id1 < 0 || id2 < 0) {
+         return;
       }
-   }
 
-   private LineSegment getStatusAbove(final LineSegment segment) {
-      if (segment == null) {
-         return null;
+      if (Instrumentation.ENABLED) {
+         LineSweepSegmentIntersectionAlgorithm.INTERSECTION_TESTS.increment();
       }
 
-      final int index = this.status.indexOf(segment);
+      final LineSegment above = this.segments.get(id1);
+      final LineSegment below = this.segments.get(id2);
+      final double o1 = GeometricPredicates.orient2d(above.min, above.max, below.min);
+      final double o2 = GeometricPredicates.orient2d(above.min, above.max, below.max);
+      final double o3 = GeometricPredicates.orient2d(below.min, below.max, above.min);
+      final double o4 = GeometricPredicates.orient2d(below.min, below.max, above.max);
+
+      if ((o1 > 0 && o2 > 0) || (o1 < 0 && o2 < 0) || (o3 > 0 && o4 > 0) || (o3 < 0 && o4 < 0)) {
+         // the segments do not meet
+         return;
+      } else if (o4 >= 0 && o2 <= 0) {
+         // already crossed, touching or overlapping; after the crossing the upper one ends above the lower one's line
+         return;
+      }
 
-      if (index > 0) {
-         return this.status.get(index - 1);
+      double x, y;
+
+      if (o3 == 0) {
+         x = above.min.x;
+         y = above.min.y;
+      } else if (o4 == 0) {
+         x = above.max.x;
+         y = above.max.y;
+      } else if (o1 == 0) {
+         x = below.min.x;
+         y = below.min.y;
+      } else if (o2 == 0) {
+         x = below.max.x;
+         y = below.max.y;
       } else {
-         return null;
+         // the orientations of the upper segment's vertices are proportional to their distances from the lower line
+         final double t = o3 / (o3 - o4);
+         x = above.min.x + t * (above.max.x - above.min.x);
+         y = above.min.y + t * (above.max.y - above.min.y);
       }
-   }
 
-   private LineSegment getStatusBelow(final LineSegment segment) {
-      if (segment == null) {
-         return null;
+      // the crossing is ahead of the sweep and before either segment ends, whatever the rounding of its location
+      if (x < this.currentX || (x == this.currentX && y < this.currentY)) {
+         x = this.currentX;
+         y = this.currentY;
       }
 
-      final int index = this.status.indexOf(segment);
+      final Tuple2d end = (LineSweepSegmentIntersectionAlgorithm.isBefore(above.max, below.max)) ? above.max : below.max;
 
-      if (index >= 0 && index < this.status.size() - 1) {
-         return this.status.get(index + 1);
-      } else {
-         return null;
+      if (end.x < x || (end.x == x && end.y < y)) {
+         x = end.x;
+         y = end.y;
       }
-   }
 
-   private void insertEvent(final SegmentEvent event) {
-      if (event != null && event.vertex.x > this.currentX) {
-         this.eventQueue.add(event);
-         Collections.sort(this.eventQueue, this.SEGMENT_EVENT_COMPARATOR);
+      if (this.pending.add(id1, id2)) {
+         this.insertEvent(x, y, EventType.INTERSECTION_VERTEX, id1, id2);
       }
    }
 
-   private SegmentEvent getEvent(final LineSegment... segments) {
-      for (final SegmentEvent event : this.eventQueue) {
-         if (event.containsAll(segments)) {
-            return event;
-         }
-      }
-
-      return null;
+   private static boolean isBefore(final Tuple2d v1, final Tuple2d v2) {
+      return v1.x < v2.x || (v1.x == v2.x && v1.y < v2.y);
    }
 
-   private SegmentEvent getNextEvent() {
-      return this.eventQueue.remove(0);
-   }
+   private void insertEvent(final double x, final double y, final EventType type, final int first, final int second) {
+      this.eventQueue.add(x, y, type, first, second);
 
-   private void deleteEvent(final SegmentEvent event) {
-      if (event != null) {
-         this.eventQueue.remove(event);
+      if (Instrumentation.ENABLED) {
+         LineSweepSegmentIntersectionAlgorithm.EVENT_INSERTS.increment();
+         LineSweepSegmentIntersectionAlgorithm.MAX_EVENT_QUEUE_SIZE.record(this.eventQueue.size());
       }
    }
 
+   /**
+    * Deletes the pending intersection of the given segments, returning whether there was one.
+    */
+   private boolean deletePending(final int id1, final int id2) {
+      return id1 >= 0 && id2 >= 0 && this.pending.remove(id1, id2);
+   }
+
    public static void main(final String[] args) {
       final LineSweepSegmentIntersectionAlgorithm alg = new LineSweepSegmentIntersectionAlgorithm();
       final List<LineSegment> input = new ArrayList<LineSegment>();
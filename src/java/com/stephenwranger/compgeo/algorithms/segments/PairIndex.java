@@ -0,0 +1,158 @@
+package com.stephenwranger.compgeo.algorithms.segments;
+
+import java.util.Arrays;
+
+/**
+ * A hash set of unordered pairs of segment indices, each packed into a primitive long and kept in an open-addressing
+ * table with linear probing, so adding, finding and removing a pair take expected O(1) and allocate nothing until the
+ * table grows.
+ */
+class PairIndex {
+   private static final int  DEFAULT_CAPACITY = 16;
+   private static final long EMPTY            = -1L;
+
+   private long[]            keys;
+   private int               size             = 0;
+
+   /**
+    * Creates a new, empty PairIndex.
+    */
+   PairIndex() {
+      this.keys = new long[PairIndex.DEFAULT_CAPACITY];
+      Arrays.fill(this.keys, PairIndex.EMPTY);
+   }
+
+   /**
+    * Adds the given pair, returning whether it was not already present.
+    *
+    * @param id1
+    * @param id2
+    * @return
+    */
+   boolean add(final int id1, final int id2) {
+      if (2 * (this.size + 1) > this.keys.length) {
+         this.grow();
+      }
+
+      final long key = PairIndex.getKey(id1, id2);
+      int slot = this.getSlot(key);
+
+      while (this.keys[slot] != PairIndex.EMPTY) {
+         if (this.keys[slot] == key) {
+            return false;
+         }
+
+         slot = (slot + 1) & (this.keys.length - 1);
+      }
+
+      this.keys[slot] = key;
+      this.size++;
+
+      return true;
+   }
+
+   /**
+    * Returns whether the given pair is present.
+    *
+    * @param id1
+    * @param id2
+    * @return
+    */
+   boolean contains(final int id1, final int id2) {
+      return this.find(PairIndex.getKey(id1, id2)) >= 0;
+   }
+
+   /**
+    * Removes the given pair, returning whether it was present.
+    *
+    * @param id1
+    * @param id2
+    * @return
+    */
+   boolean remove(final int id1, final int id2) {
+      int slot = this.find(PairIndex.getKey(id1, id2));
+
+      if (slot < 0) {
+         return false;
+      }
+
+      // shift back any later key of the same probe run that would otherwise no longer be reachable
+      final int mask = this.keys.length - 1;
+      int next = (slot + 1) & mask;
+
+      while (this.keys[next] != PairIndex.EMPTY) {
+         final int home = this.getSlot(this.keys[next]);
+
+         if (((next - home) & mask) >= ((next - slot) & mask)) {
+            this.keys[slot] = this.keys[next];
+            slot = next;
+         }
+
+         next = (next + 1) & mask;
+      }
+
+      this.keys[slot] = PairIndex.EMPTY;
+      this.size--;
+
+      return true;
+   }
+
+   int size() {
+      return this.size;
+   }
+
+   /**
+    * Removes all pairs; the table is retained for reuse.
+    */
+   void clear() {
+      Arrays.fill(this.keys, PairIndex.EMPTY);
+      this.size = 0;
+   }
+
+   private int find(final long key) {
+      int slot = this.getSlot(key);
+
+      while (this.keys[slot] != PairIndex.EMPTY) {
+         if (this.keys[slot] == key) {
+            return slot;
+         }
+
+         slot = (slot + 1) & (this.keys.length - 1);
+      }
+
+      return -1;
+   }
+
+   private void grow() {
+      final long[] old = this.keys;
+      this.keys = new long[old.length * 2];
+      Arrays.fill(this.keys, PairIndex.EMPTY);
+
+      for (final long key : old) {
+         if (key != PairIndex.EMPTY) {
+            int slot = this.getSlot(key);
+
+            while (this.keys[slot] != PairIndex.EMPTY) {
+               slot = (slot + 1) & (this.keys.length - 1);
+            }
+
+            this.keys[slot] = key;
+         }
+      }
+   }
+
+   private int getSlot(final long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      h ^= h >>> 32;
+      return (int) h & (this.keys.length - 1);
+   }
+
+   private static long getKey(final int id1, final int id2) {
+      return (id1 < id2) ? ((long) id1 << 32) | id2 : ((long) id2 << 32) | id1;
+   }
+
+   @Override
+   public String toString() {
+      return "PairIndex[" + this.size + "]";
+   }
+}
@@ -0,0 +1,248 @@
+package com.stephenwranger.compgeo.algorithms.segments;
+
+import java.util.Arrays;
+
+/**
+ * The sweep status: a treap of segment indices, stored in parallel primitive arrays, ordered from top to bottom. Only
+ * an insert compares segments, through {@link #isAbove(int, int)}; a removal, a swap or finding a neighbour goes
+ * through the segment's node, so none depends on a comparison made after the segments have moved. Each takes expected
+ * O(log n).
+ */
+abstract class StatusTree {
+   private static final int NONE = -1;
+
+   private int[]            left     = new int[0];
+   private int[]            right    = new int[0];
+   private int[]            parent   = new int[0];
+   private int[]            priority = new int[0];
+   /** The segment held by each node. */
+   private int[]            segments = new int[0];
+   /** The node holding each segment; swapping two segments only exchanges their nodes. */
+   private int[]            nodes    = new int[0];
+   private int              root     = StatusTree.NONE;
+   private int              size     = 0;
+
+   /**
+    * Returns whether the segment being inserted lies above the given segment already in the status.
+    *
+    * @param segment
+    * @param other
+    * @return
+    */
+   protected abstract boolean isAbove(final int segment, final int other);
+
+   /**
+    * Empties the status and makes room for segments 0 to count - 1.
+    *
+    * @param count
+    */
+   void reset(final int count) {
+      if (count > this.nodes.length) {
+         this.left = new int[count];
+         this.right = new int[count];
+         this.parent = new int[count];
+         this.priority = new int[count];
+         this.segments = new int[count];
+         this.nodes = new int[count];
+      }
+
+      for (int i = 0; i < count; i++) {
+         this.nodes[i] = i;
+         this.priority[i] = StatusTree.hash(i);
+      }
+
+      Arrays.fill(this.parent, StatusTree.NONE);
+      this.root = StatusTree.NONE;
+      this.size = 0;
+   }
+
+   /**
+    * Inserts the given segment below every segment it is not above.
+    *
+    * @param segment
+    */
+   void insert(final int segment) {
+      final int node = this.nodes[segment];
+      int current = this.root;
+      int last = StatusTree.NONE;
+      boolean isLeft = false;
+
+      while (current != StatusTree.NONE) {
+         last = current;
+         isLeft = this.isAbove(segment, this.segments[current]);
+         current = (isLeft) ? this.left[current] : this.right[current];
+      }
+
+      this.segments[node] = segment;
+      this.left[node] = StatusTree.NONE;
+      this.right[node] = StatusTree.NONE;
+      this.parent[node] = last;
+
+      if (last == StatusTree.NONE) {
+         this.root = node;
+      } else if (isLeft) {
+         this.left[last] = node;
+      } else {
+         this.right[last] = node;
+      }
+
+      while (this.parent[node] != StatusTree.NONE && this.priority[node] > this.priority[this.parent[node]]) {
+         this.rotateUp(node);
+      }
+
+      this.size++;
+   }
+
+   /**
+    * Removes the given segment, which must be in the status.
+    *
+    * @param segment
+    */
+   void remove(final int segment) {
+      final int node = this.nodes[segment];
+
+      while (this.left[node] != StatusTree.NONE && this.right[node] != StatusTree.NONE) {
+         this.rotateUp((this.priority[this.left[node]] > this.priority[this.right[node]]) ? this.left[node] : this.right[node]);
+      }
+
+      final int child = (this.left[node] != StatusTree.NONE) ? this.left[node] : this.right[node];
+      this.replace(node, child);
+
+      if (child != StatusTree.NONE) {
+         this.parent[child] = this.parent[node];
+      }
+
+      this.parent[node] = StatusTree.NONE;
+      this.size--;
+   }
+
+   /**
+    * Exchanges the positions of the two given segments.
+    *
+    * @param segment1
+    * @param segment2
+    */
+   void swap(final int segment1, final int segment2) {
+      final int node1 = this.nodes[segment1];
+      final int node2 = this.nodes[segment2];
+
+      this.segments[node1] = segment2;
+      this.segments[node2] = segment1;
+      this.nodes[segment1] = node2;
+      this.nodes[segment2] = node1;
+   }
+
+   /**
+    * Returns the segment directly above the given one, or -1 if it is the top one.
+    *
+    * @param segment
+    * @return
+    */
+   int above(final int segment) {
+      int node = this.nodes[segment];
+
+      if (this.left[node] != StatusTree.NONE) {
+         node = this.left[node];
+
+         while (this.right[node] != StatusTree.NONE) {
+            node = this.right[node];
+         }
+
+         return this.segments[node];
+      }
+
+      while (this.parent[node] != StatusTree.NONE && this.left[this.parent[node]] == node) {
+         node = this.parent[node];
+      }
+
+      return (this.parent[node] == StatusTree.NONE) ? StatusTree.NONE : this.segments[this.parent[node]];
+   }
+
+   /**
+    * Returns the segment directly below the given one, or -1 if it is the bottom one.
+    *
+    * @param segment
+    * @return
+    */
+   int below(final int segment) {
+      int node = this.nodes[segment];
+
+      if (this.right[node] != StatusTree.NONE) {
+         node = this.right[node];
+
+         while (this.left[node] != StatusTree.NONE) {
+            node = this.left[node];
+         }
+
+         return this.segments[node];
+      }
+
+      while (this.parent[node] != StatusTree.NONE && this.right[this.parent[node]] == node) {
+         node = this.parent[node];
+      }
+
+      return (this.parent[node] == StatusTree.NONE) ? StatusTree.NONE : this.segments[this.parent[node]];
+   }
+
+   int size() {
+      return this.size;
+   }
+
+   private void rotateUp(final int node) {
+      final int up = this.parent[node];
+      final int grandparent = this.parent[up];
+
+      if (this.left[up] == node) {
+         this.left[up] = this.right[node];
+
+         if (this.right[node] != StatusTree.NONE) {
+            this.parent[this.right[node]] = up;
+         }
+
+         this.right[node] = up;
+      } else {
+         this.right[up] = this.left[node];
+
+         if (this.left[node] != StatusTree.NONE) {
+            this.parent[this.left[node]] = up;
+         }
+
+         this.left[node] = up;
+      }
+
+      this.replace(up, node);
+      this.parent[up] = node;
+      this.parent[node] = grandparent;
+   }
+
+   /**
+    * Points the parent of the given node, or the root, at the replacement instead.
+    */
+   private void replace(final int node, final int replacement) {
+      final int up = this.parent[node];
+
+      if (up == StatusTree.NONE) {
+         this.root = replacement;
+      } else if (this.left[up] == node) {
+         this.left[up] = replacement;
+      } else {
+         this.right[up] = replacement;
+      }
+   }
+
+   /**
+    * A fixed pseudo-random priority per node, so the shape of the tree does not depend on the input order.
+    */
+   private static int hash(final int value) {
+      int h = value * 0x9E3779B9;
+      h ^= h >>> 16;
+      h *= 0x85EBCA6B;
+      h ^= h >>> 13;
+      return h;
+   }
+
+   @Override
+   public String toString() {
+      return "StatusTree[" + this.size + "]";
+   }
+}
@@ -3,6 +3,7 @@ package com.stephenwranger.compgeo.algorithms.trapezoids;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.intersection.IntersectionUtils;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
@@ -172,7 +173,11 @@ public class LeafNode extends TrapezoidalMapNode {
    }
 
    @Override
-   public LeafNode queryMap(Tuple2d queryPoint) {
+   protected LeafNode queryMap(Tuple2d queryPoint, final int depth) {
+      if (Instrumentation.ENABLED) {
+         TrapezoidalMapAlgorithm.MAX_QUERY_DEPTH.record(depth);
+      }
+
       return this;
    }
 
@@ -7,6 +7,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 
 import com.stephenwranger.compgeo.algorithms.Algorithm;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Counter;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Maximum;
 import com.stephenwranger.graphics.collections.Pair;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.intersection.IntersectionUtils;
@@ -14,6 +19,14 @@ import com.stephenwranger.graphics.math.intersection.LineSegment;
 import com.stephenwranger.graphics.math.intersection.Trapezoid;
 
 public class TrapezoidalMapAlgorithm implements Algorithm<LineSegment, String[]> {
+   static final Counter                                            QUERY_NODE_VISITS      = Instrumentation.counter(TrapezoidalMapAlgorithm.class, "queryNodeVisits");
+   /** The longest path from the root to a leaf taken by a single query. */
+   static final Maximum                                            MAX_QUERY_DEPTH        = Instrumentation.maximum(TrapezoidalMapAlgorithm.class, "maxQueryDepth");
+   private static final Counter                                    QUERIES                = Instrumentation.counter(TrapezoidalMapAlgorithm.class, "queries");
+   private static final Counter                                    SEGMENTS_INSERTED      = Instrumentation.counter(TrapezoidalMapAlgorithm.class, "segmentsInserted");
+   private static final Counter                                    TRAPEZOIDS_REPLACED    = Instrumentation.counter(TrapezoidalMapAlgorithm.class, "trapezoidsReplaced");
+   private static final Maximum                                    MAX_TRAPEZOIDS_CROSSED = Instrumentation.maximum(TrapezoidalMapAlgorithm.class, "maxTrapezoidsCrossed");
+
    private final Rectangle2D                                       bounds;
    private TrapezoidalMapNode                                      root;
    private String[][]                                              matrix        = null;
@@ -31,6 +44,16 @@ public class TrapezoidalMapAlgorithm implements Algorithm<LineSegment, String[]>
       this.bounds = bounds;
    }
 
+   /**
+    * Returns the leaf node of the search structure containing the given query point; only valid after compute.
+    *
+    * @param queryPoint
+    * @return
+    */
+   public LeafNode query(final Tuple2d queryPoint) {
+      return this.root.queryMap(queryPoint);
+   }
+
    public void printQuery(final Tuple2d queryPoint) {
       this.printQuery(this.root, queryPoint);
    }
@@ -47,7 +70,7 @@ public class TrapezoidalMapAlgorithm implements Algorithm<LineSegment, String[]>
          }
       } else if (n instanceof YNode) {
          final YNode node = (YNode) n;
-         if (IntersectionUtils.isGreaterThan(queryPoint.y, node.segment.a * queryPoint.x + node.segment.b)) {
+         if (GeometricPredicates.orientation(node.segment.min, node.segment.max, queryPoint) > 0) {
             this.printQuery(node.getLeftAbove(), queryPoint);
          } else {
             this.printQuery(node.getRightBelow(), queryPoint);
@@ -56,9 +79,8 @@ public class TrapezoidalMapAlgorithm implements Algorithm<LineSegment, String[]>
    }
 
    @Override
-   public boolean compute(final List<LineSegment> input, final List<String[]> output, final long timeout) {
+   public boolean compute(final List<LineSegment> input, final List<String[]> output, final CancellationToken token) {
       this.output = output;
-      final long startTime = System.nanoTime();
 
       // initialize the root with the bounding box as a trapezoid
       this.root = new LeafNode(this.getTrapezoidalBounds(), new LeafNode[0]);
@@ -68,13 +90,19 @@ public class TrapezoidalMapAlgorithm implements Algorithm<LineSegment, String[]>
 
       // loop over all input segments and insert them one at a time
       for (final LineSegment segment : input) {
-         if ((System.nanoTime() - startTime) / 1000000l > timeout) {
+         if (token.isCancelled()) {
             return false;
          }
 
          // traverse tree and adjacent trapezoids to get list of intersected leaf nodes
          intersected = this.getIntersectedNodes(segment);
 
+         if (Instrumentation.ENABLED) {
+            TrapezoidalMapAlgorithm.SEGMENTS_INSERTED.increment();
+            TrapezoidalMapAlgorithm.TRAPEZOIDS_REPLACED.add(intersected.size());
+            TrapezoidalMapAlgorithm.MAX_TRAPEZOIDS_CROSSED.record(intersected.size());
+         }
+
          // if size is 1, the the segment is completely inside the node; split into 4 pieces
          if (intersected.size() == 1) {
             leaf = intersected.get(0);
@@ -508,6 +536,10 @@ public class TrapezoidalMapAlgorithm implements Algorithm<LineSegment, String[]>
       final LeafNode rightNode = this.root.queryMap(segment.max);
       LeafNode temp = leftNode;
 
+      if (Instrumentation.ENABLED) {
+         TrapezoidalMapAlgorithm.QUERIES.add(2);
+      }
+
       if (leftNode != rightNode) {
          do {
             intersected.add(temp);
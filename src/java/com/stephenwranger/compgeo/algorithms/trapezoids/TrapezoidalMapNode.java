@@ -113,7 +113,19 @@ public abstract class TrapezoidalMapNode {
     * @param queryPoint
     * @return
     */
-   public abstract LeafNode queryMap(final Tuple2d queryPoint);
+   public LeafNode queryMap(final Tuple2d queryPoint) {
+      return this.queryMap(queryPoint, 0);
+   }
+
+   /**
+    * Searches for the leaf node containing the given query point below this node, which is at the given depth of the
+    * search structure.
+    *
+    * @param queryPoint
+    * @param depth
+    * @return
+    */
+   protected abstract LeafNode queryMap(final Tuple2d queryPoint, final int depth);
 
    /**
     * Replaces the child of this node with the given new child node.
@@ -1,5 +1,6 @@
 package com.stephenwranger.compgeo.algorithms.trapezoids;
 
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.intersection.IntersectionUtils;
 
@@ -23,11 +24,15 @@ public class XNode extends TrapezoidalMapNode {
    }
 
    @Override
-   public LeafNode queryMap(final Tuple2d queryPoint) {
+   protected LeafNode queryMap(final Tuple2d queryPoint, final int depth) {
+      if (Instrumentation.ENABLED) {
+         TrapezoidalMapAlgorithm.QUERY_NODE_VISITS.increment();
+      }
+
       if (IntersectionUtils.isLessOrEqual(queryPoint.x, this.segmentEndpoint.x)) {
-         return this.getLeftAbove().queryMap(queryPoint);
+         return this.getLeftAbove().queryMap(queryPoint, depth + 1);
       } else {
-         return this.getRightBelow().queryMap(queryPoint);
+         return this.getRightBelow().queryMap(queryPoint, depth + 1);
       }
    }
 
@@ -1,7 +1,8 @@
 package com.stephenwranger.compgeo.algorithms.trapezoids;
 
+import com.stephenwranger.compgeo.algorithms.GeometricPredicates;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
 import com.stephenwranger.graphics.math.Tuple2d;
-import com.stephenwranger.graphics.math.intersection.IntersectionUtils;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
 
 /**
@@ -24,11 +25,15 @@ public class YNode extends TrapezoidalMapNode {
    }
 
    @Override
-   public LeafNode queryMap(Tuple2d queryPoint) {
-      if (IntersectionUtils.isGreaterThan(queryPoint.y, this.segment.a * queryPoint.x + this.segment.b)) {
-         return this.getLeftAbove().queryMap(queryPoint);
+   protected LeafNode queryMap(Tuple2d queryPoint, final int depth) {
+      if (Instrumentation.ENABLED) {
+         TrapezoidalMapAlgorithm.QUERY_NODE_VISITS.increment();
+      }
+
+      if (GeometricPredicates.orientation(this.segment.min, this.segment.max, queryPoint) > 0) {
+         return this.getLeftAbove().queryMap(queryPoint, depth + 1);
       } else {
-         return this.getRightBelow().queryMap(queryPoint);
+         return this.getRightBelow().queryMap(queryPoint, depth + 1);
       }
    }
 }
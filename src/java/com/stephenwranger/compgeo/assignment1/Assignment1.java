@@ -6,6 +6,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,19 +19,36 @@ import javax.swing.SwingUtilities;
 
 import com.stephenwranger.compgeo.algorithms.Algorithm;
 import com.stephenwranger.compgeo.algorithms.AlgorithmUtils;
+import com.stephenwranger.compgeo.algorithms.CancellationToken;
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullApproximate;
 import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullBruteForce;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullChans;
 import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullGrahamsScan;
 import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullJarvisMarch;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullMonotoneChain;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullQuickHull;
+import com.stephenwranger.compgeo.algorithms.convexhull.EpsilonKernel;
+import com.stephenwranger.compgeo.algorithms.convexhull.StreamingConvexHull;
+import com.stephenwranger.compgeo.io.GeometryFile;
+import com.stephenwranger.compgeo.io.TextGeometryParser;
 import com.stephenwranger.graphics.Scene2d;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.renderables.Graph;
 import com.stephenwranger.graphics.utils.TimeUtils;
 
 public class Assignment1 {
-   public static final String USAGE_STRING = "Usage: Assignment1 <algorighm> <filename>\nUsage: Assignment1 <algorighm> <point count> [--ui]";
+   public static final String  USAGE_STRING          = "Usage: Assignment1 <algorighm> <filename>\nUsage: Assignment1 <algorighm> <point count> [--ui]";
+
+   /** The number of bytes of a text point file parsed per chunk by the Streaming algorithm. */
+   private static final long   STREAMING_CHUNK_BYTES = 1L << 28;
+   /** The Approximate algorithm's tolerance, as a fraction of the input's diameter. */
+   private static final double APPROXIMATE_TOLERANCE = 0.001;
 
    public enum ConvexHullAlgorithm {
-      BruteForce, GrahamsScan, JarvisMarch
+      Approximate, BruteForce, Chans, GrahamsScan, JarvisMarch, MonotoneChain, QuickHull,
+      /** Reads a point file in chunks, holding only one chunk and the hull in memory; needs a file. */
+      Streaming
    };
 
    public static void main(final String[] args) {
@@ -48,11 +68,16 @@ public class Assignment1 {
       }
 
       InputStream inputFile = null;
+      Path pointFile = null;
 
       if (pointCount == -1) {
-         inputFile = Assignment1.class.getResourceAsStream(args[1]);
+         if (Files.isRegularFile(Paths.get(args[1]))) {
+            pointFile = Paths.get(args[1]);
+         } else {
+            inputFile = Assignment1.class.getResourceAsStream(args[1]);
+         }
 
-         if (inputFile == null) {
+         if (inputFile == null && pointFile == null) {
             System.err.println("Arguments must contain point count or input file; both invalid.");
             System.err.println("Point Count invalid or File " + args[1] + " does not exist.");
             throw new InvalidParameterException(Assignment1.USAGE_STRING);
@@ -66,24 +91,60 @@ public class Assignment1 {
 
       final boolean showUi = (args.length >= 3 && args[2].equals("--ui"));
 
+      if (algorithmType == ConvexHullAlgorithm.Streaming) {
+         if (pointFile == null) {
+            System.err.println("Streaming reads the points from a binary or text point file; a point count or resource is not supported.");
+            throw new InvalidParameterException(Assignment1.USAGE_STRING);
+         }
+
+         Assignment1.computeStreaming(pointFile);
+         return;
+      }
+
       Algorithm<Tuple2d, Tuple2d> algorithm = null;
 
       switch(algorithmType) {
+         case Approximate:
+            algorithm = new ConvexHullApproximate(EpsilonKernel.getDirectionCount(Assignment1.APPROXIMATE_TOLERANCE));
+            break;
          case BruteForce:
             algorithm = new ConvexHullBruteForce();
             break;
+         case Chans:
+            algorithm = new ConvexHullChans();
+            break;
          case GrahamsScan:
             algorithm = new ConvexHullGrahamsScan();
             break;
          case JarvisMarch:
             algorithm = new ConvexHullJarvisMarch();
             break;
+         case MonotoneChain:
+            algorithm = new ConvexHullMonotoneChain();
+            break;
+         case QuickHull:
+            algorithm = new ConvexHullQuickHull();
+            break;
       }
 
       if(algorithm != null) {
          final List<Tuple2d> input = new ArrayList<Tuple2d>();
 
-         if (pointCount == -1) {
+         if (pointFile != null && GeometryFile.isGeometryFile(pointFile)) {
+            try (final GeometryFile file = GeometryFile.open(pointFile)) {
+               file.readPoints().toTuples(input);
+            } catch (final IOException e) {
+               e.printStackTrace();
+            }
+         } else if (pointFile != null) {
+            try {
+               final PointBuffer buffer = new PointBuffer();
+               TextGeometryParser.parsePoints(pointFile, buffer);
+               buffer.toTuples(input);
+            } catch (final IOException e) {
+               e.printStackTrace();
+            }
+         } else if (pointCount == -1) {
             try (final BufferedReader fin = new BufferedReader(new InputStreamReader(inputFile))) {
                pointCount = Integer.parseInt(fin.readLine());
                String[] values;
@@ -109,21 +170,7 @@ public class Assignment1 {
          final long endTime = System.nanoTime();
          final long duration = endTime - startTime;
 
-         System.out.println("Complete");
-         System.out.println("Duration: " + TimeUtils.formatNanoseconds(duration) + " (" + duration + "ns)");
-         System.out.println("Count points: " + output.size());
-         System.out.println("Output Points");
-
-         try (final BufferedWriter fout = new BufferedWriter(new FileWriter("output_" + algorithmType.name() + "_" + input.size() + ".txt"))) {
-            fout.write(output.size() + "\n");
-
-            for (final Tuple2d value : output) {
-               System.out.println("\t" + value);
-               fout.write(value.x + " " + value.y + "\n");
-            }
-         } catch (final IOException e) {
-            e.printStackTrace();
-         }
+         Assignment1.writeOutput(algorithmType, input.size(), duration, output);
 
          if(showUi) {
             final JFrame frame = new JFrame("Computational Geometry: Assignment 1");
@@ -145,4 +192,52 @@ public class Assignment1 {
          }
       }
    }
+
+   /**
+    * Computes the hull of the given binary or text point file a chunk at a time, so files larger than the heap can be
+    * processed.
+    *
+    * @param pointFile
+    */
+   private static void computeStreaming(final Path pointFile) {
+      final StreamingConvexHull hull = new StreamingConvexHull(new CancellationToken());
+      final long startTime = System.nanoTime();
+
+      try {
+         if (GeometryFile.isGeometryFile(pointFile)) {
+            try (final GeometryFile file = GeometryFile.open(pointFile)) {
+               file.readPoints(StreamingConvexHull.CHUNK_SIZE, hull);
+            }
+         } else {
+            TextGeometryParser.parsePoints(pointFile, Assignment1.STREAMING_CHUNK_BYTES, hull);
+         }
+      } catch (final IOException e) {
+         e.printStackTrace();
+         return;
+      }
+
+      final long duration = System.nanoTime() - startTime;
+      final List<Tuple2d> output = new ArrayList<Tuple2d>();
+      hull.getHull().toTuples(output);
+
+      Assignment1.writeOutput(ConvexHullAlgorithm.Streaming, hull.getPointCount(), duration, output);
+   }
+
+   private static void writeOutput(final ConvexHullAlgorithm algorithmType, final long inputCount, final long duration, final List<Tuple2d> output) {
+      System.out.println("Complete");
+      System.out.println("Duration: " + TimeUtils.formatNanoseconds(duration) + " (" + duration + "ns)");
+      System.out.println("Count points: " + output.size());
+      System.out.println("Output Points");
+
+      try (final BufferedWriter fout = new BufferedWriter(new FileWriter("output_" + algorithmType.name() + "_" + inputCount + ".txt"))) {
+         fout.write(output.size() + "\n");
+
+         for (final Tuple2d value : output) {
+            System.out.println("\t" + value);
+            fout.write(value.x + " " + value.y + "\n");
+         }
+      } catch (final IOException e) {
+         e.printStackTrace();
+      }
+   }
 }
@@ -6,7 +6,9 @@ import java.util.List;
 import com.stephenwranger.compgeo.algorithms.Algorithm;
 import com.stephenwranger.compgeo.algorithms.AlgorithmUtils;
 import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullBruteForce;
+import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullGrahamsScan;
 import com.stephenwranger.compgeo.algorithms.convexhull.ConvexHullJarvisMarch;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.utils.TimeUtils;
 
@@ -19,15 +21,19 @@ public class Assignment1Benchmarks {
 
       final ConvexHullBruteForce bruteforce = new ConvexHullBruteForce();
       final ConvexHullJarvisMarch jarvis = new ConvexHullJarvisMarch();
+      final ConvexHullGrahamsScan grahams = new ConvexHullGrahamsScan();
 
       final List<Long> bruteforceDurations = new ArrayList<Long>();
       final List<Long> jarvisDurations = new ArrayList<Long>();
+      final List<Long> grahamsDurations = new ArrayList<Long>();
       boolean bfValid = true;
       boolean jmValid = true;
+      boolean gsValid = true;
 
       for(int i = 0; i < testSizes.length; i++) {
          bruteforceDurations.clear();
          jarvisDurations.clear();
+         grahamsDurations.clear();
 
          for(int j = 0; j < runCount; j++) {
             input.clear();
@@ -48,6 +54,13 @@ public class Assignment1Benchmarks {
                   jmValid = false;
                }
             }
+
+            if (gsValid) {
+               grahamsDurations.add(Assignment1Benchmarks.run(grahams, input, output));
+               if (grahamsDurations.get(j) == -1) {
+                  gsValid = false;
+               }
+            }
          }
          System.out.println("\nPoint Count: " + testSizes[i]);
          System.out.println("Runs: " + runCount);
@@ -57,6 +70,14 @@ public class Assignment1Benchmarks {
          System.out.println("Jarvis March Average: "
                + ((jmValid) ? TimeUtils.formatNanoseconds(Assignment1Benchmarks.average(jarvisDurations)) + "("
                      + Assignment1Benchmarks.average(jarvisDurations) + " ns)" : "Timed Out"));
+         System.out.println("Graham's Scan Average: "
+               + ((gsValid) ? TimeUtils.formatNanoseconds(Assignment1Benchmarks.average(grahamsDurations)) + "("
+                     + Assignment1Benchmarks.average(grahamsDurations) + " ns)" : "Timed Out"));
+
+         if (Instrumentation.ENABLED) {
+            System.out.print(Instrumentation.report());
+            Instrumentation.reset();
+         }
       }
    }
 
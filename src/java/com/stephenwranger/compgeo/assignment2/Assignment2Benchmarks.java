@@ -13,6 +13,7 @@ import com.stephenwranger.compgeo.algorithms.Algorithm;
 import com.stephenwranger.compgeo.algorithms.AlgorithmUtils;
 import com.stephenwranger.compgeo.algorithms.segments.BruteForceSegmentIntersectionAlgorithm;
 import com.stephenwranger.compgeo.algorithms.segments.LineSweepSegmentIntersectionAlgorithm;
+import com.stephenwranger.compgeo.algorithms.instrumentation.Instrumentation;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
 import com.stephenwranger.graphics.utils.TimeUtils;
@@ -102,6 +103,11 @@ public class Assignment2Benchmarks {
                + ((lsValid) ? TimeUtils.formatNanoseconds(Assignment2Benchmarks.average(lineSweepDurations)) + "("
                      + Assignment2Benchmarks.average(lineSweepDurations) + " ns)" : "Timed Out"));
 
+         if (Instrumentation.ENABLED) {
+            System.out.print(Instrumentation.report());
+            Instrumentation.reset();
+         }
+
          tests.setValue(i + 1);
          tests.setString((((i + 1) / testSizes.length) * 100.0) + "%");
       }
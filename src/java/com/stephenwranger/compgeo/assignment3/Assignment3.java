@@ -1,11 +1,9 @@
 package com.stephenwranger.compgeo.assignment3;
 
-import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -15,7 +13,10 @@ import java.util.List;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
 import com.stephenwranger.compgeo.algorithms.trapezoids.TrapezoidalMapAlgorithm;
+import com.stephenwranger.compgeo.io.GeometryFile;
+import com.stephenwranger.compgeo.io.TextGeometryParser;
 import com.stephenwranger.graphics.Scene2d;
 import com.stephenwranger.graphics.math.Tuple2d;
 import com.stephenwranger.graphics.math.intersection.LineSegment;
@@ -51,23 +52,29 @@ public class Assignment3 {
       Rectangle2D bounds = null;
       int numberOfSegments = 0;
 
-      try (final BufferedReader fin = new BufferedReader(new FileReader(file));) {
-         numberOfSegments = Integer.parseInt(fin.readLine());
-         final String[] boundValues = fin.readLine().split(" ");
-         bounds = new Rectangle(Integer.parseInt(boundValues[0]), Integer.parseInt(boundValues[1]), Integer.parseInt(boundValues[2]),
-               Integer.parseInt(boundValues[3]));
-         String[] segment;
-         Tuple2d v1, v2;
-
-         for (int i = 0; i < numberOfSegments; i++) {
-            segment = fin.readLine().split(" ");
-            v1 = new Tuple2d(Integer.parseInt(segment[0]), Integer.parseInt(segment[1]));
-            v2 = new Tuple2d(Integer.parseInt(segment[2]), Integer.parseInt(segment[3]));
-            segments.add(new LineSegment(v1, v2));
+      if (GeometryFile.isGeometryFile(file.toPath())) {
+         try (final GeometryFile geometryFile = GeometryFile.open(file.toPath())) {
+            geometryFile.readSegments().toSegments(segments);
+            numberOfSegments = segments.size();
+
+            // the trapezoidal map needs every segment strictly inside its bounds
+            final Rectangle2D fileBounds = geometryFile.getBounds();
+            final double margin = Math.max(1, 0.01 * Math.max(fileBounds.getWidth(), fileBounds.getHeight()));
+            bounds = new Rectangle2D.Double(fileBounds.getX() - margin, fileBounds.getY() - margin, fileBounds.getWidth() + 2 * margin, fileBounds.getHeight() + 2 * margin);
+         } catch (final IOException e) {
+            e.printStackTrace();
+            return;
+         }
+      } else {
+         try {
+            final SegmentBuffer buffer = new SegmentBuffer();
+            bounds = TextGeometryParser.parseSegments(file.toPath(), buffer);
+            buffer.toSegments(segments);
+            numberOfSegments = segments.size();
+         } catch (final IOException e) {
+            e.printStackTrace();
+            return;
          }
-      } catch (final IOException e) {
-         e.printStackTrace();
-         return;
       }
 
       System.out.println("numberOfSegments: " + numberOfSegments);
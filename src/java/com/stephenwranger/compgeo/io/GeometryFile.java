@@ -0,0 +1,420 @@
+package com.stephenwranger.compgeo.io;
+
+import java.awt.geom.Rectangle2D;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
+
+/**
+ * A read-only, memory-mapped view of a binary point or segment file. The file is a fixed 64 byte little-endian header
+ * followed by the raw coordinates:
+ *
+ * <pre>
+ *  0  int    magic "CGEO"
+ *  4  short  version
+ *  6  byte   geometry type (see {@link GeometryType})
+ *  7  byte   coordinate type (see {@link CoordinateType})
+ *  8  long   record count
+ * 16  double min x, min y, max x, max y
+ * 48  reserved
+ * 64  points:   every x, then every y
+ *     segments: [minX, minY, maxX, maxY] per segment, min endpoint left-most
+ * </pre>
+ *
+ * Records are never parsed; the coordinate region is mapped in chunks of at most 1GB, so files larger than 2GB are
+ * supported, and values are read straight out of the page cache. Use {@link GeometryFileWriter} to create files.
+ */
+public class GeometryFile implements Closeable {
+   public static final int    MAGIC        = 0x4347454F;
+   public static final short  VERSION      = 1;
+   public static final int    HEADER_SIZE  = 64;
+   public static final String EXTENSION    = ".cgeo";
+
+   /** The number of coordinate values in each mapped chunk. */
+   private static final int   CHUNK_VALUES = 1 << 27;
+
+   public enum GeometryType {
+      POINTS(1, 2),
+      SEGMENTS(2, 4);
+
+      public final byte id;
+      /** The number of coordinate values per record. */
+      public final int  valuesPerRecord;
+
+      private GeometryType(final int id, final int valuesPerRecord) {
+         this.id = (byte) id;
+         this.valuesPerRecord = valuesPerRecord;
+      }
+
+      public static GeometryType valueOf(final byte id) {
+         for (final GeometryType type : GeometryType.values()) {
+            if (type.id == id) {
+               return type;
+            }
+         }
+
+         throw new IllegalArgumentException("Unknown geometry type: " + id);
+      }
+   }
+
+   public enum CoordinateType {
+      INT32(1, 4),
+      FLOAT32(2, 4),
+      FLOAT64(3, 8);
+
+      public final byte id;
+      /** The size of one coordinate value in bytes. */
+      public final int  size;
+
+      private CoordinateType(final int id, final int size) {
+         this.id = (byte) id;
+         this.size = size;
+      }
+
+      public static CoordinateType valueOf(final byte id) {
+         for (final CoordinateType type : CoordinateType.values()) {
+            if (type.id == id) {
+               return type;
+            }
+         }
+
+         throw new IllegalArgumentException("Unknown coordinate type: " + id);
+      }
+   }
+
+   private final FileChannel        channel;
+   private final GeometryType       geometryType;
+   private final CoordinateType     coordinateType;
+   private final long               count;
+   private final Rectangle2D        bounds;
+   private final MappedByteBuffer[] chunks;
+
+   private GeometryFile(final FileChannel channel) throws IOException {
+      this.channel = channel;
+
+      final ByteBuffer header = ByteBuffer.allocate(GeometryFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+      while (header.hasRemaining()) {
+         if (channel.read(header, header.position()) < 0) {
+            throw new IOException("File is too short to hold a header.");
+         }
+      }
+
+      if (header.getInt(0) != GeometryFile.MAGIC) {
+         throw new IOException("Not a geometry file.");
+      } else if (header.getShort(4) != GeometryFile.VERSION) {
+         throw new IOException("Unsupported geometry file version: " + header.getShort(4));
+      }
+
+      this.geometryType = GeometryType.valueOf(header.get(6));
+      this.coordinateType = CoordinateType.valueOf(header.get(7));
+      this.count = header.getLong(8);
+
+      final double minX = header.getDouble(16);
+      final double minY = header.getDouble(24);
+      this.bounds = new Rectangle2D.Double(minX, minY, header.getDouble(32) - minX, header.getDouble(40) - minY);
+
+      // divide rather than multiply, so a corrupt count cannot overflow past the check
+      final long recordSize = (long) this.geometryType.valuesPerRecord * this.coordinateType.size;
+
+      if (this.count < 0 || this.count > (channel.size() - GeometryFile.HEADER_SIZE) / recordSize) {
+         throw new IOException("File is too short to hold " + this.count + " records.");
+      }
+
+      final long valueCount = this.count * this.geometryType.valuesPerRecord;
+
+      this.chunks = new MappedByteBuffer[(int) ((valueCount + GeometryFile.CHUNK_VALUES - 1) / GeometryFile.CHUNK_VALUES)];
+   }
+
+   /**
+    * Opens and validates the given geometry file; the coordinates are mapped lazily as they are read.
+    *
+    * @param path
+    * @return
+    * @throws IOException
+    */
+   public static GeometryFile open(final Path path) throws IOException {
+      final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+      try {
+         return new GeometryFile(channel);
+      } catch (final IOException | RuntimeException e) {
+         channel.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Returns true if the given path has the geometry file extension.
+    *
+    * @param path
+    * @return
+    */
+   public static boolean isGeometryFile(final Path path) {
+      return path.getFileName().toString().endsWith(GeometryFile.EXTENSION);
+   }
+
+   public GeometryType getGeometryType() {
+      return this.geometryType;
+   }
+
+   public CoordinateType getCoordinateType() {
+      return this.coordinateType;
+   }
+
+   /**
+    * Returns the number of points or segments in the file.
+    *
+    * @return
+    */
+   public long getCount() {
+      return this.count;
+   }
+
+   /**
+    * Returns the bounds of every coordinate in the file, as recorded in the header.
+    *
+    * @return
+    */
+   public Rectangle2D getBounds() {
+      return (Rectangle2D) this.bounds.clone();
+   }
+
+   /**
+    * Returns the x coordinate of the point at the given index. Each call locks the file while finding its chunk; read
+    * many points through {@link #readPoints(long, int)} instead.
+    *
+    * @param index
+    * @return
+    */
+   public double getX(final long index) {
+      this.checkType(GeometryType.POINTS);
+      return this.getValue(index);
+   }
+
+   /**
+    * Returns the y coordinate of the point at the given index. Each call locks the file while finding its chunk; read
+    * many points through {@link #readPoints(long, int)} instead.
+    *
+    * @param index
+    * @return
+    */
+   public double getY(final long index) {
+      this.checkType(GeometryType.POINTS);
+      return this.getValue(this.count + index);
+   }
+
+   /**
+    * Returns every point in the file.
+    *
+    * @return
+    */
+   public PointBuffer readPoints() {
+      return this.readPoints(0, GeometryFile.toInt(this.count));
+   }
+
+   /**
+    * Returns the given range of points; lets callers process files too large for a single buffer in pieces.
+    *
+    * @param start
+    * @param length
+    * @return
+    */
+   public PointBuffer readPoints(final long start, final int length) {
+      this.checkType(GeometryType.POINTS);
+      this.checkRange(start, length);
+
+      final double[] xs = new double[Math.max(1, length)];
+      final double[] ys = new double[Math.max(1, length)];
+
+      this.readValues(start, xs, length);
+      this.readValues(this.count + start, ys, length);
+
+      return new PointBuffer(xs, ys, length);
+   }
+
+   /**
+    * Reads the file's points in order, at most the given number at a time, and passes each piece to the sink as a new
+    * buffer, so only one piece is held in memory at a time. Returns the number of points read, which is less than the
+    * file's count only if the sink stopped early.
+    *
+    * @param chunkSize
+    * @param sink
+    * @return
+    */
+   public long readPoints(final int chunkSize, final ResultSink<PointBuffer> sink) {
+      if (chunkSize <= 0) {
+         throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+      }
+
+      long start = 0;
+      int length;
+
+      while (start < this.count) {
+         length = (int) Math.min(chunkSize, this.count - start);
+
+         final PointBuffer chunk = this.readPoints(start, length);
+         start += length;
+
+         if (!sink.accept(chunk)) {
+            break;
+         }
+      }
+
+      return start;
+   }
+
+   /**
+    * Returns every segment in the file.
+    *
+    * @return
+    */
+   public SegmentBuffer readSegments() {
+      return this.readSegments(0, GeometryFile.toInt(this.count));
+   }
+
+   /**
+    * Returns the given range of segments; lets callers process files too large for a single buffer in pieces.
+    *
+    * @param start
+    * @param length
+    * @return
+    */
+   public SegmentBuffer readSegments(final long start, final int length) {
+      this.checkType(GeometryType.SEGMENTS);
+      this.checkRange(start, length);
+
+      final int valueCount = GeometryFile.toInt((long) length * GeometryType.SEGMENTS.valuesPerRecord);
+      final double[] coordinates = new double[Math.max(4, valueCount)];
+      this.readValues(start * GeometryType.SEGMENTS.valuesPerRecord, coordinates, valueCount);
+
+      double temp;
+
+      // files from other writers may not order the endpoints
+      for (int i = 0; i < valueCount; i += 4) {
+         if (coordinates[i] > coordinates[i + 2] || (coordinates[i] == coordinates[i + 2] && coordinates[i + 1] > coordinates[i + 3])) {
+            temp = coordinates[i];
+            coordinates[i] = coordinates[i + 2];
+            coordinates[i + 2] = temp;
+            temp = coordinates[i + 1];
+            coordinates[i + 1] = coordinates[i + 3];
+            coordinates[i + 3] = temp;
+         }
+      }
+
+      return new SegmentBuffer(coordinates, length);
+   }
+
+   @Override
+   public void close() throws IOException {
+      // mapped chunks stay valid until they are garbage collected
+      this.channel.close();
+   }
+
+   @Override
+   public String toString() {
+      return "GeometryFile[" + this.geometryType + ", " + this.coordinateType + ", " + this.count + "]";
+   }
+
+   private double getValue(final long valueIndex) {
+      final ByteBuffer chunk = this.getChunk((int) (valueIndex / GeometryFile.CHUNK_VALUES));
+      final int offset = (int) (valueIndex % GeometryFile.CHUNK_VALUES) * this.coordinateType.size;
+
+      switch (this.coordinateType) {
+         case INT32:
+            return chunk.getInt(offset);
+         case FLOAT32:
+            return chunk.getFloat(offset);
+         default:
+            return chunk.getDouble(offset);
+      }
+   }
+
+   /**
+    * Copies the given number of values, starting at the given flat value index, into the start of the given array.
+    */
+   private void readValues(final long valueIndex, final double[] output, final int length) {
+      long index = valueIndex;
+      int outputIndex = 0;
+      int chunkIndex, chunkOffset, chunkLength;
+      ByteBuffer chunk;
+
+      while (outputIndex < length) {
+         chunkIndex = (int) (index / GeometryFile.CHUNK_VALUES);
+         chunkOffset = (int) (index % GeometryFile.CHUNK_VALUES);
+         chunkLength = Math.min(length - outputIndex, GeometryFile.CHUNK_VALUES - chunkOffset);
+
+         // duplicate so concurrent readers don't share a position
+         chunk = this.getChunk(chunkIndex).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+         chunk.position(chunkOffset * this.coordinateType.size);
+
+         switch (this.coordinateType) {
+            case INT32:
+               for (int i = 0; i < chunkLength; i++) {
+                  output[outputIndex + i] = chunk.getInt();
+               }
+               break;
+            case FLOAT32:
+               for (int i = 0; i < chunkLength; i++) {
+                  output[outputIndex + i] = chunk.getFloat();
+               }
+               break;
+            default:
+               chunk.asDoubleBuffer().get(output, outputIndex, chunkLength);
+               break;
+         }
+
+         index += chunkLength;
+         outputIndex += chunkLength;
+      }
+   }
+
+   private synchronized ByteBuffer getChunk(final int chunkIndex) {
+      if (this.chunks[chunkIndex] == null) {
+         final long valueCount = this.count * this.geometryType.valuesPerRecord;
+         final long firstValue = (long) chunkIndex * GeometryFile.CHUNK_VALUES;
+         final long chunkValues = Math.min(GeometryFile.CHUNK_VALUES, valueCount - firstValue);
+         final long position = GeometryFile.HEADER_SIZE + firstValue * this.coordinateType.size;
+
+         try {
+            this.chunks[chunkIndex] = this.channel.map(MapMode.READ_ONLY, position, chunkValues * this.coordinateType.size);
+         } catch (final IOException e) {
+            throw new IllegalStateException("Could not map chunk " + chunkIndex + " of " + this, e);
+         }
+
+         this.chunks[chunkIndex].order(ByteOrder.LITTLE_ENDIAN);
+      }
+
+      return this.chunks[chunkIndex];
+   }
+
+   private void checkType(final GeometryType type) {
+      if (this.geometryType != type) {
+         throw new IllegalStateException("File contains " + this.geometryType + ", not " + type + ".");
+      }
+   }
+
+   private void checkRange(final long start, final int length) {
+      if (start < 0 || length < 0 || start + length > this.count) {
+         throw new IndexOutOfBoundsException("Range [" + start + ", " + (start + length) + ") outside of [0, " + this.count + ").");
+      }
+   }
+
+   private static int toInt(final long count) {
+      if (count > Integer.MAX_VALUE) {
+         throw new IllegalStateException("File holds " + count + " records; read it in ranges instead.");
+      }
+
+      return (int) count;
+   }
+}
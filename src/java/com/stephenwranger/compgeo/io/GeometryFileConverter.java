@@ -0,0 +1,47 @@
+package com.stephenwranger.compgeo.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.InvalidParameterException;
+
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
+import com.stephenwranger.compgeo.io.GeometryFile.CoordinateType;
+import com.stephenwranger.graphics.utils.TimeUtils;
+
+/**
+ * Converts the assignment text formats read by {@link TextGeometryParser} into binary geometry files.
+ */
+public class GeometryFileConverter {
+   public static final String USAGE_STRING = "Usage: GeometryFileConverter <points|segments> <input file> <output file" + GeometryFile.EXTENSION + "> [INT32|FLOAT32|FLOAT64]";
+
+   public static void main(final String[] args) throws IOException {
+      if (args.length < 3) {
+         throw new InvalidParameterException(GeometryFileConverter.USAGE_STRING);
+      }
+
+      final Path input = Paths.get(args[1]);
+      final Path output = Paths.get(args[2]);
+      final CoordinateType coordinateType = (args.length > 3) ? CoordinateType.valueOf(args[3]) : CoordinateType.FLOAT64;
+      final long startTime = System.nanoTime();
+      final int count;
+
+      if (args[0].equals("points")) {
+         final PointBuffer points = new PointBuffer();
+         TextGeometryParser.parsePoints(input, points);
+         GeometryFileWriter.writePoints(output, points, coordinateType);
+         count = points.size();
+      } else if (args[0].equals("segments")) {
+         final SegmentBuffer segments = new SegmentBuffer();
+         TextGeometryParser.parseSegments(input, segments);
+         GeometryFileWriter.writeSegments(output, segments, coordinateType);
+         count = segments.size();
+      } else {
+         throw new InvalidParameterException(GeometryFileConverter.USAGE_STRING);
+      }
+
+      System.out.println("Converted " + count + " " + args[0] + " in " + TimeUtils.formatNanoseconds(System.nanoTime() - startTime));
+   }
+
+}
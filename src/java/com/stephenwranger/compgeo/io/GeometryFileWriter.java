@@ -0,0 +1,155 @@
+package com.stephenwranger.compgeo.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
+import com.stephenwranger.compgeo.io.GeometryFile.CoordinateType;
+import com.stephenwranger.compgeo.io.GeometryFile.GeometryType;
+
+/**
+ * Writes point and segment buffers in the binary format read by {@link GeometryFile}.
+ */
+public class GeometryFileWriter {
+   private static final int BUFFER_SIZE = 1 << 20;
+
+   private GeometryFileWriter() {
+      // statics only
+   }
+
+   /**
+    * Writes the given points to the given path, replacing any existing file.
+    *
+    * @param path
+    * @param points
+    * @param coordinateType
+    * @throws IOException
+    */
+   public static void writePoints(final Path path, final PointBuffer points, final CoordinateType coordinateType) throws IOException {
+      final int size = points.size();
+      final double[] bounds = new double[4];
+      GeometryFileWriter.getBounds(points.getXs(), 0, size, 1, bounds, 0);
+      GeometryFileWriter.getBounds(points.getYs(), 0, size, 1, bounds, 1);
+
+      try (final FileChannel channel = GeometryFileWriter.create(path)) {
+         final ByteBuffer buffer = GeometryFileWriter.writeHeader(GeometryType.POINTS, coordinateType, size, bounds);
+
+         GeometryFileWriter.writeValues(channel, buffer, coordinateType, points.getXs(), size);
+         GeometryFileWriter.writeValues(channel, buffer, coordinateType, points.getYs(), size);
+         GeometryFileWriter.flush(channel, buffer);
+      }
+   }
+
+   /**
+    * Writes the given segments to the given path, replacing any existing file.
+    *
+    * @param path
+    * @param segments
+    * @param coordinateType
+    * @throws IOException
+    */
+   public static void writeSegments(final Path path, final SegmentBuffer segments, final CoordinateType coordinateType) throws IOException {
+      final int valueCount = segments.size() * GeometryType.SEGMENTS.valuesPerRecord;
+      final double[] bounds = new double[4];
+      GeometryFileWriter.getBounds(segments.getCoordinates(), 0, valueCount, 2, bounds, 0);
+      GeometryFileWriter.getBounds(segments.getCoordinates(), 1, valueCount, 2, bounds, 1);
+
+      try (final FileChannel channel = GeometryFileWriter.create(path)) {
+         final ByteBuffer buffer = GeometryFileWriter.writeHeader(GeometryType.SEGMENTS, coordinateType, segments.size(), bounds);
+
+         GeometryFileWriter.writeValues(channel, buffer, coordinateType, segments.getCoordinates(), valueCount);
+         GeometryFileWriter.flush(channel, buffer);
+      }
+   }
+
+   private static FileChannel create(final Path path) throws IOException {
+      return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+   }
+
+   /**
+    * Stores the min and max of every stride-th value, starting at the given offset, in bounds[axis] and bounds[axis + 2];
+    * both are left at 0 if there are no values.
+    */
+   private static void getBounds(final double[] values, final int offset, final int length, final int stride, final double[] bounds, final int axis) {
+      if (length == 0) {
+         return;
+      }
+
+      double min = Double.MAX_VALUE;
+      double max = -Double.MAX_VALUE;
+
+      for (int i = offset; i < length; i += stride) {
+         min = Math.min(min, values[i]);
+         max = Math.max(max, values[i]);
+      }
+
+      bounds[axis] = min;
+      bounds[axis + 2] = max;
+   }
+
+   /**
+    * Returns a new write buffer already holding the file header.
+    */
+   private static ByteBuffer writeHeader(final GeometryType geometryType, final CoordinateType coordinateType, final long count, final double[] bounds) {
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(GeometryFileWriter.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+      buffer.putInt(GeometryFile.MAGIC);
+      buffer.putShort(GeometryFile.VERSION);
+      buffer.put(geometryType.id);
+      buffer.put(coordinateType.id);
+      buffer.putLong(count);
+
+      for (final double bound : bounds) {
+         buffer.putDouble(bound);
+      }
+
+      while (buffer.position() < GeometryFile.HEADER_SIZE) {
+         buffer.put((byte) 0);
+      }
+
+      return buffer;
+   }
+
+   private static void writeValues(final FileChannel channel, final ByteBuffer buffer, final CoordinateType coordinateType, final double[] values, final int length) throws IOException {
+      double value;
+
+      for (int i = 0; i < length; i++) {
+         if (buffer.remaining() < coordinateType.size) {
+            GeometryFileWriter.flush(channel, buffer);
+         }
+
+         value = values[i];
+
+         switch (coordinateType) {
+            case INT32:
+               if (value != (int) value) {
+                  throw new IllegalArgumentException("Value " + value + " at index " + i + " is not a 32-bit integer.");
+               }
+
+               buffer.putInt((int) value);
+               break;
+            case FLOAT32:
+               buffer.putFloat((float) value);
+               break;
+            default:
+               buffer.putDouble(value);
+               break;
+         }
+      }
+   }
+
+   private static void flush(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+      buffer.flip();
+
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+
+      buffer.clear();
+   }
+}
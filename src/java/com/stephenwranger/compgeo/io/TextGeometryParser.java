@@ -0,0 +1,413 @@
+package com.stephenwranger.compgeo.io;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.stephenwranger.compgeo.algorithms.PointBuffer;
+import com.stephenwranger.compgeo.algorithms.ResultSink;
+import com.stephenwranger.compgeo.algorithms.SegmentBuffer;
+
+/**
+ * Parses the assignment text formats in parallel. Point files hold a count line followed by one "x y" line per point;
+ * segment files hold a count line, a "x y width height" bounds line and one "x1 y1 x2 y2" line per segment.
+ * <p>
+ * After the header the file is split into byte ranges on line boundaries; each range is memory-mapped and its numbers
+ * parsed straight from the bytes on the common fork/join pool, without creating a String per line or per value.
+ */
+public class TextGeometryParser {
+   private static final int      HEADER_BYTES    = 4096;
+   private static final int      MAX_RANGE_BYTES = 1 << 30;
+   private static final int      MIN_RANGE_BYTES = 1 << 20;
+   private static final double[] POWERS_OF_TEN   = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+   private TextGeometryParser() {
+      // statics only
+   }
+
+   /**
+    * Parses the given point file, appending its points to the given buffer.
+    *
+    * @param path
+    * @param output
+    * @throws IOException
+    */
+   public static void parsePoints(final Path path, final PointBuffer output) throws IOException {
+      try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         final double[] header = new double[1];
+         final long dataStart = TextGeometryParser.parseHeader(channel, header);
+         final int count = TextGeometryParser.toCount(header[0]);
+         final List<RangeParser> ranges = TextGeometryParser.parse(channel, dataStart, count * 2);
+
+         output.ensureCapacity(output.size() + count);
+
+         for (final RangeParser range : ranges) {
+            for (int i = 0; i < range.size; i += 2) {
+               output.add(range.values[i], range.values[i + 1]);
+            }
+         }
+      }
+   }
+
+   /**
+    * Parses the given point file in line-aligned pieces of roughly the given number of bytes and passes the points of
+    * each piece to the sink as a new buffer, so only one piece is held in memory at a time; lets callers process files
+    * too large for a single buffer. Returns the number of points parsed, which is less than the file's count only if
+    * the sink stopped early.
+    *
+    * @param path
+    * @param chunkBytes
+    * @param sink
+    * @return
+    * @throws IOException
+    */
+   public static long parsePoints(final Path path, final long chunkBytes, final ResultSink<PointBuffer> sink) throws IOException {
+      if (chunkBytes <= 0) {
+         throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+      }
+
+      try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         final double[] header = new double[1];
+         final long dataStart = TextGeometryParser.parseHeader(channel, header);
+         final long count = TextGeometryParser.toLongCount(header[0]);
+         final long dataEnd = channel.size();
+         final double valuesPerByte = (double) count * 2 / Math.max(1, dataEnd - dataStart);
+         long start = dataStart;
+         long values = 0;
+         long end;
+
+         while (start < dataEnd) {
+            end = TextGeometryParser.findLineEnd(channel, Math.min(start + chunkBytes, dataEnd));
+
+            final List<RangeParser> ranges = TextGeometryParser.parse(channel, start, end, (long) (valuesPerByte * (end - start)));
+            int size = 0;
+
+            for (final RangeParser range : ranges) {
+               size += range.size;
+            }
+
+            final PointBuffer chunk = new PointBuffer(size / 2);
+
+            for (final RangeParser range : ranges) {
+               for (int i = 0; i < range.size; i += 2) {
+                  chunk.add(range.values[i], range.values[i + 1]);
+               }
+            }
+
+            values += size;
+            start = end;
+
+            if (values > count * 2) {
+               throw new IOException("Expected " + (count * 2) + " values but found at least " + values + ".");
+            } else if (!sink.accept(chunk)) {
+               return values / 2;
+            }
+         }
+
+         if (values != count * 2) {
+            throw new IOException("Expected " + (count * 2) + " values but found " + values + ".");
+         }
+
+         return count;
+      }
+   }
+
+   /**
+    * Parses the given segment file, appending its segments to the given buffer, and returns the bounds from its header.
+    *
+    * @param path
+    * @param output
+    * @return
+    * @throws IOException
+    */
+   public static Rectangle2D parseSegments(final Path path, final SegmentBuffer output) throws IOException {
+      try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         final double[] header = new double[5];
+         final long dataStart = TextGeometryParser.parseHeader(channel, header);
+         final int count = TextGeometryParser.toCount(header[0]);
+         final List<RangeParser> ranges = TextGeometryParser.parse(channel, dataStart, count * 4);
+
+         output.ensureCapacity(output.size() + count);
+
+         for (final RangeParser range : ranges) {
+            for (int i = 0; i < range.size; i += 4) {
+               output.add(range.values[i], range.values[i + 1], range.values[i + 2], range.values[i + 3]);
+            }
+         }
+
+         return new Rectangle2D.Double(header[1], header[2], header[3], header[4]);
+      }
+   }
+
+   /**
+    * Parses the given number of header values from the start of the file and returns the offset of the first byte after
+    * the line holding the last of them.
+    */
+   private static long parseHeader(final FileChannel channel, final double[] output) throws IOException {
+      final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), TextGeometryParser.HEADER_BYTES));
+
+      while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+         // keep reading
+      }
+
+      buffer.flip();
+
+      final RangeParser parser = new RangeParser(null, 0, 0, output.length);
+      parser.parse(buffer, output.length);
+
+      if (parser.size < output.length) {
+         throw new IOException("Header needs " + output.length + " values but found " + parser.size + ".");
+      }
+
+      System.arraycopy(parser.values, 0, output, 0, output.length);
+
+      int position = parser.position;
+
+      while (position < buffer.limit() && buffer.get(position) != '\n') {
+         position++;
+      }
+
+      return position + 1;
+   }
+
+   private static List<RangeParser> parse(final FileChannel channel, final long dataStart, final int valueCount) throws IOException {
+      final List<RangeParser> ranges = TextGeometryParser.parse(channel, dataStart, channel.size(), valueCount);
+      int total = 0;
+
+      for (final RangeParser range : ranges) {
+         total += range.size;
+      }
+
+      if (total != valueCount) {
+         throw new IOException("Expected " + valueCount + " values but found " + total + ".");
+      }
+
+      return ranges;
+   }
+
+   /**
+    * Parses the bytes <code>[dataStart, dataEnd)</code>, which must start and end on line boundaries and are expected to
+    * hold about the given number of values, as line-aligned ranges on the common fork/join pool.
+    */
+   private static List<RangeParser> parse(final FileChannel channel, final long dataStart, final long dataEnd, final long valueCount) throws IOException {
+      final long dataLength = Math.max(0, dataEnd - dataStart);
+      final int parallelism = Runtime.getRuntime().availableProcessors();
+      final long rangeBytes = Math.min(TextGeometryParser.MAX_RANGE_BYTES, Math.max(TextGeometryParser.MIN_RANGE_BYTES, dataLength / (parallelism * 4) + 1));
+      final List<RangeParser> ranges = new ArrayList<RangeParser>();
+      final int expectedValues = (int) Math.min(Integer.MAX_VALUE / 2, Math.min(valueCount, valueCount * rangeBytes / Math.max(1, dataLength) + 64));
+      long start = dataStart;
+      long end;
+
+      while (start < dataStart + dataLength) {
+         end = TextGeometryParser.findLineEnd(channel, Math.min(start + rangeBytes, dataStart + dataLength));
+         ranges.add(new RangeParser(channel, start, end, expectedValues));
+         start = end;
+      }
+
+      try {
+         ForkJoinTask.invokeAll(ranges);
+      } catch (final UncheckedIOException e) {
+         throw e.getCause();
+      }
+
+      return ranges;
+   }
+
+   /**
+    * Returns the offset just past the first newline at or after the given offset, or the end of the file.
+    */
+   private static long findLineEnd(final FileChannel channel, final long offset) throws IOException {
+      final long size = channel.size();
+      final ByteBuffer buffer = ByteBuffer.allocate(256);
+      long position = offset;
+
+      while (position < size) {
+         buffer.clear();
+         channel.read(buffer, position);
+         buffer.flip();
+
+         for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+               return position + i + 1;
+            }
+         }
+
+         position += buffer.limit();
+      }
+
+      return size;
+   }
+
+   private static int toCount(final double value) throws IOException {
+      if (value < 0 || value > Integer.MAX_VALUE / 4 || value != Math.floor(value)) {
+         throw new IOException("Invalid record count: " + value);
+      }
+
+      return (int) value;
+   }
+
+   private static long toLongCount(final double value) throws IOException {
+      if (value < 0 || value > (1L << 53) || value != Math.floor(value)) {
+         throw new IOException("Invalid record count: " + value);
+      }
+
+      return (long) value;
+   }
+
+   /**
+    * Parses every number in one line-aligned byte range of the file.
+    */
+   private static class RangeParser extends RecursiveAction {
+      private static final long serialVersionUID = -2017563958116213422L;
+
+      private final FileChannel channel;
+      private final long        start;
+      private final long        end;
+      private double[]          values;
+      private int               size     = 0;
+      private int               position = 0;
+
+      public RangeParser(final FileChannel channel, final long start, final long end, final int expectedValues) {
+         this.channel = channel;
+         this.start = start;
+         this.end = end;
+         this.values = new double[Math.max(4, expectedValues)];
+      }
+
+      @Override
+      protected void compute() {
+         try {
+            this.parse(this.channel.map(MapMode.READ_ONLY, this.start, this.end - this.start), Integer.MAX_VALUE);
+         } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+         } catch (final NumberFormatException e) {
+            throw new UncheckedIOException(new IOException("Invalid number in bytes [" + this.start + ", " + this.end + ")", e));
+         }
+      }
+
+      /**
+       * Parses up to the given number of whitespace separated values from the buffer.
+       */
+      private void parse(final ByteBuffer buffer, final int maxValues) {
+         final int limit = buffer.limit();
+         byte c;
+
+         this.position = 0;
+
+         while (this.position < limit && this.size < maxValues) {
+            c = buffer.get(this.position);
+
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+               this.position++;
+            } else {
+               if (this.size == this.values.length) {
+                  this.values = Arrays.copyOf(this.values, this.values.length * 2);
+               }
+
+               this.values[this.size++] = this.parseNumber(buffer, limit);
+            }
+         }
+      }
+
+      /**
+       * Parses the number starting at the current position and leaves the position just past it. Decimals with at most
+       * 18 significant digits and a small exponent are converted exactly with a single multiply or divide; anything
+       * else falls back to Double.parseDouble.
+       */
+      private double parseNumber(final ByteBuffer buffer, final int limit) {
+         final int numberStart = this.position;
+         boolean negative = false;
+         long mantissa = 0;
+         int digits = 0;
+         int exponent = 0;
+         boolean isExact = true;
+         byte c = buffer.get(this.position);
+
+         if (c == '-' || c == '+') {
+            negative = (c == '-');
+            this.position++;
+         }
+
+         while (this.position < limit && (c = buffer.get(this.position)) >= '0' && c <= '9') {
+            if (digits < 18) {
+               mantissa = mantissa * 10 + (c - '0');
+            } else {
+               exponent++;
+               isExact = false;
+            }
+
+            digits++;
+            this.position++;
+         }
+
+         if (this.position < limit && buffer.get(this.position) == '.') {
+            this.position++;
+
+            while (this.position < limit && (c = buffer.get(this.position)) >= '0' && c <= '9') {
+               if (digits < 18) {
+                  mantissa = mantissa * 10 + (c - '0');
+                  exponent--;
+               } else {
+                  isExact = false;
+               }
+
+               digits++;
+               this.position++;
+            }
+         }
+
+         if (digits == 0) {
+            throw new NumberFormatException("Unexpected character '" + (char) buffer.get(numberStart) + "'");
+         }
+
+         if (this.position < limit && ((c = buffer.get(this.position)) == 'e' || c == 'E')) {
+            this.position++;
+            boolean negativeExponent = false;
+            int value = 0;
+            int exponentDigits = 0;
+
+            if (this.position < limit && ((c = buffer.get(this.position)) == '-' || c == '+')) {
+               negativeExponent = (c == '-');
+               this.position++;
+            }
+
+            while (this.position < limit && (c = buffer.get(this.position)) >= '0' && c <= '9') {
+               value = Math.min(value * 10 + (c - '0'), 10000);
+               exponentDigits++;
+               this.position++;
+            }
+
+            // as Double.parseDouble, an exponent needs at least one digit
+            if (exponentDigits == 0) {
+               throw new NumberFormatException("Missing exponent digits");
+            }
+
+            exponent += (negativeExponent) ? -value : value;
+         }
+
+         if (isExact && mantissa < (1L << 53) && Math.abs(exponent) < TextGeometryParser.POWERS_OF_TEN.length) {
+            final double value = (exponent >= 0) ? mantissa * TextGeometryParser.POWERS_OF_TEN[exponent] : mantissa / TextGeometryParser.POWERS_OF_TEN[-exponent];
+            return (negative) ? -value : value;
+         }
+
+         final byte[] bytes = new byte[this.position - numberStart];
+
+         for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(numberStart + i);
+         }
+
+         return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+      }
+   }
+}